@@ -0,0 +1,64 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.AviatorDemoApplication;
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.EvalMode;
+import com.googlecode.aviator.Options;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 基准测试共用的应用上下文
+ * <p>
+ * 以非 Web 方式启动完整的 Spring 上下文，服务与生产环境装配一致；
+ * 公式存储使用临时目录，每次运行都从内置公式模板（版本 0）开始。
+ *
+ * @author demo
+ */
+@State(Scope.Benchmark)
+public class DemoApplicationState {
+
+    /**
+     * Aviator 求值模式，需要在 AviatorService 初始化、公式预编译之前设置
+     */
+    @Param({"ASM", "INTERPRETER"})
+    public EvalMode evalMode;
+
+    private Path storePath;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup
+    public void start() throws IOException {
+        AviatorEvaluator.setOption(Options.EVAL_MODE, evalMode);
+        storePath = Files.createTempDirectory("aviator-demo-jmh");
+        context = new SpringApplicationBuilder(AviatorDemoApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            // 以命令行参数传入，优先级高于 application.yml，关闭逐次调用的 INFO / DEBUG 日志
+            .run("--formula.store.path=" + storePath,
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.demo=WARN");
+    }
+
+    @TearDown
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(storePath);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
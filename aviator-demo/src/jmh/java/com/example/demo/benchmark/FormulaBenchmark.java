@@ -0,0 +1,103 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.AviatorService;
+import com.example.demo.service.FormulaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FormulaService 内置公式模板的基准测试
+ * <p>
+ * 对比预编译公式、编译缓存命中和每次重新编译三种执行方式。
+ *
+ * @author demo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class FormulaBenchmark {
+
+    @Param({"discount", "final_price", "compound_interest", "bmi", "circle_area"})
+    public String formula;
+
+    private FormulaService formulaService;
+
+    private AviatorService aviatorService;
+
+    private String template;
+
+    private Map<String, Object> params;
+
+    @Setup
+    public void setUp(DemoApplicationState state) {
+        formulaService = state.getBean(FormulaService.class);
+        aviatorService = state.getBean(AviatorService.class);
+        template = formulaService.getAllFormulas().get(formula);
+
+        // 覆盖所有内置模板用到的变量，多余的变量不影响求值
+        params = new HashMap<>();
+        params.put("price", 19.99);
+        params.put("quantity", 3);
+        params.put("rate", 0.05);
+        params.put("discount", 0.15);
+        params.put("shipping", 8.0);
+        params.put("tax", 0.06);
+        params.put("amount", 120.0);
+        params.put("taxRate", 0.13);
+        params.put("principal", 10000.0);
+        params.put("periods", 12);
+        params.put("weight", 68.5);
+        params.put("height", 175);
+        params.put("radius", 2.5);
+    }
+
+    /**
+     * 使用 FormulaService 中预编译的公式
+     */
+    @Benchmark
+    public Object calculateByFormula() {
+        return formulaService.calculateByFormula(formula, params);
+    }
+
+    /**
+     * 四个线程同时使用预编译的公式
+     */
+    @Benchmark
+    @Threads(4)
+    public Object calculateByFormulaParallel() {
+        return formulaService.calculateByFormula(formula, params);
+    }
+
+    /**
+     * 每次调用按表达式字符串查找编译缓存
+     */
+    @Benchmark
+    public Object executeCached() {
+        return aviatorService.compile(template, true).execute(params);
+    }
+
+    /**
+     * 每次调用都重新编译，不使用缓存
+     */
+    @Benchmark
+    public Object compileAndExecute() {
+        return aviatorService.compile(template, false).execute(params);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.PriceCalculation;
+import com.example.demo.service.AviatorService;
+import com.example.demo.service.PriceCalculationService;
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PriceCalculationService 的基准测试
+ * <p>
+ * decimalParsing 控制 Aviator 是否把浮点字面量解析为 BigDecimal（AviatorService 默认开启），
+ * 影响经过 Aviator 求值的路径；定点数模式（executeMoney）不受该选项影响，作为对照。
+ *
+ * @author demo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PriceCalculationBenchmark {
+
+    private static final String FINAL_PRICE = "(price * quantity * (1 - discount) + shipping) * (1 + tax)";
+
+    @Param({"true", "false"})
+    public boolean decimalParsing;
+
+    private PriceCalculationService priceService;
+
+    private AviatorService aviatorService;
+
+    private PriceCalculation calculation;
+
+    private Map<String, Object> env;
+
+    @Setup
+    public void setUp(DemoApplicationState state) {
+        priceService = state.getBean(PriceCalculationService.class);
+        aviatorService = state.getBean(AviatorService.class);
+        AviatorEvaluator.setOption(Options.ALWAYS_PARSE_FLOATING_POINT_NUMBER_INTO_DECIMAL, decimalParsing);
+        aviatorService.clearExpressionCache();
+
+        calculation = new PriceCalculation(19.99, 3, 0.15, 8.0, 0.06);
+        env = new HashMap<>();
+        env.put("price", calculation.getOriginalPrice());
+        env.put("quantity", calculation.getQuantity());
+        env.put("discount", calculation.getDiscountRate());
+        env.put("shipping", calculation.getShippingFee());
+        env.put("tax", calculation.getTaxRate());
+    }
+
+    /**
+     * 定点数模式计算最终价格
+     */
+    @Benchmark
+    public Double finalPrice() {
+        return priceService.calculateFinalPrice(calculation);
+    }
+
+    /**
+     * 同一公式直接由 Aviator 求值
+     */
+    @Benchmark
+    public double finalPriceAviator() {
+        return aviatorService.executeDouble(FINAL_PRICE, env);
+    }
+
+    @Benchmark
+    public Double discountPrice() {
+        return priceService.calculateDiscountPrice(199.0, 0.2);
+    }
+
+    @Benchmark
+    public Double vipDiscount() {
+        return priceService.calculateVipDiscount(199.0, 3);
+    }
+
+    @Benchmark
+    public Double fullReduction() {
+        return priceService.calculateFullReduction(236.5);
+    }
+
+    @Benchmark
+    public Double tieredPrice() {
+        return priceService.calculateTieredPrice(60, 12.5);
+    }
+
+    @Benchmark
+    public Double compoundInterest() {
+        return priceService.calculateCompoundInterest(10000.0, 0.05, 12);
+    }
+}
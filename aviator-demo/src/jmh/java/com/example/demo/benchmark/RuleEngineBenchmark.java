@@ -0,0 +1,83 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.LoanApplication;
+import com.example.demo.service.RuleEngineService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RuleEngineService 规则的基准测试
+ * <p>
+ * 规则每次调用都新建 HashMap 环境并按表达式字符串查找编译缓存；
+ * 利率和成绩等级两条规则走结果缓存。
+ *
+ * @author demo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class RuleEngineBenchmark {
+
+    private RuleEngineService ruleEngineService;
+
+    private LoanApplication application;
+
+    @Setup
+    public void setUp(DemoApplicationState state) {
+        ruleEngineService = state.getBean(RuleEngineService.class);
+        application = new LoanApplication(35, 12000.0, 50000.0, 680, true, 5);
+    }
+
+    @Benchmark
+    public boolean loanEligibility() {
+        return ruleEngineService.evaluateLoanEligibility(application);
+    }
+
+    /**
+     * 四个线程同时评估贷款资格
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean loanEligibilityParallel() {
+        return ruleEngineService.evaluateLoanEligibility(application);
+    }
+
+    @Benchmark
+    public Double loanRate() {
+        return ruleEngineService.calculateLoanRate(680, true);
+    }
+
+    @Benchmark
+    public String userLevel() {
+        return ruleEngineService.evaluateUserLevel(6800.0, 32);
+    }
+
+    @Benchmark
+    public Integer riskScore() {
+        return ruleEngineService.calculateRiskScore(35, 12000.0, 680, 0.35, false);
+    }
+
+    @Benchmark
+    public String couponType() {
+        return ruleEngineService.determineCouponType(18, 12, 150.0, false);
+    }
+
+    @Benchmark
+    public String grade() {
+        return ruleEngineService.evaluateGrade(76);
+    }
+}
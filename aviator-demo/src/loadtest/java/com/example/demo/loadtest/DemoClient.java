@@ -0,0 +1,68 @@
+package com.example.demo.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 基于 HttpURLConnection 的阻塞客户端，读完响应体后连接回到 JDK 的 keep-alive 连接池复用
+ *
+ * @author demo
+ */
+class DemoClient {
+
+    private static final String SUCCESS = "\"success\":true";
+
+    private final String baseUrl;
+
+    DemoClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * 发送一次请求
+     *
+     * @return HTTP 200 且响应中 success 为 true 时返回 true
+     */
+    boolean send(Endpoint endpoint, Random random) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + endpoint.nextUri(random)).openConnection();
+            connection.setRequestMethod(endpoint.getMethod());
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            String body = endpoint.nextBody(random);
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            String response = readFully(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            return status == 200 && response.contains(SUCCESS);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 被压测的接口，每次请求随机生成参数，避免结果缓存让所有请求都命中
+ *
+ * @author demo
+ */
+public final class Endpoint {
+
+    private final String name;
+    private final String method;
+    private final Function<Random, String> uri;
+    private final Function<Random, String> body;
+
+    private Endpoint(String name, String method, Function<Random, String> uri, Function<Random, String> body) {
+        this.name = name;
+        this.method = method;
+        this.uri = uri;
+        this.body = body;
+    }
+
+    private static Endpoint get(String name, Function<Random, String> uri) {
+        return new Endpoint(name, "GET", uri, null);
+    }
+
+    private static Endpoint post(String name, String uri, Function<Random, String> body) {
+        return new Endpoint(name, "POST", random -> uri, body);
+    }
+
+    /**
+     * demo 的全部计算接口，名称按 {@code 分组.接口} 命名，分组与 /api/price、/api/rule、/api/formula 对应
+     */
+    public static List<Endpoint> all() {
+        return Collections.unmodifiableList(Arrays.asList(
+            post("price.final", "/api/price/final", r -> format(
+                "{\"originalPrice\":%.2f,\"quantity\":%d,\"discountRate\":%.2f,\"shippingFee\":%.1f,\"taxRate\":0.06}",
+                10 + r.nextInt(9000) / 100.0, 1 + r.nextInt(10), r.nextInt(50) / 100.0, (double) r.nextInt(20))),
+            get("price.discount", r -> format("/api/price/discount?price=%.2f&rate=%.2f",
+                10 + r.nextInt(9000) / 100.0, r.nextInt(50) / 100.0)),
+            get("price.vip", r -> format("/api/price/vip?price=%.2f&level=%d",
+                10 + r.nextInt(9000) / 100.0, r.nextInt(6))),
+            get("price.reduction", r -> format("/api/price/reduction?amount=%.2f",
+                r.nextInt(80000) / 100.0)),
+            get("price.tiered", r -> format("/api/price/tiered?quantity=%d&unitPrice=%.2f",
+                1 + r.nextInt(150), 1 + r.nextInt(5000) / 100.0)),
+            get("price.compound", r -> format("/api/price/compound?principal=%d&rate=%.3f&periods=%d",
+                1000 * (1 + r.nextInt(100)), r.nextInt(100) / 1000.0, 1 + r.nextInt(60))),
+            post("rule.loan", "/api/rule/loan/evaluate", r -> format(
+                "{\"age\":%d,\"monthlyIncome\":%d,\"loanAmount\":%d,\"creditScore\":%d,\"hasCollateral\":%b,\"employmentYears\":%d}",
+                18 + r.nextInt(50), 3000 + r.nextInt(30000), 10000 + r.nextInt(500000), 500 + r.nextInt(350),
+                r.nextBoolean(), r.nextInt(20))),
+            get("rule.rate", r -> format("/api/rule/loan/rate?credit=%d&collateral=%b",
+                500 + r.nextInt(350), r.nextBoolean())),
+            get("rule.level", r -> format("/api/rule/user/level?spent=%d&orders=%d",
+                r.nextInt(20000), r.nextInt(80))),
+            get("rule.risk", r -> format("/api/rule/risk/score?age=%d&income=%d&credit=%d&debt=%.2f&defaulted=%b",
+                18 + r.nextInt(50), 3000 + r.nextInt(30000), 500 + r.nextInt(350), r.nextInt(100) / 100.0,
+                r.nextInt(10) == 0)),
+            get("rule.coupon", r -> format("/api/rule/coupon?days=%d&orders=%d&avgValue=%d&newUser=%b",
+                r.nextInt(60), r.nextInt(40), 20 + r.nextInt(400), r.nextInt(10) == 0)),
+            get("rule.grade", r -> "/api/rule/grade?score=" + r.nextInt(101)),
+            post("formula.final_price", "/api/formula/calculate/final_price", r -> format(
+                "{\"price\":%.2f,\"quantity\":%d,\"discount\":%.2f,\"shipping\":%.1f,\"tax\":0.06}",
+                10 + r.nextInt(9000) / 100.0, 1 + r.nextInt(10), r.nextInt(50) / 100.0, (double) r.nextInt(20))),
+            post("formula.compound_interest", "/api/formula/calculate/compound_interest", r -> format(
+                "{\"principal\":%d,\"rate\":%.3f,\"periods\":%d}",
+                1000 * (1 + r.nextInt(100)), r.nextInt(100) / 1000.0, 1 + r.nextInt(60))),
+            post("formula.bmi", "/api/formula/calculate/bmi", r -> format(
+                "{\"weight\":%.1f,\"height\":%d}", 40 + r.nextInt(800) / 10.0, 150 + r.nextInt(50))),
+            get("formula.list", r -> "/api/formula/list")));
+    }
+
+    /**
+     * 按请求比例选出参与压测的接口及权重
+     * <p>
+     * key 为接口名或接口名前缀（如 {@code price}），权重在该 key 匹配的接口之间平分；
+     * 一个接口匹配多个 key 时取最长的 key。比例为空时全部接口等比例。
+     *
+     * @param endpoints 候选接口
+     * @param mix key 到权重的映射
+     * @return 接口到权重的映射，只包含权重大于 0 的接口
+     */
+    public static Map<Endpoint, Double> weights(List<Endpoint> endpoints, Map<String, Integer> mix) {
+        Map<Endpoint, Double> weights = new LinkedHashMap<>();
+        if (mix.isEmpty()) {
+            endpoints.forEach(endpoint -> weights.put(endpoint, 1.0));
+            return weights;
+        }
+        Map<Endpoint, String> matched = new LinkedHashMap<>();
+        Map<String, Integer> matchCount = new HashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            String best = null;
+            for (String key : mix.keySet()) {
+                if (endpoint.matches(key) && (best == null || key.length() > best.length())) {
+                    best = key;
+                }
+            }
+            if (best != null) {
+                matched.put(endpoint, best);
+                matchCount.merge(best, 1, Integer::sum);
+            }
+        }
+        for (String key : mix.keySet()) {
+            if (!matchCount.containsKey(key)) {
+                throw new IllegalArgumentException("请求比例中的接口不存在: " + key);
+            }
+        }
+        matched.forEach((endpoint, key) -> {
+            double weight = (double) mix.get(key) / matchCount.get(key);
+            if (weight > 0) {
+                weights.put(endpoint, weight);
+            }
+        });
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("请求比例中没有权重大于 0 的接口: " + mix);
+        }
+        return weights;
+    }
+
+    private boolean matches(String key) {
+        return name.equals(key) || name.startsWith(key + ".");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String nextUri(Random random) {
+        return uri.apply(random);
+    }
+
+    /**
+     * 生成请求体，GET 请求返回 null
+     */
+    public String nextBody(Random random) {
+        return body == null ? null : body.apply(random);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * 固定使用 Locale.ROOT，小数点不受系统区域设置影响
+     */
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口在一个阶段内的统计，延迟以纳秒记录在 HdrHistogram 中
+ *
+ * @author demo
+ */
+class EndpointStats {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+
+    private final LongAdder errors = new LongAdder();
+
+    void recordSuccess(long latencyNanos) {
+        latency.recordValue(latencyNanos);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    long getCount() {
+        return latency.getTotalCount();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * 汇总为可序列化的 Map，延迟单位为毫秒；histogram 为压缩编码的原始直方图（Base64），
+     * 可以用 {@code Histogram.decodeFromCompressedByteBuffer} 还原后与其他构建的结果合并或比较
+     */
+    Map<String, Object> toMap(double elapsedSeconds) {
+        Histogram snapshot = latency.copy();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("requests", snapshot.getTotalCount());
+        map.put("errors", errors.sum());
+        map.put("throughput", snapshot.getTotalCount() / elapsedSeconds);
+        map.put("latencyMillis", summarize(snapshot, TimeUnit.MILLISECONDS.toNanos(1)));
+        map.put("histogram", encode(snapshot));
+        return map;
+    }
+
+    /**
+     * 直方图的最小值、平均值、各分位数和最大值，数值除以 scale 换算单位
+     */
+    static Map<String, Object> summarize(Histogram histogram, double scale) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (histogram.getTotalCount() == 0) {
+            return map;
+        }
+        map.put("min", histogram.getMinValue() / scale);
+        map.put("mean", histogram.getMean() / scale);
+        for (double percentile : PERCENTILES) {
+            map.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                histogram.getValueAtPercentile(percentile) / scale);
+        }
+        map.put("max", histogram.getMaxValue() / scale);
+        return map;
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
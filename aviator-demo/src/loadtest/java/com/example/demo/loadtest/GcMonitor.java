@@ -0,0 +1,87 @@
+package com.example.demo.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.Histogram;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 通过 GC 通知记录一个阶段内的 GC 停顿
+ * <p>
+ * 压测客户端与应用在同一个 JVM 中，停顿同时影响两者，结果反映的是整个进程。
+ * ZGC / Shenandoah 的 "Cycles" 收集器是并发周期而不是停顿，不计入停顿统计。
+ *
+ * @author demo
+ */
+class GcMonitor implements NotificationListener {
+
+    private final Histogram pauses = new Histogram(3);
+
+    private final Map<String, long[]> collectors = new LinkedHashMap<>();
+
+    void start() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    void stop() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) bean).removeNotificationListener(this);
+                } catch (ListenerNotFoundException ignored) {
+                    // 未注册成功的收集器
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long duration = info.getGcInfo().getDuration();
+        long[] collector = collectors.computeIfAbsent(info.getGcName(), name -> new long[2]);
+        collector[0]++;
+        collector[1] += duration;
+        if (!info.getGcName().contains("Cycles")) {
+            pauses.recordValue(duration);
+        }
+    }
+
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pauses", pauses.getTotalCount());
+        long total = 0;
+        for (Map.Entry<String, long[]> entry : collectors.entrySet()) {
+            if (!entry.getKey().contains("Cycles")) {
+                total += entry.getValue()[1];
+            }
+        }
+        map.put("totalPauseMillis", total);
+        map.put("pauseMillis", EndpointStats.summarize(pauses, 1));
+        Map<String, Object> byCollector = new LinkedHashMap<>();
+        collectors.forEach((name, collector) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", collector[0]);
+            stats.put("timeMillis", collector[1]);
+            byCollector.put(name, stats);
+        });
+        map.put("collectors", byCollector);
+        return map;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按请求比例向各接口发送请求，每个阶段先预热再测量
+ * <p>
+ * 开环模式（rate &gt; 0）由调度线程按固定间隔产生请求，交给 concurrency 个线程发送，
+ * 延迟从计划发送时间开始计算，包含排队时间，服务变慢时不会因为少发请求而低估延迟
+ * （coordinated omission）；闭环模式（rate = 0）下每个线程收到响应后立即发下一个请求，
+ * 延迟只包含请求本身的耗时。
+ *
+ * @author demo
+ */
+class LoadGenerator {
+
+    private final DemoClient client;
+
+    private final LoadTestOptions options;
+
+    LoadGenerator(DemoClient client, LoadTestOptions options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    /**
+     * 运行一个阶段
+     *
+     * @param name 阶段名称
+     * @param weights 接口到权重的映射
+     * @return 阶段结果
+     */
+    Map<String, Object> run(String name, Map<Endpoint, Double> weights) throws InterruptedException {
+        Mix mix = new Mix(weights);
+        if (!options.getWarmup().isZero()) {
+            drive(mix, options.getWarmup(), new LinkedHashMap<>());
+        }
+
+        Map<Endpoint, EndpointStats> stats = new LinkedHashMap<>();
+        weights.keySet().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+        GcMonitor gc = new GcMonitor();
+        gc.start();
+        long start = System.nanoTime();
+        int maxBacklog;
+        try {
+            maxBacklog = drive(mix, options.getDuration(), stats);
+        } finally {
+            gc.stop();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> phase = new LinkedHashMap<>();
+        phase.put("name", name);
+        phase.put("elapsedSeconds", elapsedSeconds);
+        long requests = stats.values().stream().mapToLong(EndpointStats::getCount).sum();
+        long errors = stats.values().stream().mapToLong(EndpointStats::getErrors).sum();
+        phase.put("requests", requests);
+        phase.put("errors", errors);
+        phase.put("throughput", requests / elapsedSeconds);
+        if (options.getRate() > 0) {
+            phase.put("maxBacklog", maxBacklog);
+        }
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> endpoints.put(endpoint.getName(), endpointStats.toMap(elapsedSeconds)));
+        phase.put("endpoints", endpoints);
+        phase.put("gc", gc.toMap());
+        return phase;
+    }
+
+    /**
+     * 持续发送请求直到时长用完，并等待已发出的请求全部完成
+     *
+     * @return 开环模式下等待发送的最大请求数，闭环模式为 0
+     */
+    private int drive(Mix mix, Duration duration, Map<Endpoint, EndpointStats> stats) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(options.getConcurrency(), new WorkerThreadFactory());
+        AtomicInteger backlog = new AtomicInteger();
+        int maxBacklog = 0;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try {
+            if (options.getRate() > 0) {
+                double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+                for (long i = 0; ; i++) {
+                    long intended = start + (long) (i * intervalNanos);
+                    if (intended >= end) {
+                        break;
+                    }
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Endpoint endpoint = mix.next();
+                    maxBacklog = Math.max(maxBacklog, backlog.incrementAndGet());
+                    workers.execute(() -> {
+                        backlog.decrementAndGet();
+                        send(endpoint, intended, stats.get(endpoint));
+                    });
+                }
+            } else {
+                for (int i = 0; i < options.getConcurrency(); i++) {
+                    workers.execute(() -> {
+                        while (System.nanoTime() < end) {
+                            Endpoint endpoint = mix.next();
+                            send(endpoint, System.nanoTime(), stats.get(endpoint));
+                        }
+                    });
+                }
+            }
+        } finally {
+            workers.shutdown();
+        }
+        if (!workers.awaitTermination(Math.max(duration.getSeconds(), 60), TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+            throw new IllegalStateException("等待已发出的请求完成超时，请降低 rate 或提高 concurrency");
+        }
+        return maxBacklog;
+    }
+
+    private void send(Endpoint endpoint, long startNanos, EndpointStats stats) {
+        boolean success = client.send(endpoint, ThreadLocalRandom.current());
+        long latency = System.nanoTime() - startNanos;
+        if (stats == null) {
+            return;
+        }
+        if (success) {
+            stats.recordSuccess(latency);
+        } else {
+            stats.recordError();
+        }
+    }
+
+    /**
+     * 按权重随机选择接口
+     */
+    private static final class Mix {
+
+        private final List<Endpoint> endpoints;
+
+        private final double[] cumulative;
+
+        Mix(Map<Endpoint, Double> weights) {
+            endpoints = new ArrayList<>(weights.keySet());
+            cumulative = new double[endpoints.size()];
+            double sum = 0;
+            for (int i = 0; i < endpoints.size(); i++) {
+                sum += weights.get(endpoints.get(i));
+                cumulative[i] = sum;
+            }
+        }
+
+        Endpoint next() {
+            double value = ThreadLocalRandom.current().nextDouble(cumulative[cumulative.length - 1]);
+            int index = Arrays.binarySearch(cumulative, value);
+            return endpoints.get(index >= 0 ? index + 1 : -index - 1);
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "loadtest-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 {@code --key=value}
+ * <ul>
+ *     <li>{@code --concurrency}：发送请求的线程数，默认 16</li>
+ *     <li>{@code --rate}：每秒到达的请求数（开环），0 表示闭环，每个线程收到响应后立即发下一个请求，默认 0</li>
+ *     <li>{@code --duration}：每个阶段的测量时长，默认 30s</li>
+ *     <li>{@code --warmup}：每个阶段测量前的预热时长，预热期间的数据不计入结果，默认 10s</li>
+ *     <li>{@code --mix}：请求比例，如 {@code price:5,rule:3,formula.final_price:2}，key 为接口名或接口名前缀，默认全部接口等比例</li>
+ *     <li>{@code --isolate}：每个接口单独跑一个阶段，GC 停顿可以归属到具体接口，默认 false</li>
+ *     <li>{@code --label}：写入结果文件的标签，如构建版本号，便于区分不同构建的结果</li>
+ *     <li>{@code --output}：JSON 结果文件，默认 build/results/loadtest/results.json</li>
+ * </ul>
+ * 其他带点号的参数（如 {@code --server.tomcat.threads.max=50}、{@code --aviator.money.scale=2}）
+ * 作为应用配置传给被测应用，用于对比不同线程池和缓存配置下的结果。
+ *
+ * @author demo
+ */
+public class LoadTestOptions {
+
+    private int concurrency = 16;
+    private double rate = 0;
+    private Duration duration = Duration.ofSeconds(30);
+    private Duration warmup = Duration.ofSeconds(10);
+    private Map<String, Integer> mix = new LinkedHashMap<>();
+    private boolean isolate = false;
+    private String label = "";
+    private Path output = Paths.get("build", "results", "loadtest", "results.json");
+    private Map<String, String> applicationProperties = new LinkedHashMap<>();
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1).trim();
+            switch (key) {
+                case "concurrency":
+                    options.concurrency = Integer.parseInt(value);
+                    break;
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "duration":
+                    options.duration = DurationStyle.detectAndParse(value);
+                    break;
+                case "warmup":
+                    options.warmup = DurationStyle.detectAndParse(value);
+                    break;
+                case "mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "isolate":
+                    options.isolate = Boolean.parseBoolean(value);
+                    break;
+                case "label":
+                    options.label = value;
+                    break;
+                case "output":
+                    options.output = Paths.get(value);
+                    break;
+                default:
+                    if (key.indexOf('.') < 0) {
+                        throw new IllegalArgumentException("未知参数: " + key);
+                    }
+                    options.applicationProperties.put(key, value);
+            }
+        }
+        if (options.concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency 必须大于 0");
+        }
+        if (options.rate < 0) {
+            throw new IllegalArgumentException("rate 不能小于 0");
+        }
+        if (options.duration.isZero() || options.duration.isNegative()) {
+            throw new IllegalArgumentException("duration 必须大于 0");
+        }
+        return options;
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            String key = (colon < 0 ? entry : entry.substring(0, colon)).trim();
+            int weight = colon < 0 ? 1 : Integer.parseInt(entry.substring(colon + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("请求比例不能为负数: " + entry);
+            }
+            mix.put(key, weight);
+        }
+        return mix;
+    }
+
+    /**
+     * 参数快照，写入结果文件，便于对比不同构建时确认压测条件一致
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("concurrency", concurrency);
+        map.put("rate", rate);
+        map.put("durationSeconds", duration.toMillis() / 1000.0);
+        map.put("warmupSeconds", warmup.toMillis() / 1000.0);
+        map.put("mix", mix);
+        map.put("isolate", isolate);
+        map.put("applicationProperties", applicationProperties);
+        return map;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+
+    public boolean isIsolate() {
+        return isolate;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public Map<String, String> getApplicationProperties() {
+        return applicationProperties;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.AviatorDemoApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.googlecode.aviator.AviatorEvaluator;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地压测入口：在随机端口启动 demo 应用，按配置的并发、请求比例和到达速率调用接口，
+ * 输出每个接口的延迟分位数、吞吐量和 GC 停顿，结果同时写入 JSON 文件
+ * <p>
+ * 运行：{@code ./gradlew loadTest -PloadTestArgs="--rate=2000 --duration=60s --mix=price:5,rule:3,formula:2"}，
+ * 参数说明见 {@link LoadTestOptions}。
+ *
+ * @author demo
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Map<Endpoint, Double> weights = Endpoint.weights(Endpoint.all(), options.getMix());
+
+        // JDK 默认每个目标地址只保留 5 个空闲连接，超出并发数的连接用完即关闭，测到的是建连开销
+        System.setProperty("http.maxConnections", String.valueOf(options.getConcurrency()));
+
+        Path storePath = Files.createTempDirectory("aviator-demo-loadtest");
+        List<String> applicationArgs = new ArrayList<>();
+        applicationArgs.add("--server.port=0");
+        applicationArgs.add("--formula.store.path=" + storePath);
+        applicationArgs.add("--logging.level.root=WARN");
+        applicationArgs.add("--logging.level.com.example.demo=WARN");
+        options.getApplicationProperties().forEach((key, value) -> applicationArgs.add("--" + key + "=" + value));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AviatorDemoApplication.class)
+            .logStartupInfo(false)
+            .run(applicationArgs.toArray(new String[0]));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator(new DemoClient("http://127.0.0.1:" + port), options);
+
+            List<Map<String, Object>> phases = new ArrayList<>();
+            if (options.isIsolate()) {
+                for (Endpoint endpoint : weights.keySet()) {
+                    phases.add(generator.run(endpoint.getName(), Collections.singletonMap(endpoint, 1.0)));
+                }
+            } else {
+                phases.add(generator.run("mixed", weights));
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("label", options.getLabel());
+            report.put("timestamp", Instant.now().toString());
+            report.put("environment", environment());
+            report.put("options", options.toMap());
+            report.put("phases", phases);
+
+            Path output = options.getOutput().toAbsolutePath();
+            Files.createDirectories(output.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+
+            phases.forEach(LoadTestRunner::print);
+            System.out.println("结果已写入: " + output);
+        } finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(storePath);
+        }
+    }
+
+    private static Map<String, Object> environment() {
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", System.getProperty("java.version"));
+        environment.put("javaVm", System.getProperty("java.vm.name"));
+        environment.put("jvmArguments", ManagementFactory.getRuntimeMXBean().getInputArguments());
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        environment.put("aviatorVersion", AviatorEvaluator.VERSION);
+        return environment;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> phase) {
+        System.out.printf("%n== %s: %d 请求, %d 错误, %.1f req/s ==%n",
+            phase.get("name"), phase.get("requests"), phase.get("errors"), phase.get("throughput"));
+        System.out.printf("%-28s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        Map<String, Map<String, Object>> endpoints = (Map<String, Map<String, Object>>) phase.get("endpoints");
+        endpoints.forEach((name, stats) -> {
+            Map<String, Object> latency = (Map<String, Object>) stats.get("latencyMillis");
+            System.out.printf("%-28s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                name, stats.get("requests"), stats.get("errors"), stats.get("throughput"),
+                latency.getOrDefault("p50", 0.0), latency.getOrDefault("p90", 0.0), latency.getOrDefault("p99", 0.0),
+                latency.getOrDefault("p99.9", 0.0), latency.getOrDefault("max", 0.0));
+        });
+        Map<String, Object> gc = (Map<String, Object>) phase.get("gc");
+        Map<String, Object> pauses = (Map<String, Object>) gc.get("pauseMillis");
+        System.out.printf("GC: %d 次停顿, 共 %d ms, 最长 %s ms%n",
+            gc.get("pauses"), gc.get("totalPauseMillis"), pauses.getOrDefault("max", 0.0));
+        if (phase.containsKey("maxBacklog")) {
+            System.out.printf("最大排队请求数: %d%n", phase.get("maxBacklog"));
+        }
+    }
+}
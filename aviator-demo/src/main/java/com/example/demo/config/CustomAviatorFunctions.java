@@ -13,9 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 自定义 Aviator 函数配置
@@ -28,6 +29,11 @@ public class CustomAviatorFunctions {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomAviatorFunctions.class);
 
+    /**
+     * formatNow 的格式化器缓存，DateTimeFormatter 线程安全，同一 pattern 只创建一次
+     */
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
     @Autowired
     private AviatorService aviatorService;
 
@@ -122,8 +128,8 @@ public class CustomAviatorFunctions {
             @Override
             public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
                 String format = FunctionUtils.getStringValue(arg1, env);
-                SimpleDateFormat sdf = new SimpleDateFormat(format);
-                return new AviatorString(sdf.format(new Date()));
+                DateTimeFormatter formatter = FORMATTERS.computeIfAbsent(format, DateTimeFormatter::ofPattern);
+                return new AviatorString(formatter.format(ZonedDateTime.now()));
             }
         });
 
@@ -209,6 +215,10 @@ public class CustomAviatorFunctions {
             }
         });
 
+        // formatNow 依赖当前时间，不是纯函数
+        aviatorService.markPure("square", "cube", "isEven", "reverse", "capitalize",
+                "inRange", "toPercent", "round", "applyDiscount");
+
         logger.info("自定义函数注册完成！共注册 10 个函数");
     }
 }
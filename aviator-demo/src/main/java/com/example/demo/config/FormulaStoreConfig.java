@@ -0,0 +1,29 @@
+package com.example.demo.config;
+
+import com.example.demo.store.FileFormulaStore;
+import com.example.demo.store.FormulaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 公式存储配置
+ * 默认使用本地文件存储，声明其他 FormulaStore Bean 即可替换
+ *
+ * @author demo
+ */
+@Configuration
+public class FormulaStoreConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FormulaStore formulaStore(@Value("${formula.store.path:data/formulas}") String path,
+                                     @Value("${formula.store.retain-versions:20}") int retainVersions,
+                                     ObjectMapper objectMapper) {
+        return new FileFormulaStore(Paths.get(path), retainVersions, objectMapper);
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ApiResponse;
+import com.example.demo.model.FormulaColumns;
+import com.example.demo.model.ShadowReport;
 import com.example.demo.service.FormulaService;
+import com.example.demo.service.NdjsonScoringService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.aviator.Expression;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -19,6 +29,12 @@ public class FormulaController {
     @Autowired
     private FormulaService formulaService;
 
+    @Autowired
+    private NdjsonScoringService ndjsonScoringService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 获取所有可用公式
      * GET /api/formula/list
@@ -50,6 +66,56 @@ public class FormulaController {
         }
     }
 
+    /**
+     * 列式批量计算
+     * POST /api/formula/batch/{name}/columnar?resultType=double
+     * Body: {"doubleColumns": {"price": [100, 200]}, "longColumns": {"quantity": [2, 3]}}
+     * resultType 可选 double / long / boolean，返回与输入行一一对应的结果数组
+     */
+    @PostMapping("/batch/{name}/columnar")
+    public ApiResponse<Object> batchCalculateColumnar(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "double") String resultType,
+            @RequestBody FormulaColumns columns) {
+        try {
+            switch (resultType) {
+                case "double":
+                    return ApiResponse.success(formulaService.batchCalculateDouble(name, columns));
+                case "long":
+                    return ApiResponse.success(formulaService.batchCalculateLong(name, columns));
+                case "boolean":
+                    return ApiResponse.success(formulaService.batchCalculateBoolean(name, columns));
+                default:
+                    return ApiResponse.error("不支持的结果类型: " + resultType);
+            }
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 流式批量计算（NDJSON）
+     * POST /api/formula/stream/{name}
+     * Body: 每行一个 JSON 记录，如 {"price": 100, "rate": 0.2}
+     * 响应: 每行一个结果，如 {"line":1,"result":80.0}，单行失败时为 {"line":1,"error":"..."}
+     */
+    @PostMapping(value = "/stream/{name}", produces = "application/x-ndjson")
+    public void streamCalculate(@PathVariable String name, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        Expression expression;
+        try {
+            expression = formulaService.getFormula(name);
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(e.getMessage()));
+            return;
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        ndjsonScoringService.score(expression, request.getInputStream(), response.getOutputStream());
+    }
+
     /**
      * 添加自定义公式
      * POST /api/formula/add?name=myFormula&expression=a+b*2
@@ -80,6 +146,137 @@ public class FormulaController {
         }
     }
 
+    /**
+     * 查看公式版本
+     * GET /api/formula/versions
+     */
+    @GetMapping("/versions")
+    public ApiResponse<Map<String, Object>> getVersions() {
+        try {
+            Map<String, Object> versions = new LinkedHashMap<>();
+            versions.put("active", formulaService.getVersion());
+            versions.put("stored", formulaService.getStoredVersions());
+            return ApiResponse.success(versions);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 从存储重新加载最新版本（后台编译完成后切换）
+     * POST /api/formula/reload
+     */
+    @PostMapping("/reload")
+    public ApiResponse<Long> reload() {
+        try {
+            Long version = formulaService.reload().join();
+            return ApiResponse.success("公式已加载", version);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 开启公式结果缓存（仅限只调用纯函数的公式）
+     * POST /api/formula/memo/discount?maxSize=10000
+     */
+    @PostMapping("/memo/{name}")
+    public ApiResponse<String> enableMemoization(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "10000") long maxSize) {
+        try {
+            formulaService.enableMemoization(name, maxSize);
+            return ApiResponse.success("结果缓存已开启", name);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查看公式结果缓存的命中率
+     * GET /api/formula/memo/discount
+     */
+    @GetMapping("/memo/{name}")
+    public ApiResponse<Map<String, Object>> getMemoStats(@PathVariable String name) {
+        try {
+            return ApiResponse.success(formulaService.getMemoStats(name));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭公式结果缓存
+     * DELETE /api/formula/memo/discount
+     */
+    @DeleteMapping("/memo/{name}")
+    public ApiResponse<String> disableMemoization(@PathVariable String name) {
+        try {
+            formulaService.disableMemoization(name);
+            return ApiResponse.success("结果缓存已关闭", name);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 设置候选公式，按采样率在后台与当前版本对比
+     * POST /api/formula/shadow/discount?expression=price*(1-rate)-1&sampleRate=0.1
+     */
+    @PostMapping("/shadow/{name}")
+    public ApiResponse<String> startShadow(
+            @PathVariable String name,
+            @RequestParam String expression,
+            @RequestParam(defaultValue = "0.1") double sampleRate) {
+        try {
+            formulaService.startShadow(name, expression, sampleRate);
+            return ApiResponse.success("影子评估已开始", name);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查看候选公式的延迟、内存分配和结果差异
+     * GET /api/formula/shadow/discount
+     */
+    @GetMapping("/shadow/{name}")
+    public ApiResponse<ShadowReport> getShadowReport(@PathVariable String name) {
+        try {
+            return ApiResponse.success(formulaService.getShadowReport(name));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 提升候选公式为正式版本
+     * POST /api/formula/shadow/discount/promote
+     */
+    @PostMapping("/shadow/{name}/promote")
+    public ApiResponse<String> promoteShadow(@PathVariable String name) {
+        try {
+            formulaService.promoteShadow(name);
+            return ApiResponse.success("候选公式已提升", name);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 停止影子评估
+     * DELETE /api/formula/shadow/discount
+     */
+    @DeleteMapping("/shadow/{name}")
+    public ApiResponse<String> stopShadow(@PathVariable String name) {
+        try {
+            formulaService.stopShadow(name);
+            return ApiResponse.success("影子评估已停止", name);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
     /**
      * 验证公式语法
      * GET /api/formula/validate?expression=a+b*2
@@ -3,10 +3,19 @@ package com.example.demo.controller;
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.ExpressionRequest;
 import com.example.demo.model.LoanApplication;
+import com.example.demo.service.NdjsonScoringService;
 import com.example.demo.service.RuleEngineService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.aviator.Expression;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
 /**
  * 规则引擎控制器
  *
@@ -19,6 +28,12 @@ public class RuleController {
     @Autowired
     private RuleEngineService ruleService;
 
+    @Autowired
+    private NdjsonScoringService ndjsonScoringService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 评估贷款资格
      * POST /api/rule/loan/evaluate
@@ -116,6 +131,19 @@ public class RuleController {
         }
     }
 
+    /**
+     * 规则结果缓存统计
+     * GET /api/rule/memo/stats
+     */
+    @GetMapping("/memo/stats")
+    public ApiResponse<Map<String, Map<String, Object>>> getMemoStats() {
+        try {
+            return ApiResponse.success(ruleService.getMemoStats());
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
     /**
      * 执行自定义规则
      * POST /api/rule/custom
@@ -133,5 +161,27 @@ public class RuleController {
             return ApiResponse.error(e.getMessage());
         }
     }
-}
 
+    /**
+     * 流式执行自定义规则（NDJSON）
+     * POST /api/rule/custom/stream?expression=age > 18 && score >= 60
+     * Body: 每行一个变量 JSON，如 {"age": 20, "score": 75}
+     * 响应: 每行一个结果，如 {"line":1,"result":true}
+     */
+    @PostMapping(value = "/custom/stream", produces = "application/x-ndjson")
+    public void streamCustomRule(@RequestParam String expression, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        Expression compiled;
+        try {
+            compiled = ruleService.compileCustomRule(expression);
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(e.getMessage()));
+            return;
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        ndjsonScoringService.score(compiled, request.getInputStream(), response.getOutputStream());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 列式批量计算的输入
+ * 每个变量对应一列基本类型数组，所有列的长度必须相同，第 i 行由各列的第 i 个元素组成
+ *
+ * @author demo
+ */
+public class FormulaColumns {
+
+    private Map<String, double[]> doubleColumns = new LinkedHashMap<>();
+    private Map<String, long[]> longColumns = new LinkedHashMap<>();
+    private Map<String, boolean[]> booleanColumns = new LinkedHashMap<>();
+
+    public FormulaColumns() {
+    }
+
+    public FormulaColumns addColumn(String name, double[] values) {
+        doubleColumns.put(name, values);
+        return this;
+    }
+
+    public FormulaColumns addColumn(String name, long[] values) {
+        longColumns.put(name, values);
+        return this;
+    }
+
+    public FormulaColumns addColumn(String name, boolean[] values) {
+        booleanColumns.put(name, values);
+        return this;
+    }
+
+    /**
+     * 行数，列长度不一致或没有任何列时抛出 IllegalArgumentException
+     */
+    public int rowCount() {
+        int rows = -1;
+        for (double[] column : doubleColumns.values()) {
+            rows = checkLength(rows, column.length);
+        }
+        for (long[] column : longColumns.values()) {
+            rows = checkLength(rows, column.length);
+        }
+        for (boolean[] column : booleanColumns.values()) {
+            rows = checkLength(rows, column.length);
+        }
+        if (rows < 0) {
+            throw new IllegalArgumentException("至少需要一列输入");
+        }
+        return rows;
+    }
+
+    private static int checkLength(int rows, int length) {
+        if (rows >= 0 && rows != length) {
+            throw new IllegalArgumentException("列长度不一致: " + rows + " != " + length);
+        }
+        return length;
+    }
+
+    public Map<String, double[]> getDoubleColumns() {
+        return doubleColumns;
+    }
+
+    public void setDoubleColumns(Map<String, double[]> doubleColumns) {
+        this.doubleColumns = doubleColumns;
+    }
+
+    public Map<String, long[]> getLongColumns() {
+        return longColumns;
+    }
+
+    public void setLongColumns(Map<String, long[]> longColumns) {
+        this.longColumns = longColumns;
+    }
+
+    public Map<String, boolean[]> getBooleanColumns() {
+        return booleanColumns;
+    }
+
+    public void setBooleanColumns(Map<String, boolean[]> booleanColumns) {
+        this.booleanColumns = booleanColumns;
+    }
+}
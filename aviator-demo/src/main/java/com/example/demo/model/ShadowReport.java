@@ -0,0 +1,140 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * 影子公式的对比报告
+ * 延迟和分配量均为影子线程上同一输入分别执行当前公式和候选公式的平均值；
+ * 候选公式执行异常计入 candidateErrors 和 recentCandidateErrors，不计入 mismatches
+ *
+ * @author demo
+ */
+public class ShadowReport {
+
+    private String formulaName;
+    private String activeExpression;
+    private String candidateExpression;
+    private double sampleRate;
+    private long samples;
+    private long mismatches;
+    private long candidateErrors;
+    private long dropped;
+    private double activeAvgMicros;
+    private double candidateAvgMicros;
+    private long activeAvgAllocatedBytes;
+    private long candidateAvgAllocatedBytes;
+    private List<String> recentMismatches;
+    private List<String> recentCandidateErrors;
+
+    public String getFormulaName() {
+        return formulaName;
+    }
+
+    public void setFormulaName(String formulaName) {
+        this.formulaName = formulaName;
+    }
+
+    public String getActiveExpression() {
+        return activeExpression;
+    }
+
+    public void setActiveExpression(String activeExpression) {
+        this.activeExpression = activeExpression;
+    }
+
+    public String getCandidateExpression() {
+        return candidateExpression;
+    }
+
+    public void setCandidateExpression(String candidateExpression) {
+        this.candidateExpression = candidateExpression;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public void setSamples(long samples) {
+        this.samples = samples;
+    }
+
+    public long getMismatches() {
+        return mismatches;
+    }
+
+    public void setMismatches(long mismatches) {
+        this.mismatches = mismatches;
+    }
+
+    public long getCandidateErrors() {
+        return candidateErrors;
+    }
+
+    public void setCandidateErrors(long candidateErrors) {
+        this.candidateErrors = candidateErrors;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public double getActiveAvgMicros() {
+        return activeAvgMicros;
+    }
+
+    public void setActiveAvgMicros(double activeAvgMicros) {
+        this.activeAvgMicros = activeAvgMicros;
+    }
+
+    public double getCandidateAvgMicros() {
+        return candidateAvgMicros;
+    }
+
+    public void setCandidateAvgMicros(double candidateAvgMicros) {
+        this.candidateAvgMicros = candidateAvgMicros;
+    }
+
+    public long getActiveAvgAllocatedBytes() {
+        return activeAvgAllocatedBytes;
+    }
+
+    public void setActiveAvgAllocatedBytes(long activeAvgAllocatedBytes) {
+        this.activeAvgAllocatedBytes = activeAvgAllocatedBytes;
+    }
+
+    public long getCandidateAvgAllocatedBytes() {
+        return candidateAvgAllocatedBytes;
+    }
+
+    public void setCandidateAvgAllocatedBytes(long candidateAvgAllocatedBytes) {
+        this.candidateAvgAllocatedBytes = candidateAvgAllocatedBytes;
+    }
+
+    public List<String> getRecentMismatches() {
+        return recentMismatches;
+    }
+
+    public void setRecentMismatches(List<String> recentMismatches) {
+        this.recentMismatches = recentMismatches;
+    }
+
+    public List<String> getRecentCandidateErrors() {
+        return recentCandidateErrors;
+    }
+
+    public void setRecentCandidateErrors(List<String> recentCandidateErrors) {
+        this.recentCandidateErrors = recentCandidateErrors;
+    }
+}
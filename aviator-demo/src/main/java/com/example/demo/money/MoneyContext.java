@@ -0,0 +1,246 @@
+package com.example.demo.money;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * 定点数运算上下文
+ * 数值以 scale 位小数的 long 表示（如 scale=4 时 12.5 表示为 125000），每次运算的结果按 rounding 舍入到 scale 位，
+ * 与 BigDecimal 逐步 setScale(scale, rounding) 的结果完全一致；结果超出 long 范围时抛出 {@link Overflow}，
+ * 由调用方改用 BigDecimal 重新计算
+ *
+ * @author demo
+ */
+public final class MoneyContext {
+
+    /**
+     * 最大小数位数，保证 scale 位的单位值和 double 快速换算都在精确范围内
+     */
+    public static final int MAX_SCALE = 9;
+
+    // 小于该绝对值的 double 最多 15 位有效数字，可以精确换算为定点数
+    private static final double EXACT_DOUBLE_LIMIT = 1e15;
+
+    private final int scale;
+
+    private final RoundingMode rounding;
+
+    private final long unit;
+
+    public MoneyContext(int scale, RoundingMode rounding) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("scale 必须在 0 到 " + MAX_SCALE + " 之间: " + scale);
+        }
+        this.scale = scale;
+        this.rounding = rounding;
+        long u = 1;
+        for (int i = 0; i < scale; i++) {
+            u *= 10;
+        }
+        this.unit = u;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+
+    /**
+     * 定点数转换为 BigDecimal
+     */
+    public BigDecimal toDecimal(long units) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    /**
+     * 变量值转换为定点数
+     */
+    long toUnits(String name, Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return multiplyUnit(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            double scaled = d * unit;
+            if (Math.abs(scaled) < EXACT_DOUBLE_LIMIT) {
+                long units = Math.round(scaled);
+                if ((double) units / unit == d) {
+                    return units;
+                }
+            }
+        }
+        return fromDecimal(toDecimal(name, value));
+    }
+
+    /**
+     * 数值转换为 scale 位小数的 BigDecimal，double 按其十进制表示（Double.toString）换算
+     *
+     * @param name  变量名，用于错误信息
+     * @param value 数值
+     */
+    public BigDecimal toDecimal(String name, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("变量不存在或为 null: " + name);
+        }
+        BigDecimal decimal;
+        if (value instanceof BigDecimal) {
+            decimal = (BigDecimal) value;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            decimal = BigDecimal.valueOf(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                throw new IllegalArgumentException("变量不是有限数值: " + name + " = " + value);
+            }
+            decimal = BigDecimal.valueOf(d);
+        } else if (value instanceof BigInteger) {
+            decimal = new BigDecimal((BigInteger) value);
+        } else if (value instanceof Number) {
+            decimal = new BigDecimal(value.toString());
+        } else {
+            throw new IllegalArgumentException("变量不是数值: " + name + " = " + value);
+        }
+        return decimal.setScale(scale, rounding);
+    }
+
+    long add(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw Overflow.INSTANCE;
+        }
+    }
+
+    long subtract(long a, long b) {
+        try {
+            return Math.subtractExact(a, b);
+        } catch (ArithmeticException e) {
+            throw Overflow.INSTANCE;
+        }
+    }
+
+    long negate(long a) {
+        try {
+            return Math.negateExact(a);
+        } catch (ArithmeticException e) {
+            throw Overflow.INSTANCE;
+        }
+    }
+
+    long multiply(long a, long b) {
+        long product;
+        try {
+            product = Math.multiplyExact(a, b);
+        } catch (ArithmeticException e) {
+            // 中间乘积超出 long，结果可能仍在范围内
+            return fromDecimal(multiply(toDecimal(a), toDecimal(b)));
+        }
+        return roundedDivide(product, unit);
+    }
+
+    /**
+     * 十进制除法，商按 scale 和舍入模式舍入；整数操作数同样如此（7 / 2 = 3.5），不按 Aviator 的整数除法截断
+     */
+    long divide(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("除数为零");
+        }
+        long dividend;
+        try {
+            dividend = Math.multiplyExact(a, unit);
+        } catch (ArithmeticException e) {
+            return fromDecimal(divide(toDecimal(a), toDecimal(b)));
+        }
+        return roundedDivide(dividend, b);
+    }
+
+    BigDecimal multiply(BigDecimal a, BigDecimal b) {
+        return a.multiply(b).setScale(scale, rounding);
+    }
+
+    BigDecimal divide(BigDecimal a, BigDecimal b) {
+        if (b.signum() == 0) {
+            throw new ArithmeticException("除数为零");
+        }
+        return a.divide(b, scale, rounding);
+    }
+
+    /**
+     * 把 scale 位小数的 BigDecimal 转换为定点数，超出 long 范围时抛出 Overflow
+     */
+    long fromDecimal(BigDecimal decimal) {
+        BigInteger unscaled = decimal.setScale(scale, rounding).unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            throw Overflow.INSTANCE;
+        }
+        return unscaled.longValue();
+    }
+
+    private long multiplyUnit(long value) {
+        try {
+            return Math.multiplyExact(value, unit);
+        } catch (ArithmeticException e) {
+            throw Overflow.INSTANCE;
+        }
+    }
+
+    /**
+     * 按舍入模式计算整数除法，与 BigDecimal 的舍入规则一致
+     */
+    private long roundedDivide(long dividend, long divisor) {
+        if (divisor == Long.MIN_VALUE) {
+            throw Overflow.INSTANCE;
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = (dividend ^ divisor) < 0 ? -1 : 1;
+        long absRemainder = Math.abs(remainder);
+        int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        boolean increment;
+        switch (rounding) {
+            case UP:
+                increment = true;
+                break;
+            case DOWN:
+                increment = false;
+                break;
+            case CEILING:
+                increment = sign > 0;
+                break;
+            case FLOOR:
+                increment = sign < 0;
+                break;
+            case HALF_UP:
+                increment = half >= 0;
+                break;
+            case HALF_DOWN:
+                increment = half > 0;
+                break;
+            case HALF_EVEN:
+                increment = half > 0 || (half == 0 && (quotient & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return increment ? quotient + sign : quotient;
+    }
+
+    /**
+     * 定点数结果超出 long 范围
+     */
+    static final class Overflow extends RuntimeException {
+
+        static final Overflow INSTANCE = new Overflow();
+
+        private Overflow() {
+            super("Fixed-point overflow", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 定点数模式编译的金额公式
+ * 运算在 scale 位小数的 long 上进行，不分配 BigDecimal；任一步结果超出 long 范围时整个公式改用 BigDecimal 重新计算，
+ * 两种方式每一步都按相同的 scale 和舍入模式舍入，结果完全一致
+ *
+ * 变量和字面量先换算为 scale 位小数：double 按其十进制表示（0.1 即 0.1）换算，超出 scale 的小数位按舍入模式舍入
+ *
+ * 与 Aviator 求值的差异：
+ * 1. / 总是十进制除法，商按 scale 和舍入模式舍入：7 / 2 为 3.5，而 Aviator 中两个整数相除为整数除法，结果为 3
+ * 2. 比较运算作用于已经舍入到 scale 位的值：scale 为 4 时 0.00004 换算为 0，x > 0 为 false
+ * 3. 其他运算同样作用于舍入后的操作数，每一步的结果再次舍入，与 Aviator 的 double 运算可能相差若干个最小单位
+ *
+ * @author demo
+ */
+public final class MoneyFormula {
+
+    private final String expression;
+
+    private final MoneyContext context;
+
+    private final MoneyNode.NumericNode root;
+
+    private final List<String> variables;
+
+    private final LongAdder decimalFallbacks = new LongAdder();
+
+    private MoneyFormula(String expression, MoneyContext context, MoneyNode.NumericNode root, List<String> variables) {
+        this.expression = expression;
+        this.context = context;
+        this.root = root;
+        this.variables = variables;
+    }
+
+    /**
+     * 编译公式，表达式不在支持的子集内时抛出 IllegalArgumentException
+     * 支持数字字面量、变量、+ - * /、比较、&& || !、三元运算和 min / max / abs，结果必须为数值
+     * 运算语义与 Aviator 的差异见类注释
+     */
+    public static MoneyFormula compile(String expression, MoneyContext context) {
+        MoneyParser parser = new MoneyParser(expression, context);
+        MoneyNode.NumericNode root = parser.parse();
+        return new MoneyFormula(expression, context, root,
+                Collections.unmodifiableList(new ArrayList<>(parser.getVariables())));
+    }
+
+    /**
+     * 计算公式，结果为 scale 位小数的 BigDecimal
+     */
+    public BigDecimal execute(Map<String, Object> env) {
+        try {
+            return context.toDecimal(root.units(env));
+        } catch (MoneyContext.Overflow e) {
+            decimalFallbacks.increment();
+            return root.decimal(env);
+        }
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public List<String> getVariableNames() {
+        return variables;
+    }
+
+    public MoneyContext getContext() {
+        return context;
+    }
+
+    /**
+     * 因超出 long 范围改用 BigDecimal 计算的次数
+     */
+    public long getDecimalFallbackCount() {
+        return decimalFallbacks.sum();
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.demo.money;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 定点数表达式的语法树节点
+ * 数值节点（{@link NumericNode}）同时提供 long 定点数和 BigDecimal 两种求值方式，
+ * 布尔节点（{@link BooleanNode}）按 decimal 参数选择比较方式；子节点的类型由构造参数限定，解析器无法拼出类型不匹配的树
+ *
+ * @author demo
+ */
+abstract class MoneyNode {
+
+    private MoneyNode() {
+    }
+
+    abstract static class NumericNode extends MoneyNode {
+
+        abstract long units(Map<String, Object> env);
+
+        abstract BigDecimal decimal(Map<String, Object> env);
+    }
+
+    abstract static class BooleanNode extends MoneyNode {
+
+        abstract boolean test(Map<String, Object> env, boolean decimal);
+    }
+
+    static final class Literal extends NumericNode {
+
+        private final long units;
+
+        private final BigDecimal decimal;
+
+        private final boolean fitsLong;
+
+        Literal(BigDecimal decimal, MoneyContext context) {
+            this.decimal = decimal.setScale(context.getScale(), context.getRounding());
+            long value = 0;
+            boolean fits = true;
+            try {
+                value = context.fromDecimal(this.decimal);
+            } catch (MoneyContext.Overflow e) {
+                fits = false;
+            }
+            this.units = value;
+            this.fitsLong = fits;
+        }
+
+        @Override
+        long units(Map<String, Object> env) {
+            if (!fitsLong) {
+                throw MoneyContext.Overflow.INSTANCE;
+            }
+            return units;
+        }
+
+        @Override
+        BigDecimal decimal(Map<String, Object> env) {
+            return decimal;
+        }
+    }
+
+    static final class BooleanLiteral extends BooleanNode {
+
+        private final boolean value;
+
+        BooleanLiteral(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(Map<String, Object> env, boolean decimal) {
+            return value;
+        }
+    }
+
+    static final class Variable extends NumericNode {
+
+        private final String name;
+
+        private final MoneyContext context;
+
+        Variable(String name, MoneyContext context) {
+            this.name = name;
+            this.context = context;
+        }
+
+        @Override
+        long units(Map<String, Object> env) {
+            return context.toUnits(name, env.get(name));
+        }
+
+        @Override
+        BigDecimal decimal(Map<String, Object> env) {
+            return context.toDecimal(name, env.get(name));
+        }
+    }
+
+    static final class Arithmetic extends NumericNode {
+
+        static final char ADD = '+';
+        static final char SUB = '-';
+        static final char MUL = '*';
+        static final char DIV = '/';
+
+        private final char operator;
+
+        private final NumericNode left;
+
+        private final NumericNode right;
+
+        private final MoneyContext context;
+
+        Arithmetic(char operator, NumericNode left, NumericNode right, MoneyContext context) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.context = context;
+        }
+
+        @Override
+        long units(Map<String, Object> env) {
+            long a = left.units(env);
+            long b = right.units(env);
+            switch (operator) {
+                case ADD:
+                    return context.add(a, b);
+                case SUB:
+                    return context.subtract(a, b);
+                case MUL:
+                    return context.multiply(a, b);
+                default:
+                    return context.divide(a, b);
+            }
+        }
+
+        @Override
+        BigDecimal decimal(Map<String, Object> env) {
+            BigDecimal a = left.decimal(env);
+            BigDecimal b = right.decimal(env);
+            switch (operator) {
+                case ADD:
+                    return a.add(b);
+                case SUB:
+                    return a.subtract(b);
+                case MUL:
+                    return context.multiply(a, b);
+                default:
+                    return context.divide(a, b);
+            }
+        }
+    }
+
+    static final class Negate extends NumericNode {
+
+        private final NumericNode operand;
+
+        private final MoneyContext context;
+
+        Negate(NumericNode operand, MoneyContext context) {
+            this.operand = operand;
+            this.context = context;
+        }
+
+        @Override
+        long units(Map<String, Object> env) {
+            return context.negate(operand.units(env));
+        }
+
+        @Override
+        BigDecimal decimal(Map<String, Object> env) {
+            return operand.decimal(env).negate();
+        }
+    }
+
+    /**
+     * min / max / abs
+     */
+    static final class Function extends NumericNode {
+
+        static final int MIN = 0;
+        static final int MAX = 1;
+        static final int ABS = 2;
+
+        private final int function;
+
+        private final NumericNode first;
+
+        private final NumericNode second;
+
+        private final MoneyContext context;
+
+        Function(int function, NumericNode first, NumericNode second, MoneyContext context) {
+            this.function = function;
+            this.first = first;
+            this.second = second;
+            this.context = context;
+        }
+
+        @Override
+        long units(Map<String, Object> env) {
+            long a = first.units(env);
+            switch (function) {
+                case MIN:
+                    return Math.min(a, second.units(env));
+                case MAX:
+                    return Math.max(a, second.units(env));
+                default:
+                    return a < 0 ? context.negate(a) : a;
+            }
+        }
+
+        @Override
+        BigDecimal decimal(Map<String, Object> env) {
+            BigDecimal a = first.decimal(env);
+            switch (function) {
+                case MIN:
+                    return a.min(second.decimal(env));
+                case MAX:
+                    return a.max(second.decimal(env));
+                default:
+                    return a.abs();
+            }
+        }
+    }
+
+    static final class Compare extends BooleanNode {
+
+        static final int LT = 0;
+        static final int LE = 1;
+        static final int GT = 2;
+        static final int GE = 3;
+        static final int EQ = 4;
+        static final int NE = 5;
+
+        private final int operator;
+
+        private final NumericNode left;
+
+        private final NumericNode right;
+
+        Compare(int operator, NumericNode left, NumericNode right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Map<String, Object> env, boolean decimal) {
+            int c = decimal
+                    ? left.decimal(env).compareTo(right.decimal(env))
+                    : Long.compare(left.units(env), right.units(env));
+            switch (operator) {
+                case LT:
+                    return c < 0;
+                case LE:
+                    return c <= 0;
+                case GT:
+                    return c > 0;
+                case GE:
+                    return c >= 0;
+                case EQ:
+                    return c == 0;
+                default:
+                    return c != 0;
+            }
+        }
+    }
+
+    static final class Logical extends BooleanNode {
+
+        private final boolean and;
+
+        private final BooleanNode left;
+
+        private final BooleanNode right;
+
+        Logical(boolean and, BooleanNode left, BooleanNode right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Map<String, Object> env, boolean decimal) {
+            return and
+                    ? left.test(env, decimal) && right.test(env, decimal)
+                    : left.test(env, decimal) || right.test(env, decimal);
+        }
+    }
+
+    static final class Not extends BooleanNode {
+
+        private final BooleanNode operand;
+
+        Not(BooleanNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(Map<String, Object> env, boolean decimal) {
+            return !operand.test(env, decimal);
+        }
+    }
+
+    static final class NumericTernary extends NumericNode {
+
+        private final BooleanNode condition;
+
+        private final NumericNode whenTrue;
+
+        private final NumericNode whenFalse;
+
+        NumericTernary(BooleanNode condition, NumericNode whenTrue, NumericNode whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        long units(Map<String, Object> env) {
+            return condition.test(env, false) ? whenTrue.units(env) : whenFalse.units(env);
+        }
+
+        @Override
+        BigDecimal decimal(Map<String, Object> env) {
+            return condition.test(env, true) ? whenTrue.decimal(env) : whenFalse.decimal(env);
+        }
+    }
+
+    static final class BooleanTernary extends BooleanNode {
+
+        private final BooleanNode condition;
+
+        private final BooleanNode whenTrue;
+
+        private final BooleanNode whenFalse;
+
+        BooleanTernary(BooleanNode condition, BooleanNode whenTrue, BooleanNode whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        boolean test(Map<String, Object> env, boolean decimal) {
+            return condition.test(env, decimal) ? whenTrue.test(env, decimal) : whenFalse.test(env, decimal);
+        }
+    }
+}
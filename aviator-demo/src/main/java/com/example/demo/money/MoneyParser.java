@@ -0,0 +1,285 @@
+package com.example.demo.money;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 定点数表达式的递归下降解析器
+ * 支持 Aviator 语法的一个子集：数字字面量、true / false、变量、+ - * /、比较、&& || !、三元运算，
+ * 以及 min / max / abs（含 math. 前缀）；其他语法抛出 IllegalArgumentException
+ *
+ * @author demo
+ */
+final class MoneyParser {
+
+    private final String source;
+
+    private final MoneyContext context;
+
+    private final Set<String> variables = new LinkedHashSet<>();
+
+    private int pos;
+
+    MoneyParser(String source, MoneyContext context) {
+        this.source = source;
+        this.context = context;
+    }
+
+    MoneyNode.NumericNode parse() {
+        MoneyNode node = ternary();
+        skipWhitespace();
+        if (pos != source.length()) {
+            throw unsupported();
+        }
+        return requireNumeric(node);
+    }
+
+    Set<String> getVariables() {
+        return variables;
+    }
+
+    private MoneyNode ternary() {
+        MoneyNode condition = or();
+        if (!accept("?")) {
+            return condition;
+        }
+        MoneyNode whenTrue = ternary();
+        expect(":");
+        MoneyNode whenFalse = ternary();
+        if (whenTrue instanceof MoneyNode.NumericNode) {
+            return new MoneyNode.NumericTernary(requireBoolean(condition), requireNumeric(whenTrue),
+                    requireNumeric(whenFalse));
+        }
+        return new MoneyNode.BooleanTernary(requireBoolean(condition), requireBoolean(whenTrue),
+                requireBoolean(whenFalse));
+    }
+
+    private MoneyNode or() {
+        MoneyNode left = and();
+        while (accept("||")) {
+            left = new MoneyNode.Logical(false, requireBoolean(left), requireBoolean(and()));
+        }
+        return left;
+    }
+
+    private MoneyNode and() {
+        MoneyNode left = equality();
+        while (accept("&&")) {
+            left = new MoneyNode.Logical(true, requireBoolean(left), requireBoolean(equality()));
+        }
+        return left;
+    }
+
+    private MoneyNode equality() {
+        MoneyNode left = relational();
+        while (true) {
+            int operator;
+            if (accept("==")) {
+                operator = MoneyNode.Compare.EQ;
+            } else if (accept("!=")) {
+                operator = MoneyNode.Compare.NE;
+            } else {
+                return left;
+            }
+            left = new MoneyNode.Compare(operator, requireNumeric(left), requireNumeric(relational()));
+        }
+    }
+
+    private MoneyNode relational() {
+        MoneyNode left = additive();
+        int operator;
+        if (accept("<=")) {
+            operator = MoneyNode.Compare.LE;
+        } else if (accept(">=")) {
+            operator = MoneyNode.Compare.GE;
+        } else if (accept("<")) {
+            operator = MoneyNode.Compare.LT;
+        } else if (accept(">")) {
+            operator = MoneyNode.Compare.GT;
+        } else {
+            return left;
+        }
+        return new MoneyNode.Compare(operator, requireNumeric(left), requireNumeric(additive()));
+    }
+
+    private MoneyNode additive() {
+        MoneyNode left = multiplicative();
+        while (true) {
+            char operator;
+            if (accept("+")) {
+                operator = MoneyNode.Arithmetic.ADD;
+            } else if (accept("-")) {
+                operator = MoneyNode.Arithmetic.SUB;
+            } else {
+                return left;
+            }
+            left = new MoneyNode.Arithmetic(operator, requireNumeric(left), requireNumeric(multiplicative()), context);
+        }
+    }
+
+    private MoneyNode multiplicative() {
+        MoneyNode left = unary();
+        while (true) {
+            char operator;
+            if (accept("*")) {
+                operator = MoneyNode.Arithmetic.MUL;
+            } else if (peek('/')) {
+                pos++;
+                operator = MoneyNode.Arithmetic.DIV;
+            } else {
+                return left;
+            }
+            left = new MoneyNode.Arithmetic(operator, requireNumeric(left), requireNumeric(unary()), context);
+        }
+    }
+
+    private MoneyNode unary() {
+        if (accept("-")) {
+            return new MoneyNode.Negate(requireNumeric(unary()), context);
+        }
+        if (accept("!")) {
+            return new MoneyNode.Not(requireBoolean(unary()));
+        }
+        return primary();
+    }
+
+    private MoneyNode primary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw unsupported();
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            MoneyNode node = ternary();
+            expect(")");
+            return node;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return number();
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            int start = pos;
+            while (pos < source.length()
+                    && (Character.isJavaIdentifierPart(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            String name = source.substring(start, pos);
+            if (accept("(")) {
+                return function(name);
+            }
+            if ("true".equals(name) || "false".equals(name)) {
+                return new MoneyNode.BooleanLiteral(Boolean.parseBoolean(name));
+            }
+            if (name.indexOf('.') >= 0 || "nil".equals(name)) {
+                throw unsupported();
+            }
+            variables.add(name);
+            return new MoneyNode.Variable(name, context);
+        }
+        throw unsupported();
+    }
+
+    private MoneyNode function(String name) {
+        int function;
+        switch (name) {
+            case "min":
+            case "math.min":
+                function = MoneyNode.Function.MIN;
+                break;
+            case "max":
+            case "math.max":
+                function = MoneyNode.Function.MAX;
+                break;
+            case "abs":
+            case "math.abs":
+                function = MoneyNode.Function.ABS;
+                break;
+            default:
+                throw unsupported();
+        }
+        MoneyNode.NumericNode first = requireNumeric(ternary());
+        MoneyNode.NumericNode second = null;
+        if (function != MoneyNode.Function.ABS) {
+            expect(",");
+            second = requireNumeric(ternary());
+        }
+        expect(")");
+        return new MoneyNode.Function(function, first, second, context);
+    }
+
+    private MoneyNode number() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        String text = source.substring(start, pos);
+        if (pos < source.length() && source.charAt(pos) == 'M') {
+            pos++;
+        } else if (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            // 科学计数法、十六进制和 N 后缀不在支持范围内
+            throw unsupported();
+        }
+        try {
+            return new MoneyNode.Literal(new BigDecimal(text), context);
+        } catch (NumberFormatException e) {
+            throw unsupported();
+        }
+    }
+
+    private MoneyNode.NumericNode requireNumeric(MoneyNode node) {
+        if (!(node instanceof MoneyNode.NumericNode)) {
+            throw unsupported();
+        }
+        return (MoneyNode.NumericNode) node;
+    }
+
+    private MoneyNode.BooleanNode requireBoolean(MoneyNode node) {
+        if (!(node instanceof MoneyNode.BooleanNode)) {
+            throw unsupported();
+        }
+        return (MoneyNode.BooleanNode) node;
+    }
+
+    private boolean peek(char c) {
+        skipWhitespace();
+        return pos < source.length() && source.charAt(pos) == c;
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (!source.startsWith(token, pos)) {
+            return false;
+        }
+        // 避免把 "<=" 的前缀当作 "<"、把 "==" 当作赋值、把 "=~" 当作比较
+        int end = pos + token.length();
+        if (end < source.length()) {
+            char next = source.charAt(end);
+            if ((token.equals("<") || token.equals(">") || token.equals("!")) && next == '=') {
+                return false;
+            }
+            if ((token.equals("&&") || token.equals("||")) && next == token.charAt(0)) {
+                return false;
+            }
+        }
+        pos = end;
+        return true;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw unsupported();
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException unsupported() {
+        return new IllegalArgumentException("定点数模式不支持的表达式（位置 " + pos + "）: " + source);
+    }
+}
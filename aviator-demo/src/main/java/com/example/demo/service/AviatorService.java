@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.money.MoneyContext;
+import com.example.demo.money.MoneyFormula;
 import com.googlecode.aviator.AviatorEvaluator;
 import com.googlecode.aviator.Expression;
 import com.googlecode.aviator.Options;
@@ -9,14 +11,23 @@ import com.googlecode.aviator.runtime.type.AviatorDouble;
 import com.googlecode.aviator.runtime.type.AviatorObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aviator 表达式引擎服务
  * 封装 Aviator 官方 API，提供统一的表达式编译和执行接口
+ * 编译时折叠纯函数的常量调用（见 {@link ConstantFolder}），execute 系列方法不经过折叠
  *
  * @author demo
  */
@@ -25,6 +36,41 @@ public class AviatorService {
 
     private static final Logger logger = LoggerFactory.getLogger(AviatorService.class);
 
+    // 表达式结果缓存的默认容量
+    private static final long DEFAULT_MEMO_SIZE = 10000;
+
+    // 纯函数（相同参数总是返回相同结果、没有副作用），只调用纯函数的表达式才允许缓存结果
+    private final Set<String> pureFunctions = ConcurrentHashMap.newKeySet();
+
+    // 通过 addFunction 注册、未声明为纯函数的自定义函数
+    private final Set<String> customFunctions = ConcurrentHashMap.newKeySet();
+
+    // 带结果缓存的表达式，key 为表达式字符串
+    private final Map<String, MemoizedExpression> memoizedExpressions = new ConcurrentHashMap<>();
+
+    // 常量折叠后的表达式，key 为原始表达式，只保存 compile(expression, true) 的结果，与 Aviator 编译缓存的范围一致
+    private final Map<String, String> foldedExpressions = new ConcurrentHashMap<>();
+
+    // 编译前把参数全为常量的纯函数调用替换为结果
+    private final ConstantFolder constantFolder = new ConstantFolder(this::isPureFunction, AviatorEvaluator::execute,
+            () -> AviatorEvaluator.getInstance()
+                    .getOptionValue(Options.ALWAYS_PARSE_FLOATING_POINT_NUMBER_INTO_DECIMAL).bool);
+
+    @Value("${aviator.fold-constants:true}")
+    private boolean foldConstants = true;
+
+    // 定点数模式的小数位数和舍入模式
+    @Value("${aviator.money.scale:4}")
+    private int moneyScale = 4;
+
+    @Value("${aviator.money.rounding:HALF_UP}")
+    private RoundingMode moneyRounding = RoundingMode.HALF_UP;
+
+    private MoneyContext moneyContext;
+
+    // 定点数模式编译的公式，key 为表达式字符串；不在支持范围内的表达式为 empty，改由 Aviator 计算
+    private final Map<String, Optional<MoneyFormula>> moneyFormulas = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         // 启用优化选项
@@ -33,6 +79,8 @@ public class AviatorService {
         
         // 添加常用 math 函数
         registerMathFunctions();
+
+        moneyContext = new MoneyContext(moneyScale, moneyRounding);
         
         logger.info("AviatorService 初始化完成");
     }
@@ -113,6 +161,8 @@ public class AviatorService {
             logger.warn("无法添加 math.pi", e);
         }
 
+        // double 为内置类型转换函数，常量折叠用它表示浮点结果
+        pureFunctions.addAll(Arrays.asList("math.pow", "math.min", "min", "math.max", "double"));
         logger.info("Math 函数注册完成: pow, min, max");
     }
 
@@ -120,14 +170,35 @@ public class AviatorService {
      * 编译表达式
      */
     public Expression compile(String expression) {
-        return AviatorEvaluator.compile(expression);
+        return AviatorEvaluator.compile(fold(expression));
     }
 
     /**
      * 编译表达式（带缓存选项）
      */
     public Expression compile(String expression, boolean cached) {
-        return AviatorEvaluator.compile(expression, cached);
+        if (!cached) {
+            return AviatorEvaluator.compile(fold(expression), false);
+        }
+        String folded = foldedExpressions.get(expression);
+        if (folded == null) {
+            folded = foldedExpressions.computeIfAbsent(expression, this::fold);
+        }
+        return AviatorEvaluator.compile(folded, true);
+    }
+
+    /**
+     * 常量折叠，参数全为常量的纯函数调用在编译前求值并替换为字面量
+     */
+    public String fold(String expression) {
+        if (!foldConstants) {
+            return expression;
+        }
+        String folded = constantFolder.fold(expression);
+        if (!folded.equals(expression)) {
+            logger.debug("常量折叠: {} -> {}", expression, folded);
+        }
+        return folded;
     }
 
     /**
@@ -144,11 +215,116 @@ public class AviatorService {
         return AviatorEvaluator.execute(expression, env);
     }
 
+    /**
+     * 执行数值表达式，结果转换为 double
+     */
+    public double executeDouble(String expression, Map<String, Object> env) {
+        return toNumber(expression, AviatorEvaluator.execute(expression, env)).doubleValue();
+    }
+
+    /**
+     * 执行数值表达式，结果转换为 long
+     */
+    public long executeLong(String expression, Map<String, Object> env) {
+        return toNumber(expression, AviatorEvaluator.execute(expression, env)).longValue();
+    }
+
+    /**
+     * 以定点数模式执行金额表达式，结果为 aviator.money.scale 位小数的 BigDecimal
+     * 每一步运算按配置的 scale 和舍入模式舍入，在 long 上完成，溢出时改用 BigDecimal；
+     * 定点数模式不支持的表达式（如调用 math.pow）由 Aviator 计算后舍入到相同的小数位数
+     * 定点数模式中 / 总是十进制除法，比较作用于舍入后的值，与 Aviator 的差异见 {@link MoneyFormula}
+     */
+    public BigDecimal executeMoney(String expression, Map<String, Object> env) {
+        Optional<MoneyFormula> formula = moneyFormulas.get(expression);
+        if (formula == null) {
+            formula = moneyFormulas.computeIfAbsent(expression, this::compileMoney);
+        }
+        if (formula.isPresent()) {
+            return formula.get().execute(env);
+        }
+        return moneyContext.toDecimal(expression, compile(expression, true).execute(env));
+    }
+
+    private Optional<MoneyFormula> compileMoney(String expression) {
+        try {
+            return Optional.of(MoneyFormula.compile(expression, moneyContext));
+        } catch (IllegalArgumentException e) {
+            logger.debug("表达式不支持定点数模式，使用 Aviator 计算: {}", expression);
+            return Optional.empty();
+        }
+    }
+
+    private Number toNumber(String expression, Object result) {
+        if (result instanceof Number) {
+            return (Number) result;
+        }
+        throw new IllegalStateException("表达式结果不是数值: " + expression + " -> " + result);
+    }
+
+    /**
+     * 执行表达式并缓存结果，相同的变量取值直接返回上次的结果
+     * 表达式调用了非纯函数时抛出 IllegalArgumentException
+     */
+    public Object executeMemoized(String expression, Map<String, Object> env) {
+        MemoizedExpression memoized = memoizedExpressions.get(expression);
+        if (memoized == null) {
+            memoized = memoizedExpressions.computeIfAbsent(expression,
+                    key -> memoize(compile(key, true), DEFAULT_MEMO_SIZE));
+        }
+        return memoized.execute(env);
+    }
+
+    /**
+     * 为已编译的表达式创建结果缓存
+     * 表达式调用了非纯函数时抛出 IllegalArgumentException
+     */
+    public MemoizedExpression memoize(Expression expression, long maxSize) {
+        for (String function : expression.getFunctionNames()) {
+            if (!isPureFunction(function)) {
+                throw new IllegalArgumentException("表达式调用了非纯函数，不能缓存结果: " + function);
+            }
+        }
+        return new MemoizedExpression(expression, maxSize);
+    }
+
+    /**
+     * 判断函数是否为纯函数：声明为纯函数的自定义函数，或未被覆盖的内置 math / string 函数
+     */
+    public boolean isPureFunction(String name) {
+        if (pureFunctions.contains(name)) {
+            return true;
+        }
+        return !customFunctions.contains(name) && (name.startsWith("math.") || name.startsWith("string."));
+    }
+
+    /**
+     * 声明纯函数，调用这些函数的表达式可以缓存结果，参数全为常量的调用在编译时折叠
+     */
+    public void markPure(String... names) {
+        pureFunctions.addAll(Arrays.asList(names));
+        foldedExpressions.clear();
+    }
+
+    /**
+     * 带结果缓存的表达式统计，key 为表达式字符串
+     */
+    public Map<String, Map<String, Object>> getMemoStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        memoizedExpressions.forEach((expression, memoized) -> stats.put(expression, memoized.getStats()));
+        return stats;
+    }
+
     /**
      * 添加自定义函数
+     * 默认视为非纯函数，需要缓存结果时通过 markPure 声明
      */
     public void addFunction(AbstractFunction function) {
         AviatorEvaluator.addFunction(function);
+        customFunctions.add(function.getName());
+        pureFunctions.remove(function.getName());
+        memoizedExpressions.clear();
+        foldedExpressions.clear();
     }
 
     /**
@@ -156,13 +332,20 @@ public class AviatorService {
      */
     public void removeFunction(String name) {
         AviatorEvaluator.removeFunction(name);
+        customFunctions.remove(name);
+        pureFunctions.remove(name);
+        memoizedExpressions.clear();
+        foldedExpressions.clear();
     }
 
     /**
-     * 清除表达式缓存
+     * 清除表达式缓存（包括表达式结果缓存）
      */
     public void clearExpressionCache() {
         AviatorEvaluator.clearExpressionCache();
+        memoizedExpressions.clear();
+        foldedExpressions.clear();
+        moneyFormulas.clear();
     }
 }
 
@@ -0,0 +1,316 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 编译前的常量折叠
+ * 参数全部为常量的纯函数调用（如 square(3)、math.pow(1 + 0.05, 12)）在编译前求值一次，
+ * 在源码中替换为字面量，执行时不再调用函数；嵌套调用从内向外折叠
+ *
+ * 只替换结果能用字面量精确表示的调用：整数、BigDecimal（M 后缀）、BigInteger（N 后缀）、布尔值、nil 和字符串；
+ * 浮点字面量被解析为 BigDecimal 时，double 结果写为 double(...) 以保持类型不变。
+ * 求值失败的调用保持原样，由执行时按原来的方式报错；脚本中定义了 fn / lambda 时不折叠，避免覆盖同名的局部函数
+ * 字符串、正则字面量（/.../）和 ## 注释中的内容原样保留，不会被当作函数调用
+ *
+ * @author demo
+ */
+public class ConstantFolder {
+
+    // BigDecimal 字面量按 MathContext.DECIMAL128 解析，超过该精度的结果不折叠
+    private static final int MAX_DECIMAL_PRECISION = 34;
+
+    // 常量参数中允许出现的运算符
+    private static final String CONSTANT_OPERATORS = "+-*/%()<>=!&|?:,";
+
+    private final Predicate<String> foldable;
+
+    private final Function<String, Object> evaluator;
+
+    private final BooleanSupplier floatingPointAsDecimal;
+
+    /**
+     * @param foldable               可以在编译时求值的函数（纯函数）
+     * @param evaluator              求值不带变量的调用
+     * @param floatingPointAsDecimal 浮点字面量是否被解析为 BigDecimal
+     */
+    public ConstantFolder(Predicate<String> foldable, Function<String, Object> evaluator,
+                          BooleanSupplier floatingPointAsDecimal) {
+        this.foldable = foldable;
+        this.evaluator = evaluator;
+        this.floatingPointAsDecimal = floatingPointAsDecimal;
+    }
+
+    /**
+     * 折叠表达式中的常量调用，没有可折叠的调用时返回原表达式
+     */
+    public String fold(String expression) {
+        List<Token> tokens = tokenize(expression);
+        if (tokens == null) {
+            return expression;
+        }
+        boolean hasCall = false;
+        for (Token token : tokens) {
+            if (token.type == TokenType.IDENT) {
+                if ("fn".equals(token.text) || "lambda".equals(token.text)) {
+                    return expression;
+                }
+                hasCall |= foldable.test(token.text);
+            }
+        }
+        if (!hasCall) {
+            return expression;
+        }
+        Region region = new Region();
+        rewrite(tokens, 0, tokens.size(), region);
+        String folded = region.text.toString();
+        return folded.equals(expression) ? expression : folded;
+    }
+
+    private void rewrite(List<Token> tokens, int from, int to, Region out) {
+        int i = from;
+        while (i < to) {
+            Token token = tokens.get(i);
+            if (token.type == TokenType.IDENT && foldable.test(token.text)) {
+                int open = skipWhitespace(tokens, i + 1, to);
+                int close = open < to && tokens.get(open).is('(') ? matching(tokens, open, to) : -1;
+                if (close > 0) {
+                    Region args = new Region();
+                    rewrite(tokens, open + 1, close, args);
+                    String call = token.text + "(" + args.text + ")";
+                    String literal = args.constant ? evaluate(call) : null;
+                    if (literal != null) {
+                        out.text.append(literal);
+                    } else {
+                        out.text.append(call);
+                        out.constant = false;
+                    }
+                    i = close + 1;
+                    continue;
+                }
+            }
+            out.text.append(token.text);
+            out.constant &= isConstant(token);
+            i++;
+        }
+    }
+
+    private String evaluate(String call) {
+        try {
+            return literal(evaluator.apply(call));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把常量结果转换为字面量，不能精确表示时返回 null
+     */
+    private String literal(Object value) {
+        if (value == null) {
+            return "nil";
+        }
+        if (value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Long) {
+            long number = (Long) value;
+            return number == Long.MIN_VALUE ? null : signed(Long.toString(number));
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (Double.isNaN(number) || Double.isInfinite(number)
+                    || (number == 0 && Double.doubleToRawLongBits(number) != 0)) {
+                return null;
+            }
+            String plain = BigDecimal.valueOf(number).toPlainString();
+            if (plain.indexOf('.') < 0) {
+                plain = plain + ".0";
+            }
+            if (!floatingPointAsDecimal.getAsBoolean()) {
+                return signed(plain);
+            }
+            return foldable.test("double") ? "double(" + plain + ")" : null;
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal number = (BigDecimal) value;
+            return number.precision() > MAX_DECIMAL_PRECISION ? null : signed(number.toPlainString() + "M");
+        }
+        if (value instanceof BigInteger) {
+            return signed(value + "N");
+        }
+        if (value instanceof String) {
+            return quote((String) value);
+        }
+        return null;
+    }
+
+    private static String signed(String literal) {
+        return literal.startsWith("-") ? "(" + literal + ")" : literal;
+    }
+
+    private static String quote(String value) {
+        if (value.contains("#{")) {
+            return null;
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20) {
+                return null;
+            }
+            if (c == '\'' || c == '\\') {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.append('\'').toString();
+    }
+
+    private static boolean isConstant(Token token) {
+        switch (token.type) {
+            case WHITESPACE:
+            case COMMENT:
+            case NUMBER:
+                return true;
+            case REGEX:
+                return false;
+            case STRING:
+                return !token.text.contains("#{");
+            case IDENT:
+                return "true".equals(token.text) || "false".equals(token.text) || "nil".equals(token.text);
+            default:
+                return CONSTANT_OPERATORS.indexOf(token.text.charAt(0)) >= 0;
+        }
+    }
+
+    private static int skipWhitespace(List<Token> tokens, int from, int to) {
+        int i = from;
+        while (i < to && tokens.get(i).type == TokenType.WHITESPACE) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int matching(List<Token> tokens, int open, int to) {
+        int depth = 0;
+        for (int i = open; i < to; i++) {
+            Token token = tokens.get(i);
+            if (token.is('(')) {
+                depth++;
+            } else if (token.is(')') && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 切分为词法单元，拼接后与原表达式完全一致；字符串或正则表达式未闭合时返回 null
+     * 与 Aviator 词法一致：## 到行尾为注释；/ 出现在运算数位置（表达式开头、运算符或左括号之后）时是正则字面量，否则是除号
+     */
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        Token previous = null;
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            int start = i;
+            TokenType type;
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(source.charAt(i))) {
+                    i++;
+                }
+                type = TokenType.WHITESPACE;
+            } else if (c == '#' && i + 1 < length && source.charAt(i + 1) == '#') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+                type = TokenType.COMMENT;
+            } else if (c == '\'' || c == '"' || (c == '/' && expectsOperand(previous))) {
+                i++;
+                while (i < length && source.charAt(i) != c) {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                if (i >= length) {
+                    return null;
+                }
+                i++;
+                type = c == '/' ? TokenType.REGEX : TokenType.STRING;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                while (i < length) {
+                    char d = source.charAt(i);
+                    if ((d == 'e' || d == 'E') && i + 1 < length
+                            && (source.charAt(i + 1) == '+' || source.charAt(i + 1) == '-')) {
+                        i += 2;
+                    } else if (Character.isLetterOrDigit(d) || d == '.') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                type = TokenType.NUMBER;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                while (i < length && (Character.isJavaIdentifierPart(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                type = TokenType.IDENT;
+            } else {
+                i++;
+                type = TokenType.OTHER;
+            }
+            Token token = new Token(type, source.substring(start, i));
+            tokens.add(token);
+            if (type != TokenType.WHITESPACE && type != TokenType.COMMENT) {
+                previous = token;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 上一个有效词法单元之后是否应出现运算数，此时 / 开始一个正则字面量
+     */
+    private static boolean expectsOperand(Token previous) {
+        if (previous == null) {
+            return true;
+        }
+        if (previous.type == TokenType.IDENT) {
+            return "return".equals(previous.text);
+        }
+        return previous.type == TokenType.OTHER && !previous.is(')') && !previous.is(']') && !previous.is('}');
+    }
+
+    private enum TokenType {
+        WHITESPACE, COMMENT, STRING, REGEX, NUMBER, IDENT, OTHER
+    }
+
+    private static final class Token {
+
+        private final TokenType type;
+
+        private final String text;
+
+        Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        boolean is(char c) {
+            return type == TokenType.OTHER && text.charAt(0) == c;
+        }
+    }
+
+    private static final class Region {
+
+        private final StringBuilder text = new StringBuilder();
+
+        private boolean constant = true;
+    }
+}
@@ -1,15 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.model.FormulaColumns;
+import com.example.demo.model.ShadowReport;
+import com.example.demo.store.FormulaSet;
+import com.example.demo.store.FormulaStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.exception.CompileExpressionErrorException;
+import com.googlecode.aviator.exception.ExpressionSyntaxErrorException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 /**
  * 公式管理服务
@@ -25,15 +42,51 @@ public class FormulaService {
     @Autowired
     private AviatorService aviatorService;
 
-    // 预编译的公式缓存
-    private final Map<String, Expression> formulaCache = new ConcurrentHashMap<>();
+    @Autowired
+    private FormulaStore formulaStore;
+
+    @Autowired
+    private ShadowEvaluationService shadowEvaluationService;
+
+    // 当前生效的公式快照，读取方不加锁，修改和重新加载时整体替换
+    private final AtomicReference<FormulaSnapshot> snapshot =
+            new AtomicReference<>(new FormulaSnapshot(0, Collections.emptyMap(), Collections.emptyMap()));
+
+    // 修改公式时的写锁，保证版本按顺序生成，不影响读取
+    private final Object writeLock = new Object();
+
+    // 后台编译新版本的线程
+    private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "formula-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 开启了结果缓存的公式，公式版本变化（编译结果不同）时重建缓存
+    private final Map<String, MemoizedExpression> memoizedFormulas = new ConcurrentHashMap<>();
+
+    // 语法错误公式的负缓存上限
+    private static final int INVALID_FORMULA_CACHE_SIZE = 1000;
+
+    // 语法错误的公式（Caffeine 按频率和最近使用淘汰），同一个错误公式重复校验时不再重新解析
+    private final Cache<String, Boolean> invalidFormulas = Caffeine.newBuilder()
+            .maximumSize(INVALID_FORMULA_CACHE_SIZE)
+            .build();
 
-    // 公式模板库
-    private final Map<String, String> formulaTemplates = new HashMap<>();
+    // 列式批量计算时每个并行任务处理的行数
+    private static final int COLUMNAR_CHUNK_SIZE = 4096;
 
     @PostConstruct
     public void init() {
-        // 初始化常用公式模板
+        FormulaSet latest = formulaStore.loadLatest();
+        if (latest != null) {
+            logger.info("从公式存储加载: version={}, formulas={}", latest.getVersion(), latest.getFormulas().size());
+            snapshot.set(compileSnapshot(latest.getVersion(), latest.getFormulas()));
+            return;
+        }
+
+        // 存储为空时使用内置公式模板（版本 0），首次修改时才写入存储
+        Map<String, String> formulaTemplates = new LinkedHashMap<>();
         formulaTemplates.put("discount", "price * (1 - rate)");
         formulaTemplates.put("tax", "amount * (1 + taxRate)");
         formulaTemplates.put("total_price", "price * quantity");
@@ -47,54 +100,233 @@ public class FormulaService {
 
         // 预编译常用公式
         logger.info("预编译常用公式...");
-        for (Map.Entry<String, String> entry : formulaTemplates.entrySet()) {
+        snapshot.set(compileSnapshot(0, formulaTemplates));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * 编译一组公式，编译失败的公式记录日志后从快照中去掉，快照的公式文本和编译结果始终一一对应
+     */
+    private FormulaSnapshot compileSnapshot(long version, Map<String, String> formulas) {
+        Map<String, String> templates = new LinkedHashMap<>(formulas);
+        Map<String, Expression> compiled = new HashMap<>(formulas.size() * 2);
+        for (Map.Entry<String, String> entry : formulas.entrySet()) {
             try {
                 Expression exp = aviatorService.compile(entry.getValue(), true);
-                formulaCache.put(entry.getKey(), exp);
-                logger.info("公式编译成功: {} = {}", entry.getKey(), entry.getValue());
+                compiled.put(entry.getKey(), exp);
+                logger.debug("公式编译成功: {} = {}", entry.getKey(), entry.getValue());
             } catch (Exception e) {
+                templates.remove(entry.getKey());
                 logger.error("公式编译失败: {} = {}", entry.getKey(), entry.getValue(), e);
             }
         }
+        logger.info("公式版本编译完成: version={}, formulas={}", version, compiled.size());
+        return new FormulaSnapshot(version, templates, compiled);
     }
 
     /**
      * 使用预编译公式计算
      */
     public Object calculateByFormula(String formulaName, Map<String, Object> params) {
-        Expression expression = formulaCache.get(formulaName);
+        Expression expression = getFormula(formulaName);
+
+        logger.debug("使用预编译公式计算: name={}, params={}", formulaName, params);
+        MemoizedExpression memoized = memoizedFor(formulaName, expression);
+        Object result = memoized != null ? memoized.execute(params) : expression.execute(params);
+        shadowEvaluationService.offer(formulaName, expression, params, result);
+        return result;
+    }
+
+    /**
+     * 获取预编译的公式
+     */
+    public Expression getFormula(String formulaName) {
+        Expression expression = snapshot.get().compiled.get(formulaName);
         if (expression == null) {
             throw new IllegalArgumentException("公式不存在: " + formulaName);
         }
-
-        logger.debug("使用预编译公式计算: name={}, params={}", formulaName, params);
-        return expression.execute(params);
+        return expression;
     }
 
     /**
      * 获取所有可用的公式
      */
     public Map<String, String> getAllFormulas() {
-        return new HashMap<>(formulaTemplates);
+        return new HashMap<>(snapshot.get().templates);
+    }
+
+    /**
+     * 当前生效的公式版本，0 表示尚未写入存储的内置模板
+     */
+    public long getVersion() {
+        return snapshot.get().version;
+    }
+
+    /**
+     * 存储中可用的公式版本
+     */
+    public List<Long> getStoredVersions() {
+        return formulaStore.versions();
     }
 
     /**
      * 添加自定义公式
+     * 先编译，成功后保存为新版本并切换快照；编译失败时不产生新版本
      */
     public void addFormula(String name, String expression) {
-        formulaTemplates.put(name, expression);
         Expression exp = aviatorService.compile(expression, true);
-        formulaCache.put(name, exp);
-        logger.info("添加自定义公式: {} = {}", name, expression);
+        synchronized (writeLock) {
+            FormulaSnapshot current = snapshot.get();
+            Map<String, String> templates = new LinkedHashMap<>(current.templates);
+            templates.put(name, expression);
+            Map<String, Expression> compiled = new HashMap<>(current.compiled);
+            compiled.put(name, exp);
+            FormulaSet saved = formulaStore.save(templates);
+            snapshot.set(new FormulaSnapshot(saved.getVersion(), templates, compiled));
+            logger.info("添加自定义公式: {} = {}, version={}", name, expression, saved.getVersion());
+        }
     }
 
     /**
      * 删除公式
      */
     public void removeFormula(String name) {
-        formulaTemplates.remove(name);
-        formulaCache.remove(name);
-        logger.info("删除公式: {}", name);
+        synchronized (writeLock) {
+            FormulaSnapshot current = snapshot.get();
+            if (!current.templates.containsKey(name)) {
+                throw new IllegalArgumentException("公式不存在: " + name);
+            }
+            Map<String, String> templates = new LinkedHashMap<>(current.templates);
+            templates.remove(name);
+            Map<String, Expression> compiled = new HashMap<>(current.compiled);
+            compiled.remove(name);
+            FormulaSet saved = formulaStore.save(templates);
+            snapshot.set(new FormulaSnapshot(saved.getVersion(), templates, compiled));
+            shadowEvaluationService.stopShadow(name);
+            memoizedFormulas.remove(name);
+            logger.info("删除公式: {}, version={}", name, saved.getVersion());
+        }
+    }
+
+    /**
+     * 为公式开启结果缓存，公式调用了非纯函数时抛出 IllegalArgumentException
+     */
+    public void enableMemoization(String name, long maxSize) {
+        memoizedFormulas.put(name, aviatorService.memoize(getFormula(name), maxSize));
+        logger.info("开启公式结果缓存: name={}, maxSize={}", name, maxSize);
+    }
+
+    /**
+     * 关闭公式结果缓存
+     */
+    public void disableMemoization(String name) {
+        memoizedFormulas.remove(name);
+    }
+
+    /**
+     * 公式结果缓存统计
+     */
+    public Map<String, Object> getMemoStats(String name) {
+        MemoizedExpression memoized = memoizedFormulas.get(name);
+        if (memoized == null) {
+            throw new IllegalArgumentException("公式未开启结果缓存: " + name);
+        }
+        return memoized.getStats();
+    }
+
+    /**
+     * 获取公式的结果缓存，未开启时返回 null
+     * 公式已切换到新版本时，以新的编译结果重建缓存，旧版本的结果不再使用
+     */
+    private MemoizedExpression memoizedFor(String name, Expression expression) {
+        MemoizedExpression memoized = memoizedFormulas.get(name);
+        if (memoized == null || memoized.getExpression() == expression) {
+            return memoized;
+        }
+        try {
+            MemoizedExpression rebuilt = aviatorService.memoize(expression, memoized.getMaxSize());
+            memoizedFormulas.replace(name, memoized, rebuilt);
+            return rebuilt;
+        } catch (IllegalArgumentException e) {
+            // 新版本调用了非纯函数，关闭缓存
+            memoizedFormulas.remove(name, memoized);
+            logger.warn("公式新版本不能缓存结果，已关闭结果缓存: name={}, error={}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 为已有公式设置候选版本，按采样率在后台与当前版本对比
+     */
+    public void startShadow(String name, String candidateExpression, double sampleRate) {
+        getFormula(name);
+        shadowEvaluationService.startShadow(name, candidateExpression, sampleRate);
+    }
+
+    /**
+     * 获取候选版本的对比报告
+     */
+    public ShadowReport getShadowReport(String name) {
+        ShadowReport report = shadowEvaluationService.report(name, snapshot.get().templates.get(name));
+        if (report == null) {
+            throw new IllegalArgumentException("公式没有候选版本: " + name);
+        }
+        return report;
+    }
+
+    /**
+     * 停止影子评估，丢弃候选版本
+     */
+    public void stopShadow(String name) {
+        if (shadowEvaluationService.stopShadow(name) == null) {
+            throw new IllegalArgumentException("公式没有候选版本: " + name);
+        }
+    }
+
+    /**
+     * 把候选版本提升为正式版本
+     */
+    public void promoteShadow(String name) {
+        ShadowReport report = getShadowReport(name);
+        addFormula(name, report.getCandidateExpression());
+        shadowEvaluationService.stopShadow(name);
+        logger.info("候选公式已提升: name={}, samples={}, mismatches={}", name, report.getSamples(),
+                report.getMismatches());
+    }
+
+    /**
+     * 从存储重新加载最新版本
+     * 在后台线程编译整个版本，完成后一次性切换快照，编译期间请求继续使用旧版本
+     * 新版本中有公式编译失败时不切换，继续使用旧版本
+     *
+     * @return 切换后生效的版本号
+     */
+    public CompletableFuture<Long> reload() {
+        return CompletableFuture.supplyAsync(() -> {
+            FormulaSet latest = formulaStore.loadLatest();
+            if (latest == null || latest.getVersion() <= snapshot.get().version) {
+                return snapshot.get().version;
+            }
+            FormulaSnapshot next = compileSnapshot(latest.getVersion(), latest.getFormulas());
+            if (next.templates.size() < latest.getFormulas().size()) {
+                // 新版本中有公式编译失败，保留旧版本，避免这些公式在本实例上直接消失
+                logger.error("公式版本存在编译失败的公式，保留当前版本: version={}, current={}",
+                        latest.getVersion(), snapshot.get().version);
+                return snapshot.get().version;
+            }
+            synchronized (writeLock) {
+                // 编译期间本实例可能已经写入了更新的版本
+                if (next.version > snapshot.get().version) {
+                    snapshot.set(next);
+                    logger.info("公式版本已切换: version={}", next.version);
+                }
+                return snapshot.get().version;
+            }
+        }, reloadExecutor);
     }
 
     /**
@@ -102,11 +334,7 @@ public class FormulaService {
      */
     public Map<String, Object> batchCalculate(String formulaName, Map<String, Object>[] paramsList) {
         Map<String, Object> results = new HashMap<>();
-        Expression expression = formulaCache.get(formulaName);
-        
-        if (expression == null) {
-            throw new IllegalArgumentException("公式不存在: " + formulaName);
-        }
+        Expression expression = getFormula(formulaName);
 
         for (int i = 0; i < paramsList.length; i++) {
             Object result = expression.execute(paramsList[i]);
@@ -116,17 +344,136 @@ public class FormulaService {
         return results;
     }
 
+    /**
+     * 列式批量计算，结果为 double 数组
+     * 第 i 个结果对应各列第 i 行，按块并行计算并直接写入预分配的数组
+     */
+    public double[] batchCalculateDouble(String formulaName, FormulaColumns columns) {
+        double[] results = new double[columns.rowCount()];
+        calculateColumns(formulaName, columns, results.length,
+                (row, result) -> results[row] = toNumber(formulaName, result).doubleValue());
+        return results;
+    }
+
+    /**
+     * 列式批量计算，结果为 long 数组
+     */
+    public long[] batchCalculateLong(String formulaName, FormulaColumns columns) {
+        long[] results = new long[columns.rowCount()];
+        calculateColumns(formulaName, columns, results.length,
+                (row, result) -> results[row] = toNumber(formulaName, result).longValue());
+        return results;
+    }
+
+    /**
+     * 列式批量计算，结果为 boolean 数组
+     */
+    public boolean[] batchCalculateBoolean(String formulaName, FormulaColumns columns) {
+        boolean[] results = new boolean[columns.rowCount()];
+        calculateColumns(formulaName, columns, results.length, (row, result) -> {
+            if (!(result instanceof Boolean)) {
+                throw new IllegalStateException("公式结果不是布尔值: " + formulaName + " -> " + result);
+            }
+            results[row] = (Boolean) result;
+        });
+        return results;
+    }
+
+    /**
+     * 按块并行遍历所有行，每个块复用同一个变量 Map，只绑定公式实际用到的列
+     */
+    private void calculateColumns(String formulaName, FormulaColumns columns, int rows, RowResultConsumer consumer) {
+        Expression expression = getFormula(formulaName);
+
+        List<String> variables = expression.getVariableNames();
+        String[] names = variables.toArray(new String[0]);
+        ColumnReader[] readers = new ColumnReader[names.length];
+        for (int i = 0; i < names.length; i++) {
+            readers[i] = columnReader(columns, names[i]);
+        }
+
+        int chunks = (rows + COLUMNAR_CHUNK_SIZE - 1) / COLUMNAR_CHUNK_SIZE;
+        logger.debug("列式批量计算: name={}, rows={}, chunks={}", formulaName, rows, chunks);
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            Map<String, Object> env = new HashMap<>(names.length * 2);
+            int end = Math.min(rows, (chunk + 1) * COLUMNAR_CHUNK_SIZE);
+            for (int row = chunk * COLUMNAR_CHUNK_SIZE; row < end; row++) {
+                for (int i = 0; i < names.length; i++) {
+                    env.put(names[i], readers[i].read(row));
+                }
+                consumer.accept(row, expression.execute(env));
+            }
+        });
+    }
+
+    private static ColumnReader columnReader(FormulaColumns columns, String name) {
+        double[] doubles = columns.getDoubleColumns().get(name);
+        if (doubles != null) {
+            return row -> doubles[row];
+        }
+        long[] longs = columns.getLongColumns().get(name);
+        if (longs != null) {
+            return row -> longs[row];
+        }
+        boolean[] booleans = columns.getBooleanColumns().get(name);
+        if (booleans != null) {
+            return row -> booleans[row];
+        }
+        throw new IllegalArgumentException("缺少变量列: " + name);
+    }
+
+    private static Number toNumber(String formulaName, Object result) {
+        if (result instanceof Number) {
+            return (Number) result;
+        }
+        throw new IllegalStateException("公式结果不是数值: " + formulaName + " -> " + result);
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(int row);
+    }
+
+    @FunctionalInterface
+    private interface RowResultConsumer {
+        void accept(int row, Object result);
+    }
+
     /**
      * 验证公式语法
+     * 已知的语法错误公式直接返回 false，只在首次发现时记录日志；
+     * 其他异常（常量折叠、函数解析等）不一定是公式本身的问题，不进入负缓存，下次校验重新编译
      */
     public boolean validateFormula(String expression) {
+        if (invalidFormulas.getIfPresent(expression) != null) {
+            return false;
+        }
         try {
             aviatorService.compile(expression);
             return true;
-        } catch (Exception e) {
+        } catch (ExpressionSyntaxErrorException | CompileExpressionErrorException e) {
+            invalidFormulas.put(expression, Boolean.TRUE);
             logger.warn("公式语法错误: {}, error: {}", expression, e.getMessage());
             return false;
+        } catch (Exception e) {
+            logger.warn("公式校验失败: {}, error: {}", expression, e.getMessage());
+            return false;
         }
     }
-}
 
+    /**
+     * 某个版本的公式及其编译结果，创建后不再修改
+     */
+    private static final class FormulaSnapshot {
+
+        private final long version;
+        private final Map<String, String> templates;
+        private final Map<String, Expression> compiled;
+
+        private FormulaSnapshot(long version, Map<String, String> templates, Map<String, Expression> compiled) {
+            this.version = version;
+            this.templates = Collections.unmodifiableMap(templates);
+            this.compiled = Collections.unmodifiableMap(compiled);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.googlecode.aviator.Expression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带结果缓存的表达式
+ * 以表达式变量的取值（按变量出现顺序）为 key 缓存结果，只用于只调用纯函数的表达式
+ * 变量取值不是数字、字符串、布尔等不可变类型时不走缓存，直接执行
+ *
+ * @author demo
+ */
+public class MemoizedExpression {
+
+    // Caffeine 不能缓存 null，用占位对象代替
+    private static final Object NULL_RESULT = new Object();
+
+    private final Expression expression;
+    private final long maxSize;
+    private final String[] variables;
+    private final Cache<List<Object>, Object> cache;
+    private final LongAdder uncacheable = new LongAdder();
+
+    public MemoizedExpression(Expression expression, long maxSize) {
+        this.expression = expression;
+        this.maxSize = maxSize;
+        this.variables = expression.getVariableNames().toArray(new String[0]);
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 执行表达式，相同的变量取值直接返回缓存的结果
+     */
+    public Object execute(Map<String, Object> env) {
+        Object[] key = new Object[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Object value = env.get(variables[i]);
+            if (!isImmutable(value)) {
+                uncacheable.increment();
+                return expression.execute(env);
+            }
+            key[i] = value;
+        }
+        Object result = cache.get(Arrays.asList(key), k -> {
+            Object value = expression.execute(env);
+            return value != null ? value : NULL_RESULT;
+        });
+        return result != NULL_RESULT ? result : null;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidate() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 缓存统计：命中数、未命中数、命中率、缓存条数、不可缓存的执行次数
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("size", cache.estimatedSize());
+        result.put("uncacheable", uncacheable.sum());
+        return result;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof Float
+                || value instanceof BigDecimal
+                || value instanceof BigInteger
+                || value instanceof Enum;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.googlecode.aviator.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * NDJSON 流式计算服务
+ * 逐行读取 JSON 记录、计算、立即写出结果，内存占用只与单条记录大小有关；单行超过长度上限时只输出该行的错误，超出部分直接丢弃
+ * 读写在同一个线程中交替进行，客户端读取结果慢时写出阻塞，读取输入也随之放慢（背压）
+ *
+ * @author demo
+ */
+@Service
+public class NdjsonScoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonScoringService.class);
+
+    // 每写出多少条结果刷新一次输出
+    private static final int FLUSH_INTERVAL = 256;
+
+    private final ObjectReader recordReader;
+
+    private final ObjectMapper objectMapper;
+
+    // 单条记录的最大字符数
+    private final int maxLineLength;
+
+    @Autowired
+    public NdjsonScoringService(ObjectMapper objectMapper,
+                                @Value("${formula.stream.max-line-length:1048576}") int maxLineLength) {
+        if (maxLineLength <= 0) {
+            throw new IllegalArgumentException("formula.stream.max-line-length 必须大于 0: " + maxLineLength);
+        }
+        this.objectMapper = objectMapper;
+        this.maxLineLength = maxLineLength;
+        this.recordReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {
+        });
+    }
+
+    /**
+     * 对输入流中的每条记录执行表达式
+     * 输出每行一个结果：{"line":1,"result":...}，单条记录解析或计算失败时输出 {"line":1,"error":"..."} 并继续处理
+     *
+     * @return 处理的记录数
+     */
+    public long score(Expression expression, InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 记录之间只用换行分隔，不使用默认的空格
+        generator.setRootValueSeparator(null);
+
+        StringBuilder buffer = new StringBuilder();
+        long lineNumber = 0;
+        long records = 0;
+        long errors = 0;
+        long length;
+        while ((length = readLine(reader, buffer)) >= 0) {
+            lineNumber++;
+            if (length <= maxLineLength && buffer.toString().trim().isEmpty()) {
+                continue;
+            }
+            records++;
+            // 结果先完整序列化，成功后才写入输出，序列化失败不会留下写了一半的字段
+            String result = null;
+            String error;
+            if (length > maxLineLength) {
+                error = "记录长度超过上限: " + maxLineLength;
+            } else {
+                try {
+                    Map<String, Object> record = recordReader.readValue(buffer.toString());
+                    result = objectMapper.writeValueAsString(expression.execute(record));
+                    error = null;
+                } catch (Exception e) {
+                    error = String.valueOf(e.getMessage());
+                }
+            }
+            generator.writeStartObject();
+            generator.writeNumberField("line", lineNumber);
+            if (error == null) {
+                generator.writeFieldName("result");
+                generator.writeRawValue(result);
+            } else {
+                errors++;
+                generator.writeStringField("error", error);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            if (records % FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        logger.info("流式计算完成: records={}, errors={}", records, errors);
+        return records;
+    }
+
+    /**
+     * 读取一行到 buffer，行尾的 \n 或 \r\n 不计入；buffer 最多保留 maxLineLength + 1 个字符，超出部分读取后丢弃
+     *
+     * @return 行的实际长度，已到输入末尾时返回 -1
+     */
+    private long readLine(BufferedReader reader, StringBuilder buffer) throws IOException {
+        buffer.setLength(0);
+        long length = 0;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (length <= maxLineLength) {
+                buffer.append((char) c);
+            }
+            length++;
+        }
+        if (c == -1 && length == 0) {
+            return -1;
+        }
+        // buffer 完整保存了不超过 maxLineLength + 1 个字符的行，末尾的 \r 在比较长度之前去掉
+        if (length > 0 && length <= maxLineLength + 1L && buffer.charAt((int) length - 1) == '\r') {
+            buffer.setLength((int) --length);
+        }
+        return length;
+    }
+}
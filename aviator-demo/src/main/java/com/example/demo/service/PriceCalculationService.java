@@ -11,7 +11,7 @@ import java.util.Map;
 
 /**
  * 价格计算服务
- * 演示如何使用 Aviator 进行复杂的价格计算
+ * 演示如何使用 Aviator 进行复杂的价格计算，金额公式使用定点数模式（executeMoney）保证小数精确
  *
  * @author demo
  */
@@ -38,8 +38,7 @@ public class PriceCalculationService {
         String expression = "(price * quantity * (1 - discount) + shipping) * (1 + tax)";
         logger.info("计算价格: expression={}, params={}", expression, env);
 
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).doubleValue();
+        return aviatorService.executeMoney(expression, env).doubleValue();
     }
 
     /**
@@ -50,8 +49,7 @@ public class PriceCalculationService {
         env.put("price", originalPrice);
         env.put("discount", discountRate);
 
-        Object result = aviatorService.execute("price * (1 - discount)", env);
-        return ((Number) result).doubleValue();
+        return aviatorService.executeMoney("price * (1 - discount)", env).doubleValue();
     }
 
     /**
@@ -65,8 +63,7 @@ public class PriceCalculationService {
 
         // VIP 折扣: 基础价格 * (1 - 等级 * 0.05)，最高8折
         String expression = "price * (1 - min(level * 0.05, 0.2))";
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).doubleValue();
+        return ((Number) aviatorService.executeMemoized(expression, env)).doubleValue();
     }
 
     /**
@@ -81,8 +78,7 @@ public class PriceCalculationService {
                           "(amount >= 200 ? amount - 25 : " +
                           "(amount >= 100 ? amount - 10 : amount))";
         
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).doubleValue();
+        return aviatorService.executeMoney(expression, env).doubleValue();
     }
 
     /**
@@ -100,8 +96,7 @@ public class PriceCalculationService {
                           "(qty <= 100 ? qty * price * 0.8 : " +
                           "qty * price * 0.7))";
         
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).doubleValue();
+        return aviatorService.executeMoney(expression, env).doubleValue();
     }
 
     /**
@@ -115,8 +110,7 @@ public class PriceCalculationService {
         env.put("periods", periods);
 
         String expression = "principal * math.pow(1 + rate, periods)";
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).doubleValue();
+        return aviatorService.executeDouble(expression, env);
     }
 }
 
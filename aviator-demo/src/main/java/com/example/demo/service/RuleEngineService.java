@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.model.LoanApplication;
+import com.googlecode.aviator.Expression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,8 +69,8 @@ public class RuleEngineService {
                           "(credit >= 600 ? 0.07 : 0.08)))) " +
                           "- (collateral ? 0.01 : 0)";
 
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).doubleValue();
+        // 输入组合有限，缓存结果
+        return ((Number) aviatorService.executeMemoized(expression, env)).doubleValue();
     }
 
     /**
@@ -111,8 +112,7 @@ public class RuleEngineService {
                           "(debt * 30) - " +                      // 负债率扣分
                           "(defaulted ? 30 : 0)))";              // 违约记录扣分
 
-        Object result = aviatorService.execute(expression, env);
-        return ((Number) result).intValue();
+        return (int) aviatorService.executeLong(expression, env);
     }
 
     /**
@@ -148,7 +148,7 @@ public class RuleEngineService {
                           "(score >= 70 ? 'C' : " +
                           "(score >= 60 ? 'D' : 'F')))";
 
-        Object result = aviatorService.execute(expression, env);
+        Object result = aviatorService.executeMemoized(expression, env);
         return (String) result;
     }
 
@@ -160,5 +160,19 @@ public class RuleEngineService {
         logger.info("执行自定义规则: expression={}, variables={}", expression, variables);
         return aviatorService.execute(expression, variables);
     }
+
+    /**
+     * 规则结果缓存统计（命中率等），key 为规则表达式
+     */
+    public Map<String, Map<String, Object>> getMemoStats() {
+        return aviatorService.getMemoStats();
+    }
+
+    /**
+     * 编译自定义规则（带缓存），供流式批量计算复用
+     */
+    public Expression compileCustomRule(String expression) {
+        return aviatorService.compile(expression, true);
+    }
 }
 
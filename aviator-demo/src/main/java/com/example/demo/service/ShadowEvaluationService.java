@@ -0,0 +1,254 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ShadowReport;
+import com.googlecode.aviator.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 影子公式评估服务
+ * 按采样率把线上请求的输入复制一份，在后台线程上分别执行当前公式和候选公式，记录延迟、内存分配和结果差异，
+ * 不占用请求线程；后台队列满时直接丢弃样本
+ *
+ * @author demo
+ */
+@Service
+public class ShadowEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowEvaluationService.class);
+
+    // 等待评估的样本上限
+    private static final int QUEUE_CAPACITY = 1000;
+
+    // 报告中保留的最近差异、最近候选公式异常的条数
+    private static final int RECENT_LIMIT = 10;
+
+    @Autowired
+    private AviatorService aviatorService;
+
+    private final Map<String, Shadow> shadows = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "formula-shadow");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    private final com.sun.management.ThreadMXBean allocationBean = allocationBean();
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 为公式设置候选版本，替换已有的候选版本和统计
+     *
+     * @param sampleRate 采样率，(0, 1]
+     */
+    public void startShadow(String formulaName, String candidateExpression, double sampleRate) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("采样率必须在 (0, 1] 之间: " + sampleRate);
+        }
+        Expression candidate = aviatorService.compile(candidateExpression, true);
+        shadows.put(formulaName, new Shadow(candidateExpression, candidate, sampleRate));
+        logger.info("开始影子评估: name={}, candidate={}, sampleRate={}", formulaName, candidateExpression, sampleRate);
+    }
+
+    /**
+     * 停止影子评估
+     *
+     * @return 被移除的候选表达式，没有候选版本时返回 null
+     */
+    public String stopShadow(String formulaName) {
+        Shadow shadow = shadows.remove(formulaName);
+        if (shadow == null) {
+            return null;
+        }
+        logger.info("停止影子评估: name={}, samples={}", formulaName, shadow.samples.sum());
+        return shadow.candidateExpression;
+    }
+
+    /**
+     * 当前有候选版本的公式名称
+     */
+    public List<String> getShadowedFormulas() {
+        return new ArrayList<>(shadows.keySet());
+    }
+
+    /**
+     * 提交一次线上计算；没有候选版本或未命中采样时立即返回
+     */
+    public void offer(String formulaName, Expression active, Map<String, Object> params, Object liveResult) {
+        Shadow shadow = shadows.get(formulaName);
+        if (shadow == null || ThreadLocalRandom.current().nextDouble() >= shadow.sampleRate) {
+            return;
+        }
+        Map<String, Object> copy = new HashMap<>(params);
+        try {
+            executor.execute(() -> shadow.evaluate(active, copy, liveResult));
+        } catch (RejectedExecutionException e) {
+            shadow.dropped.increment();
+        }
+    }
+
+    /**
+     * 获取对比报告，没有候选版本时返回 null
+     */
+    public ShadowReport report(String formulaName, String activeExpression) {
+        Shadow shadow = shadows.get(formulaName);
+        if (shadow == null) {
+            return null;
+        }
+        long samples = shadow.samples.sum();
+        ShadowReport report = new ShadowReport();
+        report.setFormulaName(formulaName);
+        report.setActiveExpression(activeExpression);
+        report.setCandidateExpression(shadow.candidateExpression);
+        report.setSampleRate(shadow.sampleRate);
+        report.setSamples(samples);
+        report.setMismatches(shadow.mismatches.sum());
+        report.setCandidateErrors(shadow.candidateErrors.sum());
+        report.setDropped(shadow.dropped.sum());
+        if (samples > 0) {
+            report.setActiveAvgMicros(shadow.activeNanos.sum() / 1000.0 / samples);
+            report.setCandidateAvgMicros(shadow.candidateNanos.sum() / 1000.0 / samples);
+            report.setActiveAvgAllocatedBytes(shadow.activeBytes.sum() / samples);
+            report.setCandidateAvgAllocatedBytes(shadow.candidateBytes.sum() / samples);
+        }
+        synchronized (shadow.recentMismatches) {
+            report.setRecentMismatches(new ArrayList<>(shadow.recentMismatches));
+        }
+        synchronized (shadow.recentErrors) {
+            report.setRecentCandidateErrors(new ArrayList<>(shadow.recentErrors));
+        }
+        return report;
+    }
+
+    private long allocatedBytes() {
+        return allocationBean != null ? allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * HotSpot 扩展的 ThreadMXBean 支持按线程统计分配量，其他 JVM 上不记录分配
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+                if (hotspot.isThreadAllocatedMemorySupported()) {
+                    hotspot.setThreadAllocatedMemoryEnabled(true);
+                    return hotspot;
+                }
+            }
+        } catch (Throwable e) {
+            logger.info("当前 JVM 不支持按线程统计内存分配，影子评估不记录分配量: {}", e.toString());
+        }
+        return null;
+    }
+
+    /**
+     * 数值按大小比较（BigDecimal 与 Double 结果不因类型不同而算作差异），其他类型按 equals 比较
+     */
+    private static boolean sameResult(Object live, Object candidate) {
+        if (live instanceof Number && candidate instanceof Number) {
+            try {
+                return new BigDecimal(live.toString()).compareTo(new BigDecimal(candidate.toString())) == 0;
+            } catch (NumberFormatException e) {
+                // NaN、Infinity
+                return live.toString().equals(candidate.toString());
+            }
+        }
+        return Objects.equals(live, candidate);
+    }
+
+    private final class Shadow {
+
+        private final String candidateExpression;
+        private final Expression candidate;
+        private final double sampleRate;
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder mismatches = new LongAdder();
+        private final LongAdder candidateErrors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder activeNanos = new LongAdder();
+        private final LongAdder candidateNanos = new LongAdder();
+        private final LongAdder activeBytes = new LongAdder();
+        private final LongAdder candidateBytes = new LongAdder();
+        private final Deque<String> recentMismatches = new ArrayDeque<>();
+        private final Deque<String> recentErrors = new ArrayDeque<>();
+
+        private Shadow(String candidateExpression, Expression candidate, double sampleRate) {
+            this.candidateExpression = candidateExpression;
+            this.candidate = candidate;
+            this.sampleRate = sampleRate;
+        }
+
+        private void evaluate(Expression active, Map<String, Object> params, Object liveResult) {
+            // 当前公式在同一线程上重新执行一次作为基线，两者的延迟和分配量可以直接比较
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            try {
+                active.execute(params);
+            } catch (Exception e) {
+                // 线上执行已经成功，重放失败只影响基线统计
+                logger.debug("影子基线执行失败: {}", e.getMessage());
+            }
+            activeNanos.add(System.nanoTime() - start);
+            activeBytes.add(allocatedBytes() - bytes);
+
+            Object candidateResult;
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            try {
+                candidateResult = candidate.execute(params);
+            } catch (Exception e) {
+                candidateErrors.increment();
+                candidateResult = e;
+            }
+            candidateNanos.add(System.nanoTime() - start);
+            candidateBytes.add(allocatedBytes() - bytes);
+            samples.increment();
+
+            // 候选公式异常只计入 candidateErrors，不算作结果差异
+            if (candidateResult instanceof Exception) {
+                record(recentErrors, params + " -> " + ((Exception) candidateResult).getMessage());
+            } else if (!sameResult(liveResult, candidateResult)) {
+                mismatches.increment();
+                record(recentMismatches, params + " -> active=" + liveResult + ", candidate=" + candidateResult);
+            }
+        }
+
+        private void record(Deque<String> recent, String detail) {
+            synchronized (recent) {
+                if (recent.size() == RECENT_LIMIT) {
+                    recent.removeFirst();
+                }
+                recent.addLast(detail);
+            }
+        }
+    }
+}
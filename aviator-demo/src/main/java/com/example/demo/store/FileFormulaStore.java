@@ -0,0 +1,156 @@
+package com.example.demo.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于本地文件的公式存储
+ * 每个版本一个 JSON 文件（formulas-v{版本号}.json），先写临时文件再以硬链接发布，进程崩溃时不会留下写了一半的版本
+ * 版本文件只创建不替换，多个进程共享同一目录时版本号冲突的一方改用下一个版本号
+ * 只保留最近的若干个版本
+ *
+ * @author demo
+ */
+public class FileFormulaStore implements FormulaStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileFormulaStore.class);
+
+    private static final Pattern VERSION_FILE = Pattern.compile("formulas-v(\\d+)\\.json");
+
+    /**
+     * 版本号冲突时最多尝试的次数
+     */
+    private static final int MAX_SAVE_ATTEMPTS = 16;
+
+    private final Path directory;
+    private final int retainVersions;
+    private final ObjectMapper objectMapper;
+
+    public FileFormulaStore(Path directory, int retainVersions, ObjectMapper objectMapper) {
+        if (retainVersions < 1) {
+            throw new IllegalArgumentException("retainVersions 必须大于 0: " + retainVersions);
+        }
+        this.directory = directory;
+        this.retainVersions = retainVersions;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public FormulaSet loadLatest() {
+        List<Long> versions = versions();
+        return versions.isEmpty() ? null : load(versions.get(versions.size() - 1));
+    }
+
+    @Override
+    public FormulaSet load(long version) {
+        Path file = fileOf(version);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), FormulaSet.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取公式版本失败: " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized FormulaSet save(Map<String, String> formulas) {
+        List<Long> versions = versions();
+        long version = versions.isEmpty() ? 1 : versions.get(versions.size() - 1) + 1;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建公式存储目录失败: " + directory, e);
+        }
+        for (int attempt = 0; attempt < MAX_SAVE_ATTEMPTS; attempt++, version++) {
+            FormulaSet set = new FormulaSet(version, System.currentTimeMillis(), new LinkedHashMap<>(formulas));
+            Path file = fileOf(version);
+            try {
+                publish(set, file);
+            } catch (FileAlreadyExistsException e) {
+                // 另一个进程已经写入了这个版本号，换下一个版本号重试，不覆盖已有版本
+                logger.debug("公式版本已存在，尝试下一个版本: version={}", version);
+                continue;
+            } catch (IOException e) {
+                throw new UncheckedIOException("保存公式版本失败: " + file, e);
+            }
+            logger.info("公式版本已保存: version={}, formulas={}, file={}", version, formulas.size(), file);
+            prune(versions());
+            return set;
+        }
+        throw new IllegalStateException("保存公式版本失败: 连续 " + MAX_SAVE_ATTEMPTS + " 个版本号都已存在, directory=" + directory);
+    }
+
+    /**
+     * 先完整写入临时文件，再以硬链接发布为版本文件
+     * 创建链接在目标已存在时失败而不是替换，因此两个进程不会互相覆盖同一版本；
+     * 文件系统不支持硬链接时退化为不带 REPLACE_EXISTING 的重命名
+     * 临时文件无论成功与否都会被删除
+     */
+    private void publish(FormulaSet set, Path file) throws IOException {
+        Path temp = Files.createTempFile(directory, "formulas-", ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), set);
+            try {
+                Files.createLink(file, temp);
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.move(temp, file);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public List<Long> versions() {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        List<Long> versions = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "formulas-v*.json")) {
+            for (Path file : files) {
+                Matcher matcher = VERSION_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    versions.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取公式存储目录失败: " + directory, e);
+        }
+        Collections.sort(versions);
+        return versions;
+    }
+
+    private void prune(List<Long> versions) {
+        for (int i = 0; i < versions.size() - retainVersions; i++) {
+            try {
+                Files.deleteIfExists(fileOf(versions.get(i)));
+            } catch (IOException e) {
+                logger.warn("删除旧公式版本失败: version={}", versions.get(i), e);
+            }
+        }
+    }
+
+    private Path fileOf(long version) {
+        return directory.resolve("formulas-v" + version + ".json");
+    }
+}
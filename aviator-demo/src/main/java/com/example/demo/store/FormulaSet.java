@@ -0,0 +1,58 @@
+package com.example.demo.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 某个版本的完整公式集合
+ *
+ * @author demo
+ */
+public class FormulaSet {
+
+    private long version;
+    private long createdAt;
+    private Map<String, String> formulas = new LinkedHashMap<>();
+
+    public FormulaSet() {
+    }
+
+    public FormulaSet(long version, long createdAt, Map<String, String> formulas) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.formulas = formulas;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Map<String, String> getFormulas() {
+        return formulas;
+    }
+
+    public void setFormulas(Map<String, String> formulas) {
+        this.formulas = formulas;
+    }
+
+    @Override
+    public String toString() {
+        return "FormulaSet{" +
+                "version=" + version +
+                ", createdAt=" + createdAt +
+                ", formulas=" + formulas.size() +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.store;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 公式持久化存储 SPI
+ * 每次保存生成一个新的、不可变的版本，版本号单调递增
+ * 默认实现为 {@link FileFormulaStore}，可以声明自己的 FormulaStore Bean 替换为数据库等存储
+ *
+ * @author demo
+ */
+public interface FormulaStore {
+
+    /**
+     * 读取最新版本，存储为空时返回 null
+     */
+    FormulaSet loadLatest();
+
+    /**
+     * 读取指定版本，版本不存在时返回 null
+     */
+    FormulaSet load(long version);
+
+    /**
+     * 保存一组公式为新版本
+     *
+     * @param formulas 公式名称到表达式的完整映射
+     * @return 保存后的版本
+     */
+    FormulaSet save(Map<String, String> formulas);
+
+    /**
+     * 所有可读取的版本号（升序）
+     */
+    List<Long> versions();
+}
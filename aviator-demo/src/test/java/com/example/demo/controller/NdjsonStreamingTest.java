@@ -0,0 +1,144 @@
+package com.example.demo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * NDJSON 流式计算接口测试：/api/formula/stream/{name} 和 /api/rule/custom/stream
+ *
+ * @author demo
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NdjsonStreamingTest {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void formulaStorePath(DynamicPropertyRegistry registry) {
+        registry.add("formula.store.path", () -> {
+            try {
+                return Files.createTempDirectory("ndjson-streaming-test").toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Test
+    void testFormulaStreamReportsErrorsPerLine() throws Exception {
+        String body = "{\"price\": 100, \"rate\": 0.2}\n"
+                + "\n"
+                + "{not json\n"
+                + "{\"price\": \"abc\", \"rate\": 0.1}\n"
+                + "{\"price\": 50, \"rate\": 0.5}";
+
+        List<JsonNode> lines = stream(post("/api/formula/stream/discount"), body);
+
+        assertEquals(4, lines.size());
+        assertResult(lines.get(0), 1, 80.0);
+        // 空行不输出结果，但行号按原始输入计算
+        assertError(lines.get(1), 3);
+        assertError(lines.get(2), 4);
+        assertResult(lines.get(3), 5, 25.0);
+    }
+
+    @Test
+    void testRuleStream() throws Exception {
+        String body = "{\"age\": 20, \"score\": 75}\n"
+                + "{\"age\": 10, \"score\": 90}\n"
+                + "[1, 2]\n"
+                + "{\"age\": 30, \"score\": 59}\n";
+
+        List<JsonNode> lines = stream(post("/api/rule/custom/stream").param("expression", "age > 18 && score >= 60"),
+                body);
+
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).get("result").asBoolean());
+        assertFalse(lines.get(1).get("result").asBoolean());
+        assertError(lines.get(2), 3);
+        assertFalse(lines.get(3).get("result").asBoolean());
+        assertEquals(4, lines.get(3).get("line").asInt());
+    }
+
+    @Test
+    void testManyLines() throws Exception {
+        // 超过刷新间隔（256 行），结果按输入顺序逐行输出
+        int records = 1000;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            body.append("{\"price\": ").append(i).append(", \"rate\": 0.5}\n");
+        }
+
+        List<JsonNode> lines = stream(post("/api/formula/stream/discount"), body.toString());
+
+        assertEquals(records, lines.size());
+        for (int i = 0; i < records; i++) {
+            assertResult(lines.get(i), i + 1, i * 0.5);
+        }
+    }
+
+    @Test
+    void testInvalidRequestsAreRejectedBeforeStreaming() throws Exception {
+        mockMvc.perform(post("/api/formula/stream/no_such_formula").contentType(NDJSON).content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(post("/api/rule/custom/stream").param("expression", "age >").contentType(NDJSON).content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    private List<JsonNode> stream(MockHttpServletRequestBuilder request, String body) throws Exception {
+        MvcResult result = mockMvc.perform(request.contentType(NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NDJSON))
+                .andReturn();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private static void assertResult(JsonNode line, int lineNumber, double expected) {
+        assertEquals(lineNumber, line.get("line").asInt());
+        assertFalse(line.has("error"), line.toString());
+        assertEquals(expected, line.get("result").asDouble(), 1e-9);
+    }
+
+    private static void assertError(JsonNode line, int lineNumber) {
+        assertEquals(lineNumber, line.get("line").asInt());
+        assertFalse(line.has("result"), line.toString());
+        assertTrue(line.get("error").isTextual(), line.toString());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.money;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 定点数金额公式测试
+ *
+ * @author demo
+ */
+class MoneyFormulaTest {
+
+    private static final MoneyContext HALF_UP = new MoneyContext(4, RoundingMode.HALF_UP);
+
+    @Test
+    void testDivisionIsDecimal() {
+        // Aviator 中 7 / 2 为整数除法
+        assertEquals(3L, AviatorEvaluator.execute("7 / 2"));
+        assertEquals(new BigDecimal("3.5000"), execute("7 / 2", HALF_UP));
+        assertEquals(new BigDecimal("0.6667"), execute("a / b", HALF_UP, "a", 2, "b", 3));
+        assertEquals(new BigDecimal("-0.6667"), execute("-a / b", HALF_UP, "a", 2, "b", 3));
+        assertThrows(ArithmeticException.class, () -> execute("a / b", HALF_UP, "a", 1, "b", 0));
+    }
+
+    @Test
+    void testRoundingMode() {
+        assertEquals(new BigDecimal("0.6666"), execute("2 / 3", new MoneyContext(4, RoundingMode.DOWN)));
+        assertEquals(new BigDecimal("-0.6667"), execute("-2 / 3", new MoneyContext(4, RoundingMode.FLOOR)));
+        assertEquals(new BigDecimal("-0.6666"), execute("-2 / 3", new MoneyContext(4, RoundingMode.CEILING)));
+        assertEquals(new BigDecimal("0.12"), execute("x", new MoneyContext(2, RoundingMode.HALF_EVEN), "x", 0.125));
+        assertEquals(new BigDecimal("0.13"), execute("x", new MoneyContext(2, RoundingMode.HALF_UP), "x", 0.125));
+        // 每一步结果都舍入：0.3333 * 3 = 0.9999，而不是 1
+        assertEquals(new BigDecimal("0.9999"), execute("1 / 3 * 3", HALF_UP));
+    }
+
+    @Test
+    void testComparisonsUseRoundedValues() {
+        String expression = "x > 0 ? 1 : 0";
+        assertEquals(1L, AviatorEvaluator.execute(expression, Collections.singletonMap("x", 0.00004)));
+        assertEquals(new BigDecimal("0.0000"), execute(expression, HALF_UP, "x", 0.00004));
+        assertEquals(new BigDecimal("1.0000"), execute(expression, HALF_UP, "x", 0.00005));
+        assertEquals(new BigDecimal("1.0000"), execute("a == b ? 1 : 0", HALF_UP, "a", 0.10001, "b", 0.1));
+        assertEquals(new BigDecimal("2.0000"), execute("min(a, b) + max(a, b) >= 2 && !(a < 0) ? 2 : 0", HALF_UP,
+                "a", 1, "b", 1.5));
+    }
+
+    @Test
+    void testMatchesStepwiseDecimalArithmetic() {
+        Random random = new Random(42);
+        for (RoundingMode rounding : new RoundingMode[] {RoundingMode.HALF_UP, RoundingMode.HALF_EVEN, RoundingMode.DOWN}) {
+            MoneyContext context = new MoneyContext(4, rounding);
+            MoneyFormula formula = MoneyFormula.compile("(price * quantity - discount) / rate", context);
+            for (int i = 0; i < 1000; i++) {
+                double price = random.nextInt(1000000) / 100.0;
+                long quantity = random.nextInt(100);
+                double discount = random.nextInt(10000) / 1000.0;
+                double rate = 1 + random.nextInt(999) / 100.0;
+                BigDecimal expected = context.toDecimal("price", price)
+                        .multiply(context.toDecimal("quantity", quantity)).setScale(4, rounding)
+                        .subtract(context.toDecimal("discount", discount))
+                        .divide(context.toDecimal("rate", rate), 4, rounding);
+                assertEquals(expected, formula.execute(env("price", price, "quantity", quantity,
+                        "discount", discount, "rate", rate)));
+            }
+        }
+    }
+
+    @Test
+    void testOverflowFallsBackToDecimal() {
+        MoneyFormula formula = MoneyFormula.compile("a * b", HALF_UP);
+        assertEquals(new BigDecimal("1000000000000000000.0000"),
+                formula.execute(env("a", 1000000000L, "b", 1000000000L)));
+        assertEquals(1, formula.getDecimalFallbackCount());
+    }
+
+    @Test
+    void testUnsupportedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("math.pow(x, 2)", HALF_UP));
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("x > 1", HALF_UP));
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("s =~ /a/ ? 1 : 0", HALF_UP));
+    }
+
+    @Test
+    void testTernaryBranchTypes() {
+        assertEquals(new BigDecimal("2.0000"),
+                execute("(x > 1 ? y > 0 : y < 0) ? 2 : 3", HALF_UP, "x", 2, "y", 1));
+        assertEquals(new BigDecimal("3.0000"),
+                execute("(x > 1 ? y > 0 : y < 0) ? 2 : 3", HALF_UP, "x", 0, "y", 1));
+        // 条件必须是布尔值，两个分支类型必须一致
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("x ? 1 : 2", HALF_UP));
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("x > 1 ? 1 : x > 2", HALF_UP));
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("x > 1 ? x > 2 : 1", HALF_UP));
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("-(x > 1)", HALF_UP));
+        assertThrows(IllegalArgumentException.class, () -> MoneyFormula.compile("!x + 1", HALF_UP));
+    }
+
+    private static BigDecimal execute(String expression, MoneyContext context, Object... keyValues) {
+        return MoneyFormula.compile(expression, context).execute(env(keyValues));
+    }
+
+    private static Map<String, Object> env(Object... keyValues) {
+        Map<String, Object> env = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            env.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return env;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.function.FunctionUtils;
+import com.googlecode.aviator.runtime.type.AviatorLong;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 常量折叠测试
+ *
+ * @author demo
+ */
+class ConstantFolderTest {
+
+    private final Set<String> pureFunctions = new HashSet<>(Arrays.asList("square", "string.length", "double"));
+
+    private AviatorEvaluatorInstance evaluator;
+
+    private ConstantFolder folder;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = AviatorEvaluator.newInstance();
+        evaluator.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "square";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+                long value = FunctionUtils.getNumberValue(arg1, env).longValue();
+                return AviatorLong.valueOf(value * value);
+            }
+        });
+        AtomicLong counter = new AtomicLong();
+        evaluator.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "next_id";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+                return AviatorLong.valueOf(counter.incrementAndGet() + FunctionUtils.getNumberValue(arg1, env).longValue());
+            }
+        });
+        folder = new ConstantFolder(pureFunctions::contains, evaluator::execute, () -> false);
+    }
+
+    @Test
+    void testFoldsNestedConstantCalls() {
+        assertEquals("25", folder.fold("square(square(2) + 1)"));
+        assertEquals("x + 9", folder.fold("x + square(3)"));
+        assertEquals("square(x) + 4", folder.fold("square(x) + square(2)"));
+    }
+
+    @Test
+    void testKeepsImpureCalls() {
+        assertEquals("next_id(4)", folder.fold("next_id(square(2))"));
+        assertEquals("next_id(1)", folder.fold("next_id(1)"));
+    }
+
+    @Test
+    void testStringsAreNotRewritten() {
+        assertEquals("'square(3)' + 9", folder.fold("'square(3)' + square(3)"));
+        assertEquals("4", folder.fold("string.length('a)(b')"));
+        assertEquals("string.length('#{x}')", folder.fold("string.length('#{x}')"));
+    }
+
+    @Test
+    void testRegexLiteralsAreNotRewritten() {
+        assertEquals("s =~ /square(3)/ && x == 4", folder.fold("s =~ /square(3)/ && x == square(2)"));
+        // 正则中的引号不能被当作字符串开始
+        assertEquals("s =~ /it's/ ? 4 : 0", folder.fold("s =~ /it's/ ? square(2) : 0"));
+        // 运算数之后的 / 是除号
+        assertEquals("16 / 2 / 1", folder.fold("square(4) / 2 / square(1)"));
+        assertEquals("(x) / 4", folder.fold("(x) / square(2)"));
+        assertEquals("s =~ /a\\/b(/", folder.fold("s =~ /a\\/b(/"));
+    }
+
+    @Test
+    void testCommentsAreNotRewritten() {
+        assertEquals("9 ## square(4) it's\n + 1", folder.fold("square(3) ## square(4) it's\n + 1"));
+        assertEquals("x ## square(2)", folder.fold("x ## square(2)"));
+    }
+
+    @Test
+    void testFoldedExpressionEvaluatesToSameResult() {
+        String expression = "## 注释 square(5)\nsquare(3) + (s =~ /x'y/ ? square(2) : 0) + string.length('it\\'s')";
+        String folded = folder.fold(expression);
+        assertNotEquals(expression, folded);
+        Map<String, Object> env = AviatorEvaluator.newEnv("s", "x'y");
+        assertEquals(evaluator.execute(expression, env), evaluator.execute(folded, env));
+    }
+
+    @Test
+    void testScriptsWithLocalFunctionsAreNotFolded() {
+        String script = "fn square(x) { x + 1 } square(2)";
+        assertSame(script, folder.fold(script));
+        String lambda = "map(seq.list(1), lambda(x) -> square(2) end)";
+        assertSame(lambda, folder.fold(lambda));
+    }
+}
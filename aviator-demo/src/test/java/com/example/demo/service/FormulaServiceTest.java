@@ -0,0 +1,243 @@
+package com.example.demo.service;
+
+import com.example.demo.model.FormulaColumns;
+import com.example.demo.store.FormulaSet;
+import com.example.demo.store.FormulaStore;
+import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 公式管理服务测试
+ *
+ * @author demo
+ */
+@SpringBootTest
+class FormulaServiceTest {
+
+    @Autowired
+    private FormulaService formulaService;
+
+    @Autowired
+    private FormulaStore formulaStore;
+
+    @Autowired
+    private AviatorService aviatorService;
+
+    @DynamicPropertySource
+    static void formulaStorePath(DynamicPropertyRegistry registry) {
+        registry.add("formula.store.path", () -> {
+            try {
+                return Files.createTempDirectory("formula-service-test").toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Test
+    void testAddFormulaSwapsSnapshot() {
+        long before = formulaService.getVersion();
+
+        formulaService.addFormula("double_it", "x * 2");
+
+        assertTrue(formulaService.getVersion() > before);
+        assertEquals("x * 2", formulaService.getAllFormulas().get("double_it"));
+        assertEquals(42L, formulaService.calculateByFormula("double_it", params("x", 21)));
+        assertEquals(formulaService.getVersion(), formulaStore.loadLatest().getVersion());
+    }
+
+    @Test
+    void testReloadSwitchesToLatestStoredVersion() throws Exception {
+        Map<String, String> formulas = new LinkedHashMap<>(formulaService.getAllFormulas());
+        formulas.put("reloaded", "x + 100");
+        FormulaSet saved = formulaStore.save(formulas);
+
+        assertTrue(saved.getVersion() > formulaService.getVersion());
+        assertEquals(saved.getVersion(), formulaService.reload().get());
+        assertEquals(saved.getVersion(), formulaService.getVersion());
+        assertEquals(101L, formulaService.calculateByFormula("reloaded", params("x", 1)));
+
+        // 已经是最新版本时不再切换
+        assertEquals(saved.getVersion(), formulaService.reload().get());
+    }
+
+    @Test
+    void testReloadKeepsSnapshotWhenFormulaFailsToCompile() throws Exception {
+        formulaService.addFormula("stable", "x - 1");
+        long current = formulaService.getVersion();
+        Map<String, String> formulas = new LinkedHashMap<>(formulaService.getAllFormulas());
+        formulas.put("stable", "x - 2");
+        formulas.put("broken", "x * (");
+        FormulaSet saved = formulaStore.save(formulas);
+
+        assertEquals(current, formulaService.reload().get());
+        assertTrue(saved.getVersion() > formulaService.getVersion());
+        assertFalse(formulaService.getAllFormulas().containsKey("broken"));
+        assertThrows(IllegalArgumentException.class, () -> formulaService.getFormula("broken"));
+        assertEquals(9L, formulaService.calculateByFormula("stable", params("x", 10)));
+    }
+
+    @Test
+    void testMemoizedFormulaHitsAndMisses() {
+        formulaService.addFormula("memo_area", "square(x) + 1");
+        formulaService.enableMemoization("memo_area", 100);
+
+        assertEquals(10.0, formulaService.calculateByFormula("memo_area", params("x", 3)));
+        assertEquals(10.0, formulaService.calculateByFormula("memo_area", params("x", 3)));
+        assertEquals(17.0, formulaService.calculateByFormula("memo_area", params("x", 4)));
+
+        Map<String, Object> stats = formulaService.getMemoStats("memo_area");
+        assertEquals(1L, stats.get("hitCount"));
+        assertEquals(2L, stats.get("missCount"));
+
+        formulaService.disableMemoization("memo_area");
+        assertThrows(IllegalArgumentException.class, () -> formulaService.getMemoStats("memo_area"));
+    }
+
+    @Test
+    void testMemoCacheRebuiltWhenFormulaChanges() throws Exception {
+        formulaService.addFormula("memo_changed", "square(x) + 1");
+        formulaService.enableMemoization("memo_changed", 100);
+        assertEquals(10.0, formulaService.calculateByFormula("memo_changed", params("x", 3)));
+
+        // 新版本的结果不能来自旧版本的缓存
+        formulaService.addFormula("memo_changed", "square(x) + 2");
+        assertEquals(11.0, formulaService.calculateByFormula("memo_changed", params("x", 3)));
+        assertEquals(0L, formulaService.getMemoStats("memo_changed").get("hitCount"));
+
+        Map<String, String> formulas = new LinkedHashMap<>(formulaService.getAllFormulas());
+        formulas.put("memo_changed", "square(x) + 3");
+        formulaStore.save(formulas);
+        formulaService.reload().get();
+        assertEquals(12.0, formulaService.calculateByFormula("memo_changed", params("x", 3)));
+        assertEquals(12.0, formulaService.calculateByFormula("memo_changed", params("x", 3)));
+        assertEquals(1L, formulaService.getMemoStats("memo_changed").get("hitCount"));
+    }
+
+    @Test
+    void testMemoizationRequiresPureFunctions() {
+        formulaService.addFormula("memo_now", "formatNow('yyyy') + x");
+        assertThrows(IllegalArgumentException.class, () -> formulaService.enableMemoization("memo_now", 100));
+
+        // 新版本调用了非纯函数时关闭结果缓存
+        formulaService.addFormula("memo_switch", "x * 2");
+        formulaService.enableMemoization("memo_switch", 100);
+        formulaService.addFormula("memo_switch", "formatNow('yyyy') + x");
+        assertNotNull(formulaService.calculateByFormula("memo_switch", params("x", 1)));
+        assertThrows(IllegalArgumentException.class, () -> formulaService.getMemoStats("memo_switch"));
+    }
+
+    @Test
+    void testPureFunctionGating() {
+        assertTrue(aviatorService.isPureFunction("square"));
+        assertTrue(aviatorService.isPureFunction("math.pow"));
+        assertFalse(aviatorService.isPureFunction("formatNow"));
+
+        aviatorService.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "memo_test_fn";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+                return arg1;
+            }
+        });
+        Expression expression = aviatorService.compile("memo_test_fn(x) + 1");
+        assertFalse(aviatorService.isPureFunction("memo_test_fn"));
+        assertThrows(IllegalArgumentException.class, () -> aviatorService.memoize(expression, 10));
+
+        aviatorService.markPure("memo_test_fn");
+        assertTrue(aviatorService.isPureFunction("memo_test_fn"));
+        assertEquals(3L, aviatorService.memoize(expression, 10).execute(params("x", 2)));
+
+        // 重新注册同名函数后需要重新声明
+        aviatorService.removeFunction("memo_test_fn");
+        assertFalse(aviatorService.isPureFunction("memo_test_fn"));
+    }
+
+    @Test
+    void testColumnarCalculationMatchesRowByRow() {
+        // 不是分块大小 4096 的整数倍，最后一块不满
+        int rows = 4096 * 2 + 123;
+        double[] price = new double[rows];
+        long[] quantity = new long[rows];
+        double[] rate = new double[rows];
+        boolean[] vip = new boolean[rows];
+        Random random = new Random(7);
+        for (int i = 0; i < rows; i++) {
+            price[i] = random.nextInt(100000) / 100.0;
+            quantity[i] = random.nextInt(50);
+            rate[i] = random.nextInt(30) / 100.0;
+            vip[i] = random.nextBoolean();
+        }
+        FormulaColumns columns = new FormulaColumns()
+                .addColumn("price", price)
+                .addColumn("quantity", quantity)
+                .addColumn("rate", rate)
+                .addColumn("vip", vip);
+        formulaService.addFormula("col_amount", "price * quantity * (1 - rate)");
+        formulaService.addFormula("col_units", "quantity * 2 + 1");
+        formulaService.addFormula("col_flag", "vip && price > 500");
+
+        double[] amounts = formulaService.batchCalculateDouble("col_amount", columns);
+        long[] units = formulaService.batchCalculateLong("col_units", columns);
+        boolean[] flags = formulaService.batchCalculateBoolean("col_flag", columns);
+
+        assertEquals(rows, amounts.length);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = params("price", price[i], "quantity", quantity[i], "rate", rate[i], "vip", vip[i]);
+            assertEquals(((Number) formulaService.calculateByFormula("col_amount", row)).doubleValue(), amounts[i]);
+            assertEquals(((Number) formulaService.calculateByFormula("col_units", row)).longValue(), units[i]);
+            assertEquals(formulaService.calculateByFormula("col_flag", row), flags[i]);
+        }
+    }
+
+    @Test
+    void testColumnarCalculationRejectsBadInput() {
+        formulaService.addFormula("col_check", "a + b");
+        FormulaColumns missing = new FormulaColumns().addColumn("a", new long[] {1, 2});
+        assertThrows(IllegalArgumentException.class, () -> formulaService.batchCalculateLong("col_check", missing));
+
+        FormulaColumns uneven = new FormulaColumns().addColumn("a", new long[] {1, 2}).addColumn("b", new long[] {1});
+        assertThrows(IllegalArgumentException.class, () -> formulaService.batchCalculateLong("col_check", uneven));
+
+        FormulaColumns numbers = new FormulaColumns().addColumn("a", new long[] {1}).addColumn("b", new long[] {2});
+        assertThrows(IllegalStateException.class, () -> formulaService.batchCalculateBoolean("col_check", numbers));
+    }
+
+    @Test
+    void testValidateFormula() {
+        assertTrue(formulaService.validateFormula("price * (1 - rate)"));
+        assertFalse(formulaService.validateFormula("price * (1 - "));
+        // 第二次命中负缓存，结果不变
+        assertFalse(formulaService.validateFormula("price * (1 - "));
+        assertFalse(formulaService.validateFormula("a +* b"));
+        assertTrue(formulaService.validateFormula("price * (1 - rate)"));
+    }
+
+    private static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+}
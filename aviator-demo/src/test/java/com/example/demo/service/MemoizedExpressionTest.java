@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.function.FunctionUtils;
+import com.googlecode.aviator.runtime.type.AviatorLong;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带结果缓存的表达式测试
+ *
+ * @author demo
+ */
+class MemoizedExpressionTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private AviatorEvaluatorInstance evaluator;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = AviatorEvaluator.newInstance();
+        // 记录调用次数，用来判断表达式是否真正执行
+        evaluator.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "tracked";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+                calls.incrementAndGet();
+                return AviatorLong.valueOf(FunctionUtils.getNumberValue(arg1, env).longValue() * 10);
+            }
+        });
+    }
+
+    @Test
+    void testHitAndMiss() {
+        MemoizedExpression memoized = new MemoizedExpression(evaluator.compile("tracked(a) + b"), 100);
+
+        assertEquals(12L, memoized.execute(env("a", 1, "b", 2)));
+        assertEquals(12L, memoized.execute(env("a", 1, "b", 2)));
+        assertEquals(23L, memoized.execute(env("a", 2, "b", 3)));
+        // 表达式未用到的变量不影响 key
+        assertEquals(12L, memoized.execute(env("a", 1, "b", 2, "unused", 99)));
+
+        assertEquals(2, calls.get());
+        Map<String, Object> stats = memoized.getStats();
+        assertEquals(2L, stats.get("hitCount"));
+        assertEquals(2L, stats.get("missCount"));
+        assertEquals(2L, stats.get("size"));
+        assertEquals(0L, stats.get("uncacheable"));
+    }
+
+    @Test
+    void testKeyDistinguishesValueTypes() {
+        MemoizedExpression memoized = new MemoizedExpression(evaluator.compile("tracked(a)"), 100);
+
+        memoized.execute(env("a", 1));
+        memoized.execute(env("a", 1L));
+        memoized.execute(env("a", new BigDecimal("1")));
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testNullResultIsCached() {
+        MemoizedExpression memoized = new MemoizedExpression(evaluator.compile("a > 0 ? tracked(a) : nil"), 100);
+
+        assertNull(memoized.execute(env("a", -1)));
+        assertNull(memoized.execute(env("a", -1)));
+        assertNull(memoized.execute(env("a", null)));
+        assertEquals(1L, memoized.getStats().get("hitCount"));
+    }
+
+    @Test
+    void testMutableArgumentsBypassCache() {
+        MemoizedExpression memoized = new MemoizedExpression(evaluator.compile("tracked(count(items))"), 100);
+        List<Integer> items = new ArrayList<>(Arrays.asList(1, 2));
+
+        assertEquals(20L, memoized.execute(env("items", items)));
+        items.add(3);
+        // 列表被修改后结果随之变化，而不是返回上次的缓存结果
+        assertEquals(30L, memoized.execute(env("items", items)));
+        assertEquals(20L, new MemoizedExpression(evaluator.compile("tracked(count(items))"), 100)
+                .execute(env("items", new int[] {1, 2})));
+
+        Map<String, Object> stats = memoized.getStats();
+        assertEquals(2L, stats.get("uncacheable"));
+        assertEquals(0L, stats.get("size"));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testInvalidate() {
+        MemoizedExpression memoized = new MemoizedExpression(evaluator.compile("tracked(a)"), 100);
+
+        memoized.execute(env("a", 1));
+        memoized.invalidate();
+        memoized.execute(env("a", 1));
+
+        assertEquals(2, calls.get());
+        assertEquals(0L, memoized.getStats().get("hitCount"));
+    }
+
+    private static Map<String, Object> env(Object... keyValues) {
+        Map<String, Object> env = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            env.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return env;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.runtime.type.AviatorRuntimeJavaType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NDJSON 流式计算服务测试
+ *
+ * @author demo
+ */
+class NdjsonScoringServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AviatorEvaluatorInstance evaluator = AviatorEvaluator.newInstance();
+
+    @Test
+    void testUnserializableResultOnlyFailsItsLine() throws IOException {
+        // 返回没有属性的对象，Jackson 序列化失败
+        evaluator.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "opaque";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env) {
+                return AviatorRuntimeJavaType.valueOf(new Object());
+            }
+        });
+        Expression expression = evaluator.compile("x > 0 ? x : opaque()");
+
+        List<JsonNode> lines = score(new NdjsonScoringService(objectMapper, 1024), expression,
+                "{\"x\": 1}\n{\"x\": 0}\n{\"x\": 2}\n");
+
+        assertEquals(3, lines.size());
+        assertEquals(1, lines.get(0).get("result").asInt());
+        assertEquals(2, lines.get(1).get("line").asInt());
+        assertFalse(lines.get(1).has("result"), lines.get(1).toString());
+        assertTrue(lines.get(1).get("error").isTextual());
+        assertEquals(2, lines.get(2).get("result").asInt());
+    }
+
+    @Test
+    void testLineLengthLimit() throws IOException {
+        Expression expression = evaluator.compile("x");
+        StringBuilder longLine = new StringBuilder("{\"x\": \"");
+        for (int i = 0; i < 10000; i++) {
+            longLine.append('a');
+        }
+        longLine.append("\"}");
+
+        // 刚好达到上限的记录和 \r\n 换行照常处理
+        String exact = "{\"x\": 12345}";
+        List<JsonNode> lines = score(new NdjsonScoringService(objectMapper, exact.length()), expression,
+                exact + "\r\n" + longLine + "\n\n{\"x\": 7}");
+
+        assertEquals(3, lines.size());
+        assertEquals(12345, lines.get(0).get("result").asInt());
+        assertEquals(2, lines.get(1).get("line").asInt());
+        assertTrue(lines.get(1).get("error").asText().contains(String.valueOf(exact.length())));
+        assertEquals(4, lines.get(2).get("line").asInt());
+        assertEquals(7, lines.get(2).get("result").asInt());
+    }
+
+    @Test
+    void testInvalidMaxLineLength() {
+        assertThrows(IllegalArgumentException.class, () -> new NdjsonScoringService(objectMapper, 0));
+    }
+
+    private List<JsonNode> score(NdjsonScoringService service, Expression expression, String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.score(expression, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
@@ -27,6 +27,14 @@ class PriceCalculationServiceTest {
         assertEquals(199.5, result, 0.01);
     }
 
+    @Test
+    void testCalculateFinalPriceIsDecimalExact() {
+        PriceCalculation calc = new PriceCalculation(19.99, 1, 0.15, 0.7, 0.2);
+
+        // (19.99 * 1 * 0.85 + 0.7) * 1.2 = 21.2298，double 运算为 21.229799999999997
+        assertEquals(21.2298, priceService.calculateFinalPrice(calc));
+    }
+
     @Test
     void testCalculateDiscountPrice() {
         Double result = priceService.calculateDiscountPrice(100.0, 0.2);
@@ -0,0 +1,182 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ShadowReport;
+import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 影子公式评估测试
+ *
+ * @author demo
+ */
+@SpringBootTest
+class ShadowEvaluationServiceTest {
+
+    @Autowired
+    private ShadowEvaluationService shadowEvaluationService;
+
+    @Autowired
+    private AviatorService aviatorService;
+
+    @DynamicPropertySource
+    static void formulaStorePath(DynamicPropertyRegistry registry) {
+        registry.add("formula.store.path", () -> {
+            try {
+                return Files.createTempDirectory("shadow-evaluation-test").toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Test
+    void testMismatchCounting() throws InterruptedException {
+        Expression active = aviatorService.compile("a");
+        // a <= 5 时结果为 Double，数值相等不算差异
+        shadowEvaluationService.startShadow("shadow_mismatch", "a > 5 ? a + 1 : a * 1.0", 1);
+        for (long a = 1; a <= 10; a++) {
+            shadowEvaluationService.offer("shadow_mismatch", active, params(a), a);
+        }
+
+        ShadowReport report = awaitProcessed("shadow_mismatch", 10);
+        assertEquals(10, report.getSamples());
+        assertEquals(5, report.getMismatches());
+        assertEquals(0, report.getCandidateErrors());
+        assertEquals(5, report.getRecentMismatches().size());
+        assertTrue(report.getRecentMismatches().get(0).contains("active=6, candidate=7"),
+                report.getRecentMismatches().get(0));
+        assertTrue(report.getRecentCandidateErrors().isEmpty());
+    }
+
+    @Test
+    void testCandidateErrorsAreNotMismatches() throws InterruptedException {
+        Expression active = aviatorService.compile("a");
+        shadowEvaluationService.startShadow("shadow_error", "a == 0 ? 100 / a : a", 1);
+        shadowEvaluationService.offer("shadow_error", active, params(0), 0L);
+        shadowEvaluationService.offer("shadow_error", active, params(0), 0L);
+        shadowEvaluationService.offer("shadow_error", active, params(4), 4L);
+        shadowEvaluationService.offer("shadow_error", active, params(0), 0L);
+
+        ShadowReport report = awaitProcessed("shadow_error", 4);
+        assertEquals(4, report.getSamples());
+        assertEquals(3, report.getCandidateErrors());
+        assertEquals(0, report.getMismatches());
+        assertTrue(report.getRecentMismatches().isEmpty());
+        assertEquals(3, report.getRecentCandidateErrors().size());
+        assertTrue(report.getRecentCandidateErrors().get(0).startsWith("{a=0} -> "),
+                report.getRecentCandidateErrors().get(0));
+    }
+
+    @Test
+    void testRecentMismatchesAreCapped() throws InterruptedException {
+        Expression active = aviatorService.compile("a");
+        shadowEvaluationService.startShadow("shadow_cap", "a + 1", 1);
+        for (long a = 0; a < 15; a++) {
+            shadowEvaluationService.offer("shadow_cap", active, params(a), a);
+        }
+
+        ShadowReport report = awaitProcessed("shadow_cap", 15);
+        assertEquals(15, report.getMismatches());
+        // 只保留最近 10 条，最早的 5 条被淘汰
+        List<String> recent = report.getRecentMismatches();
+        assertEquals(10, recent.size());
+        assertTrue(recent.get(0).startsWith("{a=5} -> "), recent.get(0));
+        assertTrue(recent.get(9).startsWith("{a=14} -> "), recent.get(9));
+    }
+
+    @Test
+    void testSampling() throws InterruptedException {
+        Expression active = aviatorService.compile("a");
+        shadowEvaluationService.startShadow("shadow_sampled", "a", 0.1);
+        int offers = 10000;
+        for (long a = 0; a < offers; a++) {
+            shadowEvaluationService.offer("shadow_sampled", active, params(a), a);
+        }
+        // 后台只有一个线程，按提交顺序执行；全采样公式的样本处理完时，之前提交的样本也已处理完
+        shadowEvaluationService.startShadow("shadow_barrier", "a", 1);
+        shadowEvaluationService.offer("shadow_barrier", active, params(0), 0L);
+        awaitProcessed("shadow_barrier", 1);
+
+        ShadowReport report = shadowEvaluationService.report("shadow_sampled", "a");
+        long sampled = report.getSamples() + report.getDropped();
+        // 期望 1000，标准差约 30
+        assertTrue(sampled > 800 && sampled < 1200, "sampled=" + sampled);
+        assertEquals(0, report.getMismatches());
+        // 没有候选版本的公式不采样
+        shadowEvaluationService.offer("shadow_none", active, params(0), 0L);
+        assertNull(shadowEvaluationService.report("shadow_none", "a"));
+    }
+
+    @Test
+    void testDropWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        aviatorService.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "shadowBlock";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return arg1;
+            }
+        });
+        Expression active = aviatorService.compile("a");
+        shadowEvaluationService.startShadow("shadow_full", "shadowBlock(a)", 1);
+        int offers = 1100;
+        try {
+            for (long a = 0; a < offers; a++) {
+                shadowEvaluationService.offer("shadow_full", active, params(a), a);
+            }
+        } finally {
+            release.countDown();
+        }
+
+        ShadowReport report = awaitProcessed("shadow_full", offers);
+        // 队列容量 1000，后台线程被阻塞期间最多再容纳正在执行的一个样本
+        assertTrue(report.getDropped() >= offers - 1001, "dropped=" + report.getDropped());
+        assertEquals(offers, report.getSamples() + report.getDropped());
+        assertEquals(0, report.getMismatches());
+    }
+
+    /**
+     * 等待后台处理完指定数量的样本（含丢弃的样本）
+     */
+    private ShadowReport awaitProcessed(String name, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            ShadowReport report = shadowEvaluationService.report(name, "a");
+            if (report.getSamples() + report.getDropped() >= expected) {
+                return report;
+            }
+            assertTrue(System.nanoTime() < deadline, "影子评估未在 30 秒内完成: " + name);
+            Thread.sleep(10);
+        }
+    }
+
+    private static Map<String, Object> params(long a) {
+        return Collections.singletonMap("a", a);
+    }
+}
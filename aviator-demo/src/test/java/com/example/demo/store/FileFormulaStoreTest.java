@@ -0,0 +1,101 @@
+package com.example.demo.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件公式存储测试
+ *
+ * @author demo
+ */
+class FileFormulaStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSaveAndLoadVersions() {
+        FileFormulaStore store = new FileFormulaStore(directory, 5, objectMapper);
+        assertNull(store.loadLatest());
+
+        assertEquals(1, store.save(Collections.singletonMap("a", "x + 1")).getVersion());
+        assertEquals(2, store.save(Collections.singletonMap("a", "x + 2")).getVersion());
+
+        assertEquals(Arrays.asList(1L, 2L), store.versions());
+        assertEquals("x + 1", store.load(1).getFormulas().get("a"));
+        assertEquals("x + 2", store.loadLatest().getFormulas().get("a"));
+        assertNull(store.load(3));
+        assertEquals(Collections.emptyList(), tempFiles());
+    }
+
+    @Test
+    void testPruneKeepsRecentVersions() {
+        FileFormulaStore store = new FileFormulaStore(directory, 2, objectMapper);
+        for (int i = 1; i <= 4; i++) {
+            store.save(Collections.singletonMap("a", "x + " + i));
+        }
+
+        assertEquals(Arrays.asList(3L, 4L), store.versions());
+    }
+
+    @Test
+    void testSaveNeverReplacesExistingVersion() {
+        FileFormulaStore other = new FileFormulaStore(directory, 5, objectMapper);
+        other.save(Collections.singletonMap("a", "written by another process"));
+
+        // 模拟两个进程同时读取到相同的版本列表：本实例看不到已经存在的 v1
+        AtomicBoolean stale = new AtomicBoolean(true);
+        FileFormulaStore store = new FileFormulaStore(directory, 5, objectMapper) {
+            @Override
+            public List<Long> versions() {
+                return stale.getAndSet(false) ? new ArrayList<>() : super.versions();
+            }
+        };
+
+        assertEquals(2, store.save(Collections.singletonMap("a", "x + 2")).getVersion());
+        assertEquals("written by another process", store.load(1).getFormulas().get("a"));
+        assertEquals("x + 2", store.load(2).getFormulas().get("a"));
+        assertEquals(Collections.emptyList(), tempFiles());
+    }
+
+    @Test
+    void testFailedWriteLeavesNoFiles() {
+        ObjectMapper failing = new ObjectMapper() {
+            @Override
+            public void writeValue(File resultFile, Object value) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        FileFormulaStore store = new FileFormulaStore(directory, 5, failing);
+
+        assertThrows(UncheckedIOException.class, () -> store.save(Collections.singletonMap("a", "x")));
+        assertEquals(Collections.emptyList(), store.versions());
+        assertEquals(Collections.emptyList(), tempFiles());
+    }
+
+    private List<Path> tempFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
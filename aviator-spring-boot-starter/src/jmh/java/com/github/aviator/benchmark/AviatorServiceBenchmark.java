@@ -0,0 +1,202 @@
+package com.github.aviator.benchmark;
+
+import com.github.aviator.autoconfigure.AviatorProperties;
+import com.github.aviator.ruleset.RuleSet;
+import com.github.aviator.ruleset.RuleSetResult;
+import com.github.aviator.service.AviatorService;
+import com.github.aviator.service.CompiledFormula;
+import com.googlecode.aviator.EvalMode;
+import com.googlecode.aviator.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AviatorService} 基准测试
+ * <p>
+ * 覆盖 starter 提供的各条执行路径：Caffeine 编译缓存、Bean 环境适配器、
+ * {@link CompiledFormula} 的槽位环境与基本类型求值，以及共享子表达式的规则集。
+ *
+ * @author Aviator Starter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class AviatorServiceBenchmark {
+
+    @Param({"ASM", "INTERPRETER"})
+    public EvalMode evalMode;
+
+    private AviatorService aviatorService;
+
+    private Order order;
+
+    private Map<String, Object> orderEnv;
+
+    private Object[] loanVariables;
+
+    private CompiledFormula priceFormula;
+
+    private Map<String, String> rules;
+
+    private RuleSet loanRules;
+
+    @Setup
+    public void setUp() {
+        AviatorProperties properties = new AviatorProperties();
+        properties.setEnable(true);
+        properties.setCacheEnabled(true);
+        properties.setCacheSize(1000);
+        properties.setOptimizeEnabled(true);
+        aviatorService = new AviatorService(properties);
+        aviatorService.init();
+        aviatorService.setOption(Options.EVAL_MODE, evalMode);
+
+        order = new Order(19.99, 3, 0.15, 8.0, 0.06);
+        orderEnv = EngineBenchmark.toHashMap(EngineBenchmark.variablesOf("price"));
+        loanVariables = EngineBenchmark.variablesOf("eligibility");
+        priceFormula = aviatorService.compileFormula(EngineBenchmark.PRICE,
+            "price", "quantity", "discount", "shipping", "tax");
+
+        rules = new LinkedHashMap<>();
+        rules.put("eligible", EngineBenchmark.ELIGIBILITY);
+        rules.put("prime", "age >= 18 && age <= 65 && credit >= 750 && income >= amount * 0.2");
+        rules.put("review", "age >= 18 && age <= 65 && !(credit >= 600) && collateral");
+        loanRules = aviatorService.compileRuleSet(rules);
+    }
+
+    /**
+     * 命中 Caffeine 编译缓存后执行
+     */
+    @Benchmark
+    public Object execute() {
+        return aviatorService.execute(EngineBenchmark.PRICE, orderEnv);
+    }
+
+    /**
+     * 四个线程同时命中 Caffeine 编译缓存
+     */
+    @Benchmark
+    @Threads(4)
+    public Object executeParallel() {
+        return aviatorService.execute(EngineBenchmark.PRICE, orderEnv);
+    }
+
+    /**
+     * 每次调用新建 HashMap 作为环境
+     */
+    @Benchmark
+    public Object executeWithHashMap() {
+        return aviatorService.execute(EngineBenchmark.PRICE,
+            EngineBenchmark.toHashMap(EngineBenchmark.variablesOf("price")));
+    }
+
+    /**
+     * 通过 Bean 环境适配器读取属性，不复制到 Map
+     */
+    @Benchmark
+    public Object executeBean() {
+        return aviatorService.executeBean(EngineBenchmark.PRICE, order);
+    }
+
+    /**
+     * 槽位环境，线程内复用
+     */
+    @Benchmark
+    public Object executeSlotEnv() {
+        return priceFormula.execute(priceFormula.localEnv()
+            .set(0, order.getPrice())
+            .set(1, order.getQuantity())
+            .set(2, order.getDiscount())
+            .set(3, order.getShipping())
+            .set(4, order.getTax()));
+    }
+
+    /**
+     * 基本类型求值，不经过 Aviator
+     */
+    @Benchmark
+    public double executePrimitive() {
+        return priceFormula.executeDouble(order.getPrice(), order.getQuantity(), order.getDiscount(),
+            order.getShipping(), order.getTax());
+    }
+
+    /**
+     * 三条规则逐条执行
+     */
+    @Benchmark
+    public int executeRulesOneByOne() {
+        Map<String, Object> env = EngineBenchmark.toHashMap(loanVariables);
+        int matched = 0;
+        for (String rule : rules.values()) {
+            if (aviatorService.executeBoolean(rule, env)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 三条规则作为规则集执行，相同的子表达式只计算一次
+     */
+    @Benchmark
+    public RuleSetResult executeRuleSet() {
+        return loanRules.evaluate(EngineBenchmark.toHashMap(loanVariables));
+    }
+
+    /**
+     * 订单，供 {@link AviatorService#executeBean(String, Object)} 读取
+     */
+    public static class Order {
+
+        private final double price;
+        private final int quantity;
+        private final double discount;
+        private final double shipping;
+        private final double tax;
+
+        public Order(double price, int quantity, double discount, double shipping, double tax) {
+            this.price = price;
+            this.quantity = quantity;
+            this.discount = discount;
+            this.shipping = shipping;
+            this.tax = tax;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getDiscount() {
+            return discount;
+        }
+
+        public double getShipping() {
+            return shipping;
+        }
+
+        public double getTax() {
+            return tax;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.aviator.benchmark;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.EvalMode;
+import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aviator 引擎基准测试，只依赖 Aviator 本身的 API
+ * <p>
+ * 对比编译与缓存执行、解释器与 ASM 两种求值模式，以及不同环境 Map 的开销。
+ * 通过 {@code -PaviatorVersion=5.4.3} 切换引擎版本后重新运行，即可得到升级前后的对照数据。
+ *
+ * @author Aviator Starter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class EngineBenchmark {
+
+    /**
+     * 价格公式：算术运算
+     */
+    static final String PRICE = "(price * quantity * (1 - discount) + shipping) * (1 + tax)";
+
+    /**
+     * 贷款资格规则：比较、逻辑与三元运算
+     */
+    static final String ELIGIBILITY = "age >= 18 && age <= 65 && income >= amount * 0.1 && "
+        + "(collateral ? credit >= 550 : credit >= 600) && years >= 1";
+
+    /**
+     * 成绩等级：嵌套三元运算，结果为字符串
+     */
+    static final String GRADE = "score >= 90 ? 'A' : (score >= 80 ? 'B' : (score >= 70 ? 'C' : (score >= 60 ? 'D' : 'F')))";
+
+    @Param({"ASM", "INTERPRETER"})
+    public EvalMode evalMode;
+
+    @Param({"false", "true"})
+    public boolean decimal;
+
+    @Param({"price", "eligibility", "grade"})
+    public String workload;
+
+    private AviatorEvaluatorInstance evaluator;
+
+    private String expression;
+
+    private Expression compiled;
+
+    private Object[] variables;
+
+    private Map<String, Object> sharedEnv;
+
+    @Setup
+    public void setUp() {
+        evaluator = AviatorEvaluator.newInstance(evalMode);
+        evaluator.setOption(Options.ALWAYS_PARSE_FLOATING_POINT_NUMBER_INTO_DECIMAL, decimal);
+        expression = expressionOf(workload);
+        variables = variablesOf(workload);
+        compiled = evaluator.compile(expression, true);
+        sharedEnv = toHashMap(variables);
+    }
+
+    /**
+     * 每次调用都解析并生成代码，不使用缓存
+     */
+    @Benchmark
+    public Expression compile() {
+        return evaluator.compile(expression, false);
+    }
+
+    /**
+     * 引擎内置的编译缓存命中
+     */
+    @Benchmark
+    public Object executeCached() {
+        return evaluator.compile(expression, true).execute(sharedEnv);
+    }
+
+    /**
+     * 四个线程同时命中编译缓存
+     */
+    @Benchmark
+    @Threads(4)
+    public Object executeCachedParallel() {
+        return evaluator.compile(expression, true).execute(sharedEnv);
+    }
+
+    /**
+     * 预编译表达式，环境 Map 复用，只包含求值本身的开销
+     */
+    @Benchmark
+    public Object executeCompiled() {
+        return compiled.execute(sharedEnv);
+    }
+
+    /**
+     * 预编译表达式，每次调用新建 HashMap 作为环境（业务代码最常见的写法）
+     */
+    @Benchmark
+    public Object executeWithHashMap() {
+        return compiled.execute(toHashMap(variables));
+    }
+
+    /**
+     * 预编译表达式，每次调用通过 {@link Expression#newEnv(Object...)} 创建环境
+     */
+    @Benchmark
+    public Object executeWithNewEnv() {
+        return compiled.execute(compiled.newEnv(variables));
+    }
+
+    static String expressionOf(String workload) {
+        switch (workload) {
+            case "price":
+                return PRICE;
+            case "eligibility":
+                return ELIGIBILITY;
+            case "grade":
+                return GRADE;
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+    }
+
+    /**
+     * 变量按 name, value 交替排列，与 {@link Expression#newEnv(Object...)} 的参数格式一致
+     */
+    static Object[] variablesOf(String workload) {
+        switch (workload) {
+            case "price":
+                return new Object[] {"price", 19.99, "quantity", 3, "discount", 0.15, "shipping", 8.0, "tax", 0.06};
+            case "eligibility":
+                return new Object[] {"age", 35, "income", 12000.0, "amount", 50000.0, "credit", 680,
+                    "collateral", Boolean.TRUE, "years", 5};
+            case "grade":
+                return new Object[] {"score", 76};
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+    }
+
+    static Map<String, Object> toHashMap(Object[] variables) {
+        Map<String, Object> env = new HashMap<>();
+        for (int i = 0; i < variables.length; i += 2) {
+            env.put((String) variables[i], variables[i + 1]);
+        }
+        return env;
+    }
+}
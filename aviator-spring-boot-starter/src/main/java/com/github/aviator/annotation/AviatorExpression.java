@@ -0,0 +1,45 @@
+package com.github.aviator.annotation;
+
+import com.github.aviator.service.AviatorService;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明在启动阶段预编译的表达式
+ * <p>
+ * 标注在类型为 {@link com.googlecode.aviator.Expression} 或
+ * {@link com.github.aviator.service.CompiledFormula} 的字段或单参数 setter 方法上，
+ * 由 {@link AviatorExpressionBeanPostProcessor} 在 Bean 初始化前编译并注入。
+ * 表达式有语法错误时应用启动失败，热路径上直接持有编译结果，不再按源码查找缓存。
+ *
+ * <pre>
+ * &#64;AviatorExpression("credit >= 650 &amp;&amp; income >= 5000")
+ * private Expression loanEligibility;
+ * </pre>
+ *
+ * @author Aviator Starter
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AviatorExpression {
+
+    /**
+     * 表达式源码，支持 {@code ${...}} 占位符
+     */
+    String value();
+
+    /**
+     * 编译所用的引擎名称，默认为默认引擎
+     */
+    String engine() default AviatorService.DEFAULT_ENGINE;
+
+    /**
+     * 注入 CompiledFormula 时的变量槽位顺序，为空时使用表达式中变量出现的顺序
+     */
+    String[] variables() default {};
+}
@@ -0,0 +1,136 @@
+package com.github.aviator.annotation;
+
+import com.github.aviator.service.AviatorEngineRegistry;
+import com.github.aviator.service.AviatorService;
+import com.github.aviator.service.CompiledFormula;
+import com.googlecode.aviator.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 处理 {@link AviatorExpression}，在 Bean 初始化前编译表达式并注入字段或 setter
+ * <p>
+ * 表达式通过对应引擎的 {@code compile(expression, true)} 编译，同时进入该引擎的编译缓存和启动预热；
+ * 编译失败时抛出 {@link BeanCreationException}，应用启动失败。
+ *
+ * @author Aviator Starter
+ */
+public class AviatorExpressionBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(AviatorExpressionBeanPostProcessor.class);
+
+    /**
+     * 每个类上需要注入的成员，避免原型 Bean 重复反射扫描
+     */
+    private final Map<Class<?>, List<Member>> injectionPoints = new ConcurrentHashMap<>();
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        List<Member> members = injectionPoints.computeIfAbsent(targetClass, this::findInjectionPoints);
+        for (Member member : members) {
+            inject(bean, beanName, member);
+        }
+        return bean;
+    }
+
+    private List<Member> findInjectionPoints(Class<?> targetClass) {
+        List<Member> members = new ArrayList<>();
+        ReflectionUtils.doWithFields(targetClass, field -> {
+            if (AnnotatedElementUtils.hasAnnotation(field, AviatorExpression.class)) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    throw new IllegalStateException("@AviatorExpression is not supported on static or final field: "
+                        + field);
+                }
+                checkType(field.getType(), field);
+                members.add(field);
+            }
+        });
+        ReflectionUtils.doWithMethods(targetClass, method -> {
+            if (AnnotatedElementUtils.hasAnnotation(method, AviatorExpression.class) && !method.isBridge()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1) {
+                    throw new IllegalStateException(
+                        "@AviatorExpression is only supported on single-argument instance methods: " + method);
+                }
+                checkType(method.getParameterTypes()[0], method);
+                members.add(method);
+            }
+        });
+        return members.isEmpty() ? Collections.<Member>emptyList() : members;
+    }
+
+    private void checkType(Class<?> type, Member member) {
+        if (type != Expression.class && type != CompiledFormula.class) {
+            throw new IllegalStateException("@AviatorExpression target must be of type Expression or CompiledFormula: "
+                + member);
+        }
+    }
+
+    private void inject(Object bean, String beanName, Member member) {
+        AviatorExpression annotation = member instanceof Field
+            ? AnnotatedElementUtils.findMergedAnnotation((Field) member, AviatorExpression.class)
+            : AnnotatedElementUtils.findMergedAnnotation((Method) member, AviatorExpression.class);
+        String expression = annotation.value();
+        Class<?> type = member instanceof Field
+            ? ((Field) member).getType()
+            : ((Method) member).getParameterTypes()[0];
+
+        Object value;
+        try {
+            expression = resolvePlaceholders(expression);
+            AviatorService engine = beanFactory.getBean(AviatorEngineRegistry.class).getEngine(annotation.engine());
+            value = type == CompiledFormula.class
+                ? engine.compileFormula(expression, annotation.variables())
+                : engine.compile(expression, true);
+        } catch (RuntimeException e) {
+            throw new BeanCreationException(beanName,
+                "Invalid @AviatorExpression on " + member + ": " + expression, e);
+        }
+
+        if (member instanceof Field) {
+            Field field = (Field) member;
+            ReflectionUtils.makeAccessible(field);
+            ReflectionUtils.setField(field, bean, value);
+        } else {
+            Method method = (Method) member;
+            ReflectionUtils.makeAccessible(method);
+            ReflectionUtils.invokeMethod(method, bean, value);
+        }
+        logger.debug("Injected precompiled expression into {}.{} on engine [{}]: {}",
+            beanName, member.getName(), annotation.engine(), expression);
+    }
+
+    private String resolvePlaceholders(String expression) {
+        if (beanFactory instanceof ConfigurableBeanFactory) {
+            String resolved = ((ConfigurableBeanFactory) beanFactory).resolveEmbeddedValue(expression);
+            return resolved != null ? resolved : expression;
+        }
+        return expression;
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.aviator.annotation;
+
+import com.github.aviator.service.AviatorService;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 把普通 Java 方法声明为 Aviator 函数
+ * <p>
+ * 标注在 Spring Bean 的实例方法或静态方法上，由 {@link AviatorFunctionBeanPostProcessor} 在 Bean 初始化后注册；
+ * 不在容器中的工具类可以通过 {@link AviatorService#addFunctions(Class)} 注册其中的静态方法。
+ * 方法在启动时绑定为直接调用，参数和返回值的转换见 {@link com.github.aviator.function.MethodFunctions}。
+ *
+ * <pre>
+ * &#64;AviatorFunction("math.pow")
+ * public static double pow(double base, double exponent) {
+ *     return Math.pow(base, exponent);
+ * }
+ * </pre>
+ *
+ * @author Aviator Starter
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AviatorFunction {
+
+    /**
+     * 函数名，为空时使用方法名
+     */
+    String value() default "";
+
+    /**
+     * 注册到的引擎名称，默认为默认引擎
+     */
+    String engine() default AviatorService.DEFAULT_ENGINE;
+}
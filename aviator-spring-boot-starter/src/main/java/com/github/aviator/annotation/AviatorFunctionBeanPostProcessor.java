@@ -0,0 +1,64 @@
+package com.github.aviator.annotation;
+
+import com.github.aviator.function.MethodFunctions;
+import com.github.aviator.service.AviatorEngineRegistry;
+import com.github.aviator.service.AviatorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 处理 {@link AviatorFunction}，在 Bean 初始化后把标注的方法绑定为函数并注册到对应引擎
+ * <p>
+ * 在初始化后处理，实例方法通过 AOP 代理调用；方法签名不受支持时抛出 {@link BeanCreationException}，应用启动失败。
+ *
+ * @author Aviator Starter
+ */
+public class AviatorFunctionBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(AviatorFunctionBeanPostProcessor.class);
+
+    /**
+     * 每个类上标注的方法，避免原型 Bean 重复反射扫描
+     */
+    private final Map<Class<?>, Map<Method, AviatorFunction>> functionMethods = new ConcurrentHashMap<>();
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Map<Method, AviatorFunction> methods = functionMethods.computeIfAbsent(targetClass, type -> {
+            Map<Method, AviatorFunction> found = MethodFunctions.findAnnotatedMethods(type);
+            return found.isEmpty() ? Collections.<Method, AviatorFunction>emptyMap() : found;
+        });
+        for (Map.Entry<Method, AviatorFunction> entry : methods.entrySet()) {
+            Method method = entry.getKey();
+            String engineName = entry.getValue().engine();
+            try {
+                AviatorService engine = beanFactory.getBean(AviatorEngineRegistry.class).getEngine(engineName);
+                engine.addFunction(MethodFunctions.bind(method, bean));
+            } catch (RuntimeException e) {
+                throw new BeanCreationException(beanName, "Invalid @AviatorFunction on " + method, e);
+            }
+            logger.debug("Registered Aviator function from {}.{} on engine [{}]", beanName, method.getName(),
+                engineName);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.aviator.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定 Bean 属性在表达式中的变量名
+ * <p>
+ * 标注在字段或 getter 方法上，由 {@link com.github.aviator.env.BeanEnvAdapter} 读取。
+ * 未标注的属性使用 JavaBean 属性名。
+ *
+ * <pre>
+ * &#64;AviatorVariable("credit")
+ * private Integer creditScore;
+ * </pre>
+ *
+ * @author Aviator Starter
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AviatorVariable {
+
+    /**
+     * 表达式中使用的变量名
+     */
+    String value();
+}
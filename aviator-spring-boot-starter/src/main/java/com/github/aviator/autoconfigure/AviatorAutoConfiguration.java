@@ -1,8 +1,27 @@
 package com.github.aviator.autoconfigure;
 
+import com.github.aviator.annotation.AviatorExpressionBeanPostProcessor;
+import com.github.aviator.annotation.AviatorFunctionBeanPostProcessor;
+import com.github.aviator.cache.CaffeineExpressionCacheFactory;
+import com.github.aviator.cache.ExpressionCacheFactory;
+import com.github.aviator.cache.ExpressionEvictionListener;
+import com.github.aviator.env.BeanEnvAdapter;
+import com.github.aviator.executor.AviatorExecutorFactory;
+import com.github.aviator.metrics.AviatorMetrics;
+import com.github.aviator.metrics.MicrometerAviatorMetrics;
+import com.github.aviator.service.AviatorEngineRegistry;
 import com.github.aviator.service.AviatorService;
+import com.github.aviator.service.AviatorServiceCustomizer;
+import com.github.aviator.time.DateTimeFunctions;
+import com.github.aviator.warmup.AviatorWarmup;
+import com.github.aviator.warmup.AviatorWarmupHealthIndicator;
+import com.github.aviator.warmup.WarmupExpressionProvider;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -10,6 +29,13 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 /**
  * Aviator 自动配置类
  * 
@@ -27,18 +53,224 @@ public class AviatorAutoConfiguration {
         logger.info("Aviator auto-configuration is being initialized...");
     }
 
+    /**
+     * 创建默认的表达式缓存工厂，容器中的 ExpressionEvictionListener 会注册到每个引擎的缓存上
+     * 
+     * @param listeners 缓存淘汰监听器
+     * @return ExpressionCacheFactory 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ExpressionCacheFactory expressionCacheFactory(ObjectProvider<ExpressionEvictionListener> listeners) {
+        return new CaffeineExpressionCacheFactory(listeners.orderedStream().collect(Collectors.toList()));
+    }
+
     /**
      * 创建 AviatorService Bean
      * 
      * @param properties Aviator 配置属性
+     * @param cacheFactory 表达式缓存工厂
+     * @param customizers 引擎定制器
      * @return AviatorService 实例
      */
     @Bean
     @ConditionalOnMissingBean
-    public AviatorService aviatorService(AviatorProperties properties) {
+    public AviatorService aviatorService(AviatorProperties properties, ExpressionCacheFactory cacheFactory,
+                                         ObjectProvider<AviatorServiceCustomizer> customizers) {
         logger.info("Creating AviatorService bean with properties: enable={}, cacheEnabled={}, cacheSize={}", 
             properties.isEnable(), properties.isCacheEnabled(), properties.getCacheSize());
-        return new AviatorService(properties);
+        AviatorService service = new AviatorService(AviatorService.DEFAULT_ENGINE, properties, cacheFactory);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(service));
+        generateBeanEnvAdapters(properties.getEnv().getBeanTypes());
+        return service;
+    }
+
+    /**
+     * 在启动阶段为 aviator.env.bean-types 中的类型生成环境适配器，避免首次请求时内省
+     */
+    private static void generateBeanEnvAdapters(List<Class<?>> beanTypes) {
+        for (Class<?> beanType : beanTypes) {
+            BeanEnvAdapter<?> adapter = BeanEnvAdapter.forClass(beanType);
+            logger.info("Aviator bean env adapter generated for {}: {}", beanType.getName(), adapter.getVariableNames());
+        }
+    }
+
+    /**
+     * 创建 Aviator 引擎注册表，包含默认引擎以及 aviator.engines.* 下配置的命名引擎
+     * 
+     * @param aviatorService 默认引擎
+     * @param properties Aviator 配置属性
+     * @param cacheFactory 表达式缓存工厂
+     * @param customizers 引擎定制器
+     * @return AviatorEngineRegistry 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AviatorEngineRegistry aviatorEngineRegistry(AviatorService aviatorService, AviatorProperties properties,
+                                                       ExpressionCacheFactory cacheFactory,
+                                                       ObjectProvider<AviatorServiceCustomizer> customizers) {
+        logger.info("Creating AviatorEngineRegistry bean with named engines: {}", properties.getEngines().keySet());
+        List<AviatorServiceCustomizer> customizerList = customizers.orderedStream().collect(Collectors.toList());
+        return new AviatorEngineRegistry(aviatorService, properties.getEngines(), cacheFactory, customizerList);
+    }
+
+    /**
+     * 处理 {@code @AviatorExpression}，在 Bean 初始化前注入预编译的表达式
+     * <p>
+     * 声明为 static，避免 BeanPostProcessor 提前实例化自动配置类；引擎注册表在处理 Bean 时才获取。
+     * 
+     * @return AviatorExpressionBeanPostProcessor 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public static AviatorExpressionBeanPostProcessor aviatorExpressionBeanPostProcessor() {
+        return new AviatorExpressionBeanPostProcessor();
+    }
+
+    /**
+     * 把 Bean 上标注了 {@code @AviatorFunction} 的方法注册为函数
+     * <p>
+     * 与 {@link #aviatorExpressionBeanPostProcessor()} 一样声明为 static，引擎注册表在处理 Bean 时才获取。
+     * 
+     * @return AviatorFunctionBeanPostProcessor 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public static AviatorFunctionBeanPostProcessor aviatorFunctionBeanPostProcessor() {
+        return new AviatorFunctionBeanPostProcessor();
+    }
+
+    /**
+     * 创建批量执行使用的 ForkJoinPool，与公共池隔离，避免批量任务挤占其他并行流
+     * 
+     * @param properties Aviator 配置属性
+     * @return ForkJoinPool 实例
+     */
+    @Bean(name = "aviatorBatchPool", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "aviatorBatchPool")
+    public ForkJoinPool aviatorBatchPool(AviatorProperties properties) {
+        return new ForkJoinPool(properties.getBatch().getParallelism());
+    }
+
+    /**
+     * 将批量执行线程池和切分大小应用到所有引擎
+     * 
+     * @param aviatorBatchPool 批量执行线程池
+     * @param properties Aviator 配置属性
+     * @return AviatorServiceCustomizer 实例
+     */
+    @Bean
+    public AviatorServiceCustomizer aviatorBatchCustomizer(@Qualifier("aviatorBatchPool") ForkJoinPool aviatorBatchPool,
+                                                          AviatorProperties properties) {
+        return service -> {
+            service.setBatchPool(aviatorBatchPool);
+            service.setBatchChunkSize(properties.getBatch().getChunkSize());
+        };
+    }
+
+    /**
+     * 创建异步执行使用的有界线程池，避免表达式求值占用 Web 容器的请求线程
+     * 
+     * @param properties Aviator 配置属性
+     * @return ExecutorService 实例
+     */
+    @Bean(name = "aviatorAsyncExecutor", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "aviatorAsyncExecutor")
+    public ExecutorService aviatorAsyncExecutor(AviatorProperties properties) {
+        AviatorProperties.Executor executor = properties.getExecutor();
+        logger.info("Creating Aviator async executor: coreSize={}, maxSize={}, queueCapacity={}, rejectionPolicy={}",
+            executor.getCoreSize(), executor.getMaxSize(), executor.getQueueCapacity(), executor.getRejectionPolicy());
+        return AviatorExecutorFactory.create(executor);
     }
-}
 
+    /**
+     * 将异步执行线程池应用到所有引擎
+     * 
+     * @param aviatorAsyncExecutor 异步执行线程池
+     * @return AviatorServiceCustomizer 实例
+     */
+    @Bean
+    public AviatorServiceCustomizer aviatorAsyncCustomizer(
+            @Qualifier("aviatorAsyncExecutor") ExecutorService aviatorAsyncExecutor) {
+        return service -> service.setAsyncExecutor(aviatorAsyncExecutor);
+    }
+
+    /**
+     * 向所有引擎注册 date.* 日期函数，容器中存在 {@link Clock} Bean 时以其作为当前时间来源
+     * 
+     * @param properties Aviator 配置属性
+     * @param clock 时钟
+     * @return AviatorServiceCustomizer 实例
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "aviator.date-functions", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AviatorServiceCustomizer aviatorDateFunctionsCustomizer(AviatorProperties properties,
+                                                                  ObjectProvider<Clock> clock) {
+        AviatorProperties.DateFunctions config = properties.getDateFunctions();
+        ZoneId zone = config.getZone() != null ? config.getZone() : ZoneId.systemDefault();
+        Clock source = clock.getIfUnique(() -> Clock.system(zone));
+        DateTimeFunctions functions = new DateTimeFunctions(source.withZone(zone), config.getHolidays(),
+            config.getFormatterCacheSize());
+        return functions::register;
+    }
+
+    /**
+     * 创建启动预热 Runner，预热完成前应用不会进入 ACCEPTING_TRAFFIC 状态
+     * 
+     * @param engineRegistry 引擎注册表
+     * @param properties Aviator 配置属性
+     * @param providers 预热表达式提供者
+     * @return AviatorWarmup 实例
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "aviator.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AviatorWarmup aviatorWarmup(AviatorEngineRegistry engineRegistry, AviatorProperties properties,
+                                       ObjectProvider<WarmupExpressionProvider> providers) {
+        return new AviatorWarmup(engineRegistry, properties.getWarmup(),
+            providers.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * 预热健康检查配置，仅在引入 Actuator 时生效
+     */
+    @Configuration
+    @ConditionalOnClass(HealthIndicator.class)
+    @ConditionalOnProperty(prefix = "aviator.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class AviatorWarmupHealthConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(name = "aviatorWarmupHealthIndicator")
+        public AviatorWarmupHealthIndicator aviatorWarmupHealthIndicator(AviatorWarmup aviatorWarmup) {
+            return new AviatorWarmupHealthIndicator(aviatorWarmup);
+        }
+    }
+
+    /**
+     * Micrometer 指标配置，仅在类路径中存在 Micrometer 时生效；容器中没有 MeterRegistry 时不记录指标
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "aviator.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class AviatorMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AviatorMetrics aviatorMetrics(ObjectProvider<MeterRegistry> meterRegistry, AviatorProperties properties) {
+            MeterRegistry registry = meterRegistry.getIfUnique();
+            if (registry == null) {
+                logger.info("No MeterRegistry found, Aviator metrics disabled");
+                return AviatorMetrics.NOOP;
+            }
+            AviatorProperties.Metrics metrics = properties.getMetrics();
+            logger.info("Aviator metrics enabled, max expression tags: {}", metrics.getMaxExpressionTags());
+            return new MicrometerAviatorMetrics(registry, metrics.getMaxExpressionTags(),
+                metrics.getExpressionTagLength());
+        }
+
+        @Bean
+        public AviatorServiceCustomizer aviatorMetricsCustomizer(AviatorMetrics aviatorMetrics) {
+            return service -> service.setMetrics(aviatorMetrics);
+        }
+    }
+}
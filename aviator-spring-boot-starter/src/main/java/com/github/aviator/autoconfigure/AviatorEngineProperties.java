@@ -0,0 +1,231 @@
+package com.github.aviator.autoconfigure;
+
+import java.time.Duration;
+
+/**
+ * 单个 Aviator 引擎的配置属性
+ * <p>
+ * 顶层的 {@code aviator.*} 用于默认引擎，{@code aviator.engines.<name>.*} 用于命名引擎，
+ * 两者结构相同，命名引擎中未配置的项使用默认值。
+ *
+ * @author Aviator Starter
+ */
+public class AviatorEngineProperties {
+
+    /**
+     * 是否开启表达式编译缓存，默认为 true
+     */
+    private boolean cacheEnabled = true;
+
+    /**
+     * 表达式编译缓存大小，默认 1000
+     */
+    private int cacheSize = 1000;
+
+    /**
+     * 是否优化表达式执行，默认为 true
+     */
+    private boolean optimizeEnabled = true;
+
+    /**
+     * 是否允许追踪求值过程，默认为 false
+     */
+    private boolean traceEnabled = false;
+
+    /**
+     * 表达式编译缓存的高级配置
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * 求值资源限制
+     */
+    private final Limits limits = new Limits();
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public boolean isOptimizeEnabled() {
+        return optimizeEnabled;
+    }
+
+    public void setOptimizeEnabled(boolean optimizeEnabled) {
+        this.optimizeEnabled = optimizeEnabled;
+    }
+
+    public boolean isTraceEnabled() {
+        return traceEnabled;
+    }
+
+    public void setTraceEnabled(boolean traceEnabled) {
+        this.traceEnabled = traceEnabled;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    /**
+     * 表达式编译缓存配置，对应 {@code aviator.cache.*}
+     * <p>
+     * 缓存容量由 cache-size（按条数）或 maximum-weight（按权重）决定，淘汰策略为频率感知的 W-TinyLFU。
+     */
+    public static class Cache {
+
+        /**
+         * 最后一次访问后的过期时间，默认不过期
+         */
+        private Duration expireAfterAccess;
+
+        /**
+         * 缓存权重计算方式，默认按条数
+         */
+        private Weigher weigher = Weigher.ENTRY;
+
+        /**
+         * 按权重计算时的最大总权重，默认 1000000（SOURCE_LENGTH 时即源码总字符数）
+         */
+        private long maximumWeight = 1_000_000L;
+
+        /**
+         * 是否记录命中、未命中和淘汰统计，默认为 true
+         */
+        private boolean recordStats = true;
+
+        /**
+         * 编译失败负缓存的最大条数，0 表示不缓存编译失败，默认 1000
+         */
+        private long failureCacheSize = 1000;
+
+        /**
+         * 编译失败负缓存条目写入后的过期时间，默认 5 分钟
+         */
+        private Duration failureExpireAfterWrite = Duration.ofMinutes(5);
+
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+
+        public Weigher getWeigher() {
+            return weigher;
+        }
+
+        public void setWeigher(Weigher weigher) {
+            this.weigher = weigher;
+        }
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public boolean isRecordStats() {
+            return recordStats;
+        }
+
+        public void setRecordStats(boolean recordStats) {
+            this.recordStats = recordStats;
+        }
+
+        public long getFailureCacheSize() {
+            return failureCacheSize;
+        }
+
+        public void setFailureCacheSize(long failureCacheSize) {
+            this.failureCacheSize = failureCacheSize;
+        }
+
+        public Duration getFailureExpireAfterWrite() {
+            return failureExpireAfterWrite;
+        }
+
+        public void setFailureExpireAfterWrite(Duration failureExpireAfterWrite) {
+            this.failureExpireAfterWrite = failureExpireAfterWrite;
+        }
+    }
+
+    /**
+     * 求值资源限制，对应 {@code aviator.limits.*}，用于执行不受信任的表达式
+     */
+    public static class Limits {
+
+        /**
+         * 单次求值的超时时间，默认不限制
+         */
+        private Duration timeout;
+
+        /**
+         * 单次求值的最大操作数（变量访问次数与序列函数遍历的元素数），0 表示不限制
+         */
+        private long maxOperations = 0;
+
+        /**
+         * 脚本中单个循环的最大迭代次数（Aviator MAX_LOOP_COUNT 选项），0 表示不限制
+         */
+        private int maxLoopCount = 0;
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getMaxOperations() {
+            return maxOperations;
+        }
+
+        public void setMaxOperations(long maxOperations) {
+            this.maxOperations = maxOperations;
+        }
+
+        public int getMaxLoopCount() {
+            return maxLoopCount;
+        }
+
+        public void setMaxLoopCount(int maxLoopCount) {
+            this.maxLoopCount = maxLoopCount;
+        }
+    }
+
+    /**
+     * 缓存权重计算方式
+     */
+    public enum Weigher {
+
+        /**
+         * 每个表达式权重为 1，容量由 cache-size 决定
+         */
+        ENTRY,
+
+        /**
+         * 按表达式源码长度计算权重，容量由 cache.maximum-weight 决定
+         */
+        SOURCE_LENGTH
+    }
+}
@@ -2,13 +2,23 @@ package com.github.aviator.autoconfigure;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Aviator 配置属性类
- * 
+ * <p>
+ * 继承的引擎属性作用于默认引擎，{@link #getEngines()} 中的每一项对应一个独立的命名引擎。
+ *
  * @author Aviator Starter
  */
 @ConfigurationProperties(prefix = "aviator")
-public class AviatorProperties {
+public class AviatorProperties extends AviatorEngineProperties {
 
     /**
      * 是否启用 Aviator 自动配置，默认为 false
@@ -16,24 +26,39 @@ public class AviatorProperties {
     private boolean enable = false;
 
     /**
-     * 是否开启表达式编译缓存，默认为 true
+     * 命名引擎配置，key 为引擎名称。每个引擎拥有独立的表达式缓存、选项和函数表
+     */
+    private Map<String, AviatorEngineProperties> engines = new LinkedHashMap<>();
+
+    /**
+     * 指标配置
+     */
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * 启动预热配置
      */
-    private boolean cacheEnabled = true;
+    private final Warmup warmup = new Warmup();
 
     /**
-     * 表达式编译缓存大小，默认 1000
+     * 批量执行配置
      */
-    private int cacheSize = 1000;
+    private final Batch batch = new Batch();
 
     /**
-     * 是否优化表达式执行，默认为 true
+     * 异步执行线程池配置
      */
-    private boolean optimizeEnabled = true;
+    private final Executor executor = new Executor();
 
     /**
-     * 是否允许追踪求值过程，默认为 false
+     * Bean 环境适配配置
      */
-    private boolean traceEnabled = false;
+    private final Env env = new Env();
+
+    /**
+     * 日期函数配置
+     */
+    private final DateFunctions dateFunctions = new DateFunctions();
 
     public boolean isEnable() {
         return enable;
@@ -43,36 +68,377 @@ public class AviatorProperties {
         this.enable = enable;
     }
 
-    public boolean isCacheEnabled() {
-        return cacheEnabled;
+    public Map<String, AviatorEngineProperties> getEngines() {
+        return engines;
     }
 
-    public void setCacheEnabled(boolean cacheEnabled) {
-        this.cacheEnabled = cacheEnabled;
+    public void setEngines(Map<String, AviatorEngineProperties> engines) {
+        this.engines = engines;
     }
 
-    public int getCacheSize() {
-        return cacheSize;
+    public Metrics getMetrics() {
+        return metrics;
     }
 
-    public void setCacheSize(int cacheSize) {
-        this.cacheSize = cacheSize;
+    public Warmup getWarmup() {
+        return warmup;
     }
 
-    public boolean isOptimizeEnabled() {
-        return optimizeEnabled;
+    public Batch getBatch() {
+        return batch;
     }
 
-    public void setOptimizeEnabled(boolean optimizeEnabled) {
-        this.optimizeEnabled = optimizeEnabled;
+    public Executor getExecutor() {
+        return executor;
     }
 
-    public boolean isTraceEnabled() {
-        return traceEnabled;
+    public Env getEnv() {
+        return env;
     }
 
-    public void setTraceEnabled(boolean traceEnabled) {
-        this.traceEnabled = traceEnabled;
+    public DateFunctions getDateFunctions() {
+        return dateFunctions;
     }
-}
 
+    /**
+     * Micrometer 指标配置，对应 {@code aviator.metrics.*}
+     */
+    public static class Metrics {
+
+        /**
+         * 是否启用指标（需要类路径中存在 Micrometer 且容器中有 MeterRegistry），默认为 true
+         */
+        private boolean enabled = true;
+
+        /**
+         * expression 标签的最大取值个数，超出后统一记为 other，默认 100
+         */
+        private int maxExpressionTags = 100;
+
+        /**
+         * expression 标签值的最大长度，超出部分截断，默认 64
+         */
+        private int expressionTagLength = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxExpressionTags() {
+            return maxExpressionTags;
+        }
+
+        public void setMaxExpressionTags(int maxExpressionTags) {
+            this.maxExpressionTags = maxExpressionTags;
+        }
+
+        public int getExpressionTagLength() {
+            return expressionTagLength;
+        }
+
+        public void setExpressionTagLength(int expressionTagLength) {
+            this.expressionTagLength = expressionTagLength;
+        }
+    }
+
+    /**
+     * 启动预热配置，对应 {@code aviator.warmup.*}
+     */
+    public static class Warmup {
+
+        /**
+         * 是否在启动阶段预编译并预热表达式，默认为 true
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个表达式的预热执行次数，默认 1000
+         */
+        private int iterations = 1000;
+
+        /**
+         * 没有样例环境的表达式是否用合成环境（所有变量取值为 1）执行 iterations 次，默认 false，只预编译
+         * <p>
+         * 开启后表达式中调用的自定义函数同样会被执行，带副作用的函数（写库、发消息、调用外部服务）不要开启。
+         */
+        private boolean evaluateWithoutSamples = false;
+
+        /**
+         * 预热并行度，默认为 CPU 核数，小于 1 时按 1 处理
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 预热总超时时间，默认 60 秒
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+
+        /**
+         * 需要预热的表达式，key 为引擎名称
+         */
+        private Map<String, List<String>> expressions = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public boolean isEvaluateWithoutSamples() {
+            return evaluateWithoutSamples;
+        }
+
+        public void setEvaluateWithoutSamples(boolean evaluateWithoutSamples) {
+            this.evaluateWithoutSamples = evaluateWithoutSamples;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Map<String, List<String>> getExpressions() {
+            return expressions;
+        }
+
+        public void setExpressions(Map<String, List<String>> expressions) {
+            this.expressions = expressions;
+        }
+    }
+
+    /**
+     * 批量执行配置，对应 {@code aviator.batch.*}
+     */
+    public static class Batch {
+
+        /**
+         * 批量执行线程池（ForkJoinPool）的并行度，默认为 CPU 核数
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 每个子任务处理的最大记录数，批次不超过该值时直接在调用线程执行，默认 256
+         */
+        private int chunkSize = 256;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * 异步执行线程池配置，对应 {@code aviator.executor.*}
+     */
+    public static class Executor {
+
+        /**
+         * 核心线程数，默认为 CPU 核数
+         */
+        private int coreSize = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 最大线程数，默认为 CPU 核数的 2 倍
+         */
+        private int maxSize = Runtime.getRuntime().availableProcessors() * 2;
+
+        /**
+         * 等待队列容量，默认 1000
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 非核心线程的空闲存活时间，默认 60 秒
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * 线程池和队列都满时的拒绝策略，默认 ABORT
+         */
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+        /**
+         * 是否使用虚拟线程（JDK 21+），低版本 JDK 自动回退为平台线程，默认为 false
+         */
+        private boolean virtualThreads = false;
+
+        public int getCoreSize() {
+            return coreSize;
+        }
+
+        public void setCoreSize(int coreSize) {
+            this.coreSize = coreSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public RejectionPolicy getRejectionPolicy() {
+            return rejectionPolicy;
+        }
+
+        public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+            this.rejectionPolicy = rejectionPolicy;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+    }
+
+    /**
+     * Bean 环境适配配置，对应 {@code aviator.env.*}
+     */
+    public static class Env {
+
+        /**
+         * 启动时预先生成环境适配器的 Bean 类型，未列出的类型在首次使用时生成
+         */
+        private List<Class<?>> beanTypes = new ArrayList<>();
+
+        public List<Class<?>> getBeanTypes() {
+            return beanTypes;
+        }
+
+        public void setBeanTypes(List<Class<?>> beanTypes) {
+            this.beanTypes = beanTypes;
+        }
+    }
+
+    /**
+     * 日期函数配置，对应 {@code aviator.date-functions.*}
+     */
+    public static class DateFunctions {
+
+        /**
+         * 是否注册 date.* 函数，默认为 true
+         */
+        private boolean enabled = true;
+
+        /**
+         * 没有时区信息的时间按该时区解释，为空时使用系统默认时区
+         */
+        private ZoneId zone;
+
+        /**
+         * 节假日，date.isBusinessDay 对这些日期返回 false
+         */
+        private List<LocalDate> holidays = new ArrayList<>();
+
+        /**
+         * 最多缓存的格式化 pattern 数，默认为 256
+         */
+        private int formatterCacheSize = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        public void setZone(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        public List<LocalDate> getHolidays() {
+            return holidays;
+        }
+
+        public void setHolidays(List<LocalDate> holidays) {
+            this.holidays = holidays;
+        }
+
+        public int getFormatterCacheSize() {
+            return formatterCacheSize;
+        }
+
+        public void setFormatterCacheSize(int formatterCacheSize) {
+            this.formatterCacheSize = formatterCacheSize;
+        }
+    }
+
+    /**
+     * 异步执行的拒绝策略
+     * <p>
+     * 不提供 DISCARD 类策略：被丢弃的任务对应的 CompletableFuture 永远不会完成。
+     */
+    public enum RejectionPolicy {
+
+        /**
+         * 拒绝任务，返回的 CompletableFuture 以 RejectedExecutionException 异常完成
+         */
+        ABORT,
+
+        /**
+         * 由调用线程直接执行
+         */
+        CALLER_RUNS
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.aviator.cache;
+
+import com.github.aviator.autoconfigure.AviatorEngineProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.googlecode.aviator.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 基于 Caffeine 的默认表达式缓存实现
+ * <p>
+ * Caffeine 使用分段的 W-TinyLFU 淘汰策略：偶发的临时表达式难以挤出高频的热点公式。
+ *
+ * @author Aviator Starter
+ */
+public class CaffeineExpressionCache implements ExpressionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaffeineExpressionCache.class);
+
+    private final Cache<String, Expression> cache;
+
+    public CaffeineExpressionCache(String engineName, AviatorEngineProperties properties) {
+        this(engineName, properties, Collections.<ExpressionEvictionListener>emptyList());
+    }
+
+    public CaffeineExpressionCache(String engineName, AviatorEngineProperties properties,
+                                   List<ExpressionEvictionListener> listeners) {
+        AviatorEngineProperties.Cache config = properties.getCache();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+
+        if (config.getWeigher() == AviatorEngineProperties.Weigher.SOURCE_LENGTH) {
+            builder.maximumWeight(config.getMaximumWeight())
+                .weigher((String key, Expression value) -> key.length());
+        } else {
+            builder.maximumSize(properties.getCacheSize());
+        }
+        if (config.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(config.getExpireAfterAccess());
+        }
+        if (config.isRecordStats()) {
+            builder.recordStats();
+        }
+        if (!listeners.isEmpty()) {
+            builder.evictionListener((String key, Expression value, RemovalCause cause) -> {
+                for (ExpressionEvictionListener listener : listeners) {
+                    try {
+                        listener.onEviction(engineName, key, value);
+                    } catch (RuntimeException e) {
+                        logger.warn("Expression eviction listener failed on engine [{}]", engineName, e);
+                    }
+                }
+            });
+        }
+        this.cache = builder.build();
+    }
+
+    @Override
+    public Expression get(String expression, Function<String, Expression> compiler) {
+        return cache.get(expression, compiler);
+    }
+
+    @Override
+    public Expression getIfPresent(String expression) {
+        return cache.getIfPresent(expression);
+    }
+
+    @Override
+    public void invalidate(String expression) {
+        cache.invalidate(expression);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public Set<String> keys() {
+        return new HashSet<>(cache.asMap().keySet());
+    }
+
+    @Override
+    public ExpressionCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new ExpressionCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.aviator.cache;
+
+import com.github.aviator.autoconfigure.AviatorEngineProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 默认表达式缓存工厂，为每个引擎创建 {@link CaffeineExpressionCache}
+ *
+ * @author Aviator Starter
+ */
+public class CaffeineExpressionCacheFactory implements ExpressionCacheFactory {
+
+    private final List<ExpressionEvictionListener> listeners;
+
+    public CaffeineExpressionCacheFactory() {
+        this(Collections.<ExpressionEvictionListener>emptyList());
+    }
+
+    public CaffeineExpressionCacheFactory(List<ExpressionEvictionListener> listeners) {
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(listeners));
+    }
+
+    @Override
+    public ExpressionCache create(String engineName, AviatorEngineProperties properties) {
+        return new CaffeineExpressionCache(engineName, properties, listeners);
+    }
+}
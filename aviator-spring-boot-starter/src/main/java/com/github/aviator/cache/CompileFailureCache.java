@@ -0,0 +1,55 @@
+package com.github.aviator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * 编译失败的负缓存，记录无法编译的表达式源码及其编译错误
+ * <p>
+ * 客户端反复提交同一个错误表达式时直接返回缓存的错误，不再重复解析。
+ * 条目在写入后按固定时间过期，注册函数或修改选项后由引擎主动清空。
+ *
+ * @author Aviator Starter
+ */
+public class CompileFailureCache {
+
+    private final Cache<String, RuntimeException> cache;
+
+    public CompileFailureCache(long maximumSize, Duration expireAfterWrite) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize);
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * 获取表达式上一次的编译错误
+     *
+     * @param expression 表达式源码
+     * @return 编译错误，未记录时返回 null
+     */
+    public RuntimeException getIfPresent(String expression) {
+        return cache.getIfPresent(expression);
+    }
+
+    /**
+     * 记录表达式的编译错误
+     *
+     * @param expression 表达式源码
+     * @param error 编译错误
+     */
+    public void put(String expression, RuntimeException error) {
+        cache.put(expression, error);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.aviator.cache;
+
+import com.googlecode.aviator.Expression;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 编译后表达式缓存 SPI
+ * <p>
+ * 以表达式源码为 key 缓存编译结果。实现必须是线程安全的，且同一 key 并发未命中时只编译一次。
+ *
+ * @author Aviator Starter
+ */
+public interface ExpressionCache {
+
+    /**
+     * 获取缓存的编译结果，未命中时使用给定的编译函数编译并放入缓存
+     *
+     * @param expression 表达式源码
+     * @param compiler 编译函数
+     * @return 编译后的表达式
+     */
+    Expression get(String expression, Function<String, Expression> compiler);
+
+    /**
+     * 获取缓存的编译结果，不触发编译
+     *
+     * @param expression 表达式源码
+     * @return 编译后的表达式，未命中返回 null
+     */
+    Expression getIfPresent(String expression);
+
+    /**
+     * 移除指定表达式
+     *
+     * @param expression 表达式源码
+     */
+    void invalidate(String expression);
+
+    /**
+     * 清空缓存
+     */
+    void invalidateAll();
+
+    /**
+     * 当前缓存的表达式数量（近似值）
+     *
+     * @return 表达式数量
+     */
+    long size();
+
+    /**
+     * 当前缓存的所有表达式源码快照
+     *
+     * @return 表达式源码集合
+     */
+    Set<String> keys();
+
+    /**
+     * 缓存统计信息
+     *
+     * @return 统计快照
+     */
+    ExpressionCacheStats stats();
+}
@@ -0,0 +1,23 @@
+package com.github.aviator.cache;
+
+import com.github.aviator.autoconfigure.AviatorEngineProperties;
+
+/**
+ * 表达式缓存工厂，每个引擎创建一个独立的缓存
+ * <p>
+ * 注册自定义的 ExpressionCacheFactory Bean 即可替换默认实现。
+ *
+ * @author Aviator Starter
+ */
+@FunctionalInterface
+public interface ExpressionCacheFactory {
+
+    /**
+     * 为指定引擎创建表达式缓存
+     *
+     * @param engineName 引擎名称
+     * @param properties 引擎配置
+     * @return 表达式缓存
+     */
+    ExpressionCache create(String engineName, AviatorEngineProperties properties);
+}
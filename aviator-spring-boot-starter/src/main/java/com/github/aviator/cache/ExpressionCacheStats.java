@@ -0,0 +1,62 @@
+package com.github.aviator.cache;
+
+/**
+ * 表达式缓存统计快照
+ *
+ * @author Aviator Starter
+ */
+public final class ExpressionCacheStats {
+
+    private static final ExpressionCacheStats EMPTY = new ExpressionCacheStats(0, 0, 0);
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    public ExpressionCacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public static ExpressionCacheStats empty() {
+        return EMPTY;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 命中率，无请求时返回 1.0
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionCacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.aviator.cache;
+
+import com.googlecode.aviator.Expression;
+
+/**
+ * 表达式缓存淘汰监听器
+ * <p>
+ * 仅在因容量或过期被淘汰时回调，主动清除不会触发。回调在淘汰线程上同步执行，实现应尽量轻量。
+ *
+ * @author Aviator Starter
+ */
+@FunctionalInterface
+public interface ExpressionEvictionListener {
+
+    /**
+     * 表达式被淘汰时回调
+     *
+     * @param engineName 引擎名称
+     * @param expression 表达式源码
+     * @param compiled 编译后的表达式
+     */
+    void onEviction(String engineName, String expression, Expression compiled);
+}
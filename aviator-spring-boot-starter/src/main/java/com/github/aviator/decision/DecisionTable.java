@@ -0,0 +1,192 @@
+package com.github.aviator.decision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单变量阈值决策表
+ * <p>
+ * 表示形如 {@code x >= 750 ? a : (x >= 700 ? b : (x >= 650 ? c : d))} 的阶梯规则：
+ * 阈值按升序存放在基本类型数组中，查找通过二分完成，档位增加到成百上千时查找成本仍为 O(log n)，
+ * 不再是逐个比较的条件链。
+ * <p>
+ * 所有档位在内部统一为"下界包含"的区间：{@link Builder#from} 对应 {@code x >= t}，
+ * {@link Builder#above} 对应 {@code x > t}（即 {@code x <= t ? ... : ...} 形式的上界阶梯）。
+ * 实例不可变，可以在线程间共享。
+ *
+ * <pre>
+ * // qty &lt;= 10 ? 1.0 : (qty &lt;= 50 ? 0.9 : (qty &lt;= 100 ? 0.8 : 0.7))
+ * DecisionTable tiers = DecisionTable.builder(1.0)
+ *     .above(10, 0.9)
+ *     .above(50, 0.8)
+ *     .above(100, 0.7)
+ *     .build();
+ * </pre>
+ *
+ * @author Aviator Starter
+ */
+public final class DecisionTable {
+
+    /**
+     * 升序排列的区间下界（包含）
+     */
+    private final double[] thresholds;
+
+    /**
+     * values[0] 为低于所有阈值时的结果，values[i + 1] 为 x >= thresholds[i] 时的结果
+     */
+    private final Object[] values;
+
+    /**
+     * 所有结果都是数值时的基本类型副本，否则为 null
+     */
+    private final double[] numericValues;
+
+    private DecisionTable(double[] thresholds, Object[] values) {
+        this.thresholds = thresholds;
+        this.values = values;
+        this.numericValues = toNumeric(values);
+    }
+
+    /**
+     * 创建决策表构建器
+     *
+     * @param defaultValue 低于所有阈值时的结果
+     * @return 构建器
+     */
+    public static Builder builder(Object defaultValue) {
+        return new Builder(defaultValue);
+    }
+
+    /**
+     * 查找输入值所在档位的结果
+     * <p>
+     * NaN 不满足任何阈值条件，返回默认结果。
+     *
+     * @param x 输入值
+     * @return 档位结果
+     */
+    public Object lookup(double x) {
+        return values[indexOf(x)];
+    }
+
+    /**
+     * 查找输入值所在档位的数值结果，不装箱
+     *
+     * @param x 输入值
+     * @return 档位结果
+     * @throws IllegalStateException 决策表中存在非数值结果时抛出
+     */
+    public double lookupDouble(double x) {
+        if (numericValues == null) {
+            throw new IllegalStateException("Decision table has non-numeric values");
+        }
+        return numericValues[indexOf(x)];
+    }
+
+    /**
+     * 档位数量（含默认档位）
+     *
+     * @return 档位数量
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 获取所有档位的结果，下标 0 为默认结果
+     *
+     * @return 只读的结果列表
+     */
+    public List<Object> getValues() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * 返回满足 thresholds[i] <= x 的阈值个数，即结果下标
+     */
+    int indexOf(double x) {
+        if (x != x) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(thresholds, x + 0.0);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static double[] toNumeric(Object[] values) {
+        double[] numeric = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (!(values[i] instanceof Number)) {
+                return null;
+            }
+            numeric[i] = ((Number) values[i]).doubleValue();
+        }
+        return numeric;
+    }
+
+    /**
+     * 决策表构建器，档位可以按任意顺序添加，构建时按阈值排序
+     */
+    public static final class Builder {
+
+        private final Object defaultValue;
+
+        private final List<Double> bounds = new ArrayList<>();
+
+        private final List<Object> results = new ArrayList<>();
+
+        private Builder(Object defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        /**
+         * 添加 {@code x >= threshold} 的档位
+         *
+         * @param threshold 下界（包含）
+         * @param value 档位结果
+         * @return 当前构建器
+         */
+        public Builder from(double threshold, Object value) {
+            if (Double.isNaN(threshold)) {
+                throw new IllegalArgumentException("Threshold must not be NaN");
+            }
+            // 归一化 -0.0，Arrays.binarySearch 按 Double.compare 区分正负零
+            bounds.add(threshold + 0.0);
+            results.add(value);
+            return this;
+        }
+
+        /**
+         * 添加 {@code x > threshold} 的档位
+         *
+         * @param threshold 下界（不包含）
+         * @param value 档位结果
+         * @return 当前构建器
+         */
+        public Builder above(double threshold, Object value) {
+            return from(Math.nextUp(threshold), value);
+        }
+
+        public DecisionTable build() {
+            Integer[] order = new Integer[bounds.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(bounds.get(a), bounds.get(b)));
+
+            double[] thresholds = new double[order.length];
+            Object[] values = new Object[order.length + 1];
+            values[0] = defaultValue;
+            for (int i = 0; i < order.length; i++) {
+                thresholds[i] = bounds.get(order[i]);
+                if (i > 0 && thresholds[i] == thresholds[i - 1]) {
+                    throw new IllegalArgumentException("Duplicate decision table threshold: " + thresholds[i]);
+                }
+                values[i + 1] = results.get(order[i]);
+            }
+            return new DecisionTable(thresholds, values);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.aviator.decision;
+
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.function.FunctionUtils;
+import com.googlecode.aviator.runtime.type.AviatorBoolean;
+import com.googlecode.aviator.runtime.type.AviatorNil;
+import com.googlecode.aviator.runtime.type.AviatorNumber;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.runtime.type.AviatorRuntimeJavaType;
+import com.googlecode.aviator.runtime.type.AviatorString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把 {@link DecisionTable} 注册为 Aviator 函数，例如 {@code loan_rate(credit)}
+ * <p>
+ * 每个档位的结果在构造时转换为 AviatorObject，求值时只做一次二分查找，不创建新的结果对象。
+ *
+ * @author Aviator Starter
+ */
+public class DecisionTableFunction extends AbstractFunction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private final DecisionTable table;
+
+    private final AviatorObject[] results;
+
+    public DecisionTableFunction(String name, DecisionTable table) {
+        this.name = name;
+        this.table = table;
+        List<Object> values = table.getValues();
+        this.results = new AviatorObject[values.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = toAviatorObject(values.get(i));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public DecisionTable getTable() {
+        return table;
+    }
+
+    @Override
+    public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+        Number x = FunctionUtils.getNumberValue(arg1, env);
+        return results[table.indexOf(x.doubleValue())];
+    }
+
+    private static AviatorObject toAviatorObject(Object value) {
+        if (value == null) {
+            return AviatorNil.NIL;
+        }
+        if (value instanceof Number) {
+            return AviatorNumber.valueOf(value);
+        }
+        if (value instanceof String) {
+            return new AviatorString((String) value);
+        }
+        if (value instanceof Boolean) {
+            return AviatorBoolean.valueOf((Boolean) value);
+        }
+        return AviatorRuntimeJavaType.valueOf(value);
+    }
+}
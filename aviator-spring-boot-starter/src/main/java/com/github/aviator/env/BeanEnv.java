@@ -0,0 +1,83 @@
+package com.github.aviator.env;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 以 Bean 属性为变量的求值环境，由 {@link BeanEnvAdapter#wrap(Object)} 创建
+ * <p>
+ * 属性在读取时才调用 getter，不会复制到 Map 中。写入的变量保存在独立的覆盖层中，不会修改 Bean，
+ * 覆盖层中的同名变量优先。
+ *
+ * @author Aviator Starter
+ */
+final class BeanEnv extends AbstractMap<String, Object> {
+
+    private final BeanEnvAdapter<?> adapter;
+
+    private final Object bean;
+
+    /**
+     * 写入的变量，首次写入时创建
+     */
+    private Map<String, Object> overrides;
+
+    BeanEnv(BeanEnvAdapter<?> adapter, Object bean) {
+        this.adapter = adapter;
+        this.bean = bean;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (overrides != null && overrides.containsKey(key)) {
+            return overrides.get(key);
+        }
+        int index = adapter.indexOf(key);
+        return index >= 0 ? adapter.read(index, bean) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return adapter.indexOf(key) >= 0 || (overrides != null && overrides.containsKey(key));
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = get(key);
+        if (overrides == null) {
+            overrides = new HashMap<>();
+        }
+        overrides.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return overrides != null ? overrides.remove(key) : null;
+    }
+
+    @Override
+    public int size() {
+        return entrySet().size();
+    }
+
+    /**
+     * 读取所有属性生成只读快照，只用于遍历，热路径不会调用
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < adapter.size(); i++) {
+            snapshot.put(adapter.nameAt(i), adapter.read(i, bean));
+        }
+        if (overrides != null) {
+            snapshot.putAll(overrides);
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(snapshot.entrySet()));
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.aviator.env;
+
+import com.github.aviator.annotation.AviatorVariable;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 把 JavaBean 适配为表达式求值环境
+ * <p>
+ * 每个类型只在第一次使用时内省一次，为每个可读属性通过 {@link LambdaMetafactory} 生成直接调用 getter 的
+ * {@link Function}，之后求值时读取属性不再经过反射，也不需要把属性逐个复制到 HashMap。
+ * 属性只在表达式实际读取时才调用 getter。
+ * <p>
+ * 变量名默认为属性名，可以通过 {@link AviatorVariable} 标注在字段或 getter 上修改。
+ * 实例按类型缓存且不可变，可以在线程之间共享。
+ *
+ * @param <T> Bean 类型
+ * @author Aviator Starter
+ */
+public final class BeanEnvAdapter<T> {
+
+    private static final ClassValue<BeanEnvAdapter<?>> ADAPTERS = new ClassValue<BeanEnvAdapter<?>>() {
+        @Override
+        protected BeanEnvAdapter<?> computeValue(Class<?> type) {
+            return new BeanEnvAdapter<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    private final String[] names;
+
+    private final Function<Object, Object>[] getters;
+
+    @SuppressWarnings("unchecked")
+    private BeanEnvAdapter(Class<T> type) {
+        this.type = type;
+        List<String> nameList = new ArrayList<>();
+        List<Function<Object, Object>> getterList = new ArrayList<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(type)) {
+            Method reader = property.getReadMethod();
+            if (reader == null || reader.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            String name = variableName(type, property, reader);
+            if (nameList.contains(name)) {
+                throw new IllegalStateException("Duplicate Aviator variable [" + name + "] on " + type.getName());
+            }
+            nameList.add(name);
+            getterList.add(getter(type, reader));
+        }
+        this.names = nameList.toArray(new String[0]);
+        this.getters = getterList.toArray((Function<Object, Object>[]) new Function<?, ?>[0]);
+    }
+
+    /**
+     * 获取指定类型的适配器，首次调用时生成并缓存
+     *
+     * @param type Bean 类型
+     * @param <T> Bean 类型
+     * @return 适配器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanEnvAdapter<T> forClass(Class<T> type) {
+        return (BeanEnvAdapter<T>) ADAPTERS.get(type);
+    }
+
+    /**
+     * 获取对象所属类型的适配器并包装为求值环境
+     *
+     * @param bean Bean 实例
+     * @return 以 Bean 属性为变量的环境
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> envOf(Object bean) {
+        return ((BeanEnvAdapter<Object>) ADAPTERS.get(bean.getClass())).wrap(bean);
+    }
+
+    /**
+     * 把 Bean 包装为求值环境，环境中的变量在读取时才调用对应 getter
+     *
+     * @param bean Bean 实例
+     * @return 以 Bean 属性为变量的环境
+     */
+    public Map<String, Object> wrap(T bean) {
+        return new BeanEnv(this, bean);
+    }
+
+    /**
+     * 适配的 Bean 类型
+     *
+     * @return Bean 类型
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 环境中可用的变量名
+     *
+     * @return 只读的变量名列表
+     */
+    public List<String> getVariableNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String nameAt(int index) {
+        return names[index];
+    }
+
+    Object read(int index, Object bean) {
+        return getters[index].apply(bean);
+    }
+
+    int indexOf(Object key) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String variableName(Class<?> type, PropertyDescriptor property, Method reader) {
+        AviatorVariable annotation = reader.getAnnotation(AviatorVariable.class);
+        if (annotation == null) {
+            Field field = ReflectionUtils.findField(type, property.getName());
+            annotation = field != null ? field.getAnnotation(AviatorVariable.class) : null;
+        }
+        return annotation != null ? annotation.value() : property.getName();
+    }
+
+    /**
+     * 为 getter 生成调用函数
+     * <p>
+     * 优先使用 LambdaMetafactory 生成实现类；Bean 类型对 starter 的类加载器不可见（如 devtools 的重启类加载器）
+     * 或 getter 不可公开访问时，退回到直接调用 MethodHandle，同样不经过反射。
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Class<?> type, Method reader) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle;
+        try {
+            if (!isPublic(type, reader)) {
+                reader.setAccessible(true);
+            }
+            handle = lookup.unreflect(reader);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Cannot access getter " + reader + " of " + type.getName(), e);
+        }
+
+        if (isPublic(type, reader) && isVisible(type)) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // 退回到 MethodHandle
+            }
+        }
+
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return bean -> {
+            try {
+                return generic.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to read " + reader, e);
+            }
+        };
+    }
+
+    private static boolean isPublic(Class<?> type, Method reader) {
+        return Modifier.isPublic(type.getModifiers())
+            && Modifier.isPublic(reader.getModifiers())
+            && Modifier.isPublic(reader.getDeclaringClass().getModifiers());
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, BeanEnvAdapter.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.aviator.executor;
+
+import com.github.aviator.autoconfigure.AviatorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步执行线程池工厂
+ * <p>
+ * 线程池始终是有界的（最大线程数 + 有界队列）。开启虚拟线程且运行在 JDK 21+ 时，
+ * 工作线程使用虚拟线程；在更低版本的 JDK 上自动回退为平台线程。
+ *
+ * @author Aviator Starter
+ */
+public final class AviatorExecutorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(AviatorExecutorFactory.class);
+
+    private static final String THREAD_NAME_PREFIX = "aviator-async-";
+
+    private AviatorExecutorFactory() {
+    }
+
+    /**
+     * 根据配置创建线程池
+     *
+     * @param config 线程池配置
+     * @return 有界线程池
+     */
+    public static ThreadPoolExecutor create(AviatorProperties.Executor config) {
+        ThreadFactory threadFactory = null;
+        int coreSize = config.getCoreSize();
+        if (config.isVirtualThreads()) {
+            threadFactory = virtualThreadFactory();
+            if (threadFactory != null) {
+                // 虚拟线程创建成本很低，直接按最大并发数创建，空闲后回收
+                coreSize = config.getMaxSize();
+                logger.info("Aviator async executor uses virtual threads");
+            } else {
+                logger.info("Virtual threads are not supported by the current JVM, falling back to platform threads");
+            }
+        }
+        if (threadFactory == null) {
+            threadFactory = new PlatformThreadFactory();
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(coreSize, Math.max(coreSize, config.getMaxSize()),
+            config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getQueueCapacity()), threadFactory,
+            rejectionHandler(config.getRejectionPolicy()));
+        executor.allowCoreThreadTimeOut(config.isVirtualThreads());
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(AviatorProperties.RejectionPolicy policy) {
+        if (policy == AviatorProperties.RejectionPolicy.CALLER_RUNS) {
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+        return new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    /**
+     * 通过反射获取 JDK 21+ 的虚拟线程工厂，保持 Java 8 编译兼容
+     *
+     * @return 虚拟线程工厂，不支持时返回 null
+     */
+    static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class PlatformThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
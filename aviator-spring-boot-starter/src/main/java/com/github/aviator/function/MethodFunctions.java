@@ -0,0 +1,671 @@
+package com.github.aviator.function;
+
+import com.github.aviator.annotation.AviatorFunction;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.function.FunctionUtils;
+import com.googlecode.aviator.runtime.type.AviatorBoolean;
+import com.googlecode.aviator.runtime.type.AviatorDouble;
+import com.googlecode.aviator.runtime.type.AviatorLong;
+import com.googlecode.aviator.runtime.type.AviatorNil;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.runtime.type.AviatorString;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把 Java 方法绑定为 Aviator 函数
+ * <p>
+ * 绑定在启动时完成一次：通过 {@link LambdaMetafactory} 为方法生成直接调用的实现类，求值时不经过反射。
+ * 参数全部为 {@code double} 且返回 {@code double} 的 1 到 3 元方法（如 {@code pow}、{@code round}）使用原始类型的
+ * 专用接口，参数和返回值都不装箱；其他方法按参数类型拆包后调用，支持的参数类型为
+ * {@code double/long/int/boolean} 及其包装类型、{@link String} 和任意引用类型（直接传入变量值）。
+ * <p>
+ * 返回 {@code double/float} 的结果包装为 AviatorDouble，整数类型包装为 AviatorLong，
+ * 其他类型按 {@link FunctionUtils#wrapReturn(Object)} 转换，{@code null} 为 nil。方法最多 4 个参数，不支持 void 方法。
+ * <p>
+ * 方法或所在类不是 public、或者类对 starter 的类加载器不可见时，退回到直接调用 MethodHandle。
+ *
+ * @author Aviator Starter
+ */
+public final class MethodFunctions {
+
+    /**
+     * 支持的最大参数个数
+     */
+    public static final int MAX_ARITY = 4;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private MethodFunctions() {
+    }
+
+    /**
+     * 绑定类上标注了 {@link AviatorFunction} 的静态方法
+     *
+     * @param type 类型
+     * @return 函数列表
+     */
+    public static List<AbstractFunction> forClass(Class<?> type) {
+        List<AbstractFunction> functions = new ArrayList<>();
+        for (Method method : findAnnotatedMethods(type).keySet()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                throw new IllegalStateException("@AviatorFunction on instance method requires a bean: " + method);
+            }
+            functions.add(bind(method, null));
+        }
+        return functions;
+    }
+
+    /**
+     * 绑定对象上标注了 {@link AviatorFunction} 的实例方法和静态方法
+     *
+     * @param bean 对象，可以是 Spring AOP 代理
+     * @return 函数列表
+     */
+    public static List<AbstractFunction> forBean(Object bean) {
+        List<AbstractFunction> functions = new ArrayList<>();
+        for (Method method : findAnnotatedMethods(AopUtils.getTargetClass(bean)).keySet()) {
+            functions.add(bind(method, bean));
+        }
+        return functions;
+    }
+
+    /**
+     * 查找标注了 {@link AviatorFunction} 的方法
+     *
+     * @param type 类型
+     * @return 方法及其注解
+     */
+    public static Map<Method, AviatorFunction> findAnnotatedMethods(Class<?> type) {
+        return MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<AviatorFunction>) method ->
+            AnnotatedElementUtils.findMergedAnnotation(method, AviatorFunction.class));
+    }
+
+    /**
+     * 绑定方法，函数名取自方法上的 {@link AviatorFunction}，没有注解时为方法名
+     *
+     * @param method 方法
+     * @param target 实例方法的调用对象，静态方法时忽略
+     * @return 函数
+     */
+    public static AbstractFunction bind(Method method, Object target) {
+        AviatorFunction annotation = AnnotatedElementUtils.findMergedAnnotation(method, AviatorFunction.class);
+        String name = annotation != null && StringUtils.hasText(annotation.value())
+            ? annotation.value() : method.getName();
+        return bind(name, method, target);
+    }
+
+    /**
+     * 以指定函数名绑定方法
+     *
+     * @param name 函数名
+     * @param method 方法
+     * @param target 实例方法的调用对象，静态方法时忽略
+     * @return 函数
+     * @throws IllegalStateException 方法签名不受支持或无法访问时抛出
+     */
+    public static AbstractFunction bind(String name, Method method, Object target) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        if (!isStatic) {
+            if (target == null) {
+                throw new IllegalStateException("Instance method requires a target: " + method);
+            }
+            method = AopUtils.selectInvocableMethod(method, target.getClass());
+        }
+        if (method.getReturnType() == void.class) {
+            throw new IllegalStateException("Aviator function must return a value: " + method);
+        }
+        int arity = method.getParameterCount();
+        if (arity > MAX_ARITY) {
+            throw new IllegalStateException("Aviator function supports at most " + MAX_ARITY + " parameters: "
+                + method);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        ArgReader[] readers = new ArgReader[arity];
+        for (int i = 0; i < arity; i++) {
+            readers[i] = ArgReader.of(parameterTypes[i], method);
+        }
+
+        MethodHandle handle;
+        try {
+            if (!isPublic(method)) {
+                method.setAccessible(true);
+            }
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Cannot access " + method, e);
+        }
+        Object receiver = isStatic ? null : target;
+
+        if (method.getReturnType() == double.class && arity > 0 && allDouble(parameterTypes)) {
+            switch (arity) {
+                case 1:
+                    return new DoubleFunction1(name, (DoubleInvoker1) invoker(DoubleInvoker1.class,
+                        MethodType.methodType(double.class, double.class), method, handle, receiver));
+                case 2:
+                    return new DoubleFunction2(name, (DoubleInvoker2) invoker(DoubleInvoker2.class,
+                        MethodType.methodType(double.class, double.class, double.class), method, handle, receiver));
+                case 3:
+                    return new DoubleFunction3(name, (DoubleInvoker3) invoker(DoubleInvoker3.class,
+                        MethodType.methodType(double.class, double.class, double.class, double.class),
+                        method, handle, receiver));
+                default:
+                    break;
+            }
+        }
+
+        ResultWriter writer = ResultWriter.of(method.getReturnType());
+        MethodType generic = MethodType.genericMethodType(arity);
+        switch (arity) {
+            case 0:
+                return new Function0(name, (Invoker0) invoker(Invoker0.class, generic, method, handle, receiver),
+                    writer);
+            case 1:
+                return new Function1(name, (Invoker1) invoker(Invoker1.class, generic, method, handle, receiver),
+                    readers, writer);
+            case 2:
+                return new Function2(name, (Invoker2) invoker(Invoker2.class, generic, method, handle, receiver),
+                    readers, writer);
+            case 3:
+                return new Function3(name, (Invoker3) invoker(Invoker3.class, generic, method, handle, receiver),
+                    readers, writer);
+            default:
+                return new Function4(name, (Invoker4) invoker(Invoker4.class, generic, method, handle, receiver),
+                    readers, writer);
+        }
+    }
+
+    /**
+     * 生成调用接口的实现，优先使用 LambdaMetafactory，不可用时退回到 MethodHandle
+     */
+    private static Object invoker(Class<?> samType, MethodType samMethodType, Method method, MethodHandle handle,
+                                  Object receiver) {
+        if (isPublic(method) && isVisible(method.getDeclaringClass())) {
+            try {
+                MethodType instantiated = receiver == null
+                    ? handle.type().wrap()
+                    : handle.type().dropParameterTypes(0, 1).wrap();
+                if (samMethodType.returnType().isPrimitive()) {
+                    instantiated = samMethodType;
+                }
+                MethodType invokedType = receiver == null
+                    ? MethodType.methodType(samType)
+                    : MethodType.methodType(samType, method.getDeclaringClass());
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke", invokedType, samMethodType, handle,
+                    instantiated);
+                return receiver == null ? site.getTarget().invoke() : site.getTarget().invoke(receiver);
+            } catch (Throwable e) {
+                // 退回到 MethodHandle
+            }
+        }
+        MethodHandle bound = (receiver == null ? handle : handle.bindTo(receiver)).asType(samMethodType);
+        return fallback(samType, bound, method);
+    }
+
+    private static Object fallback(Class<?> samType, MethodHandle h, Method method) {
+        if (samType == DoubleInvoker1.class) {
+            return (DoubleInvoker1) a -> {
+                try {
+                    return (double) h.invokeExact(a);
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        if (samType == DoubleInvoker2.class) {
+            return (DoubleInvoker2) (a, b) -> {
+                try {
+                    return (double) h.invokeExact(a, b);
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        if (samType == DoubleInvoker3.class) {
+            return (DoubleInvoker3) (a, b, c) -> {
+                try {
+                    return (double) h.invokeExact(a, b, c);
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        if (samType == Invoker0.class) {
+            return (Invoker0) () -> {
+                try {
+                    return (Object) h.invokeExact();
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        if (samType == Invoker1.class) {
+            return (Invoker1) a -> {
+                try {
+                    return (Object) h.invokeExact(a);
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        if (samType == Invoker2.class) {
+            return (Invoker2) (a, b) -> {
+                try {
+                    return (Object) h.invokeExact(a, b);
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        if (samType == Invoker3.class) {
+            return (Invoker3) (a, b, c) -> {
+                try {
+                    return (Object) h.invokeExact(a, b, c);
+                } catch (Throwable e) {
+                    throw rethrow(e, method);
+                }
+            };
+        }
+        return (Invoker4) (a, b, c, d) -> {
+            try {
+                return (Object) h.invokeExact(a, b, c, d);
+            } catch (Throwable e) {
+                throw rethrow(e, method);
+            }
+        };
+    }
+
+    private static RuntimeException rethrow(Throwable e, Method method) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException("Failed to invoke " + method, e);
+    }
+
+    private static boolean allDouble(Class<?>[] types) {
+        for (Class<?> type : types) {
+            if (type != double.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Method method) {
+        return Modifier.isPublic(method.getModifiers())
+            && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, MethodFunctions.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static double doubleArg(AviatorObject arg, Map<String, Object> env) {
+        return FunctionUtils.getNumberValue(arg, env).doubleValue();
+    }
+
+    /**
+     * 参数拆包方式
+     */
+    private enum ArgReader {
+
+        DOUBLE {
+            @Override
+            Object read(AviatorObject arg, Map<String, Object> env) {
+                return FunctionUtils.getNumberValue(arg, env).doubleValue();
+            }
+        },
+
+        LONG {
+            @Override
+            Object read(AviatorObject arg, Map<String, Object> env) {
+                return FunctionUtils.getNumberValue(arg, env).longValue();
+            }
+        },
+
+        INT {
+            @Override
+            Object read(AviatorObject arg, Map<String, Object> env) {
+                return FunctionUtils.getNumberValue(arg, env).intValue();
+            }
+        },
+
+        BOOLEAN {
+            @Override
+            Object read(AviatorObject arg, Map<String, Object> env) {
+                return FunctionUtils.getBooleanValue(arg, env);
+            }
+        },
+
+        STRING {
+            @Override
+            Object read(AviatorObject arg, Map<String, Object> env) {
+                return FunctionUtils.getStringValue(arg, env);
+            }
+        },
+
+        OBJECT {
+            @Override
+            Object read(AviatorObject arg, Map<String, Object> env) {
+                return arg.getValue(env);
+            }
+        };
+
+        abstract Object read(AviatorObject arg, Map<String, Object> env);
+
+        static ArgReader of(Class<?> type, Method method) {
+            if (type == double.class || type == Double.class) {
+                return DOUBLE;
+            }
+            if (type == long.class || type == Long.class) {
+                return LONG;
+            }
+            if (type == int.class || type == Integer.class) {
+                return INT;
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            }
+            if (type == String.class) {
+                return STRING;
+            }
+            if (type.isPrimitive()) {
+                throw new IllegalStateException("Unsupported parameter type " + type + " in Aviator function: "
+                    + method);
+            }
+            return OBJECT;
+        }
+    }
+
+    /**
+     * 返回值包装方式
+     */
+    private enum ResultWriter {
+
+        DOUBLE {
+            @Override
+            AviatorObject write(Object result) {
+                return result == null ? AviatorNil.NIL : AviatorDouble.valueOf(((Number) result).doubleValue());
+            }
+        },
+
+        LONG {
+            @Override
+            AviatorObject write(Object result) {
+                return result == null ? AviatorNil.NIL : AviatorLong.valueOf(((Number) result).longValue());
+            }
+        },
+
+        BOOLEAN {
+            @Override
+            AviatorObject write(Object result) {
+                return result == null ? AviatorNil.NIL : AviatorBoolean.valueOf((Boolean) result);
+            }
+        },
+
+        STRING {
+            @Override
+            AviatorObject write(Object result) {
+                return result == null ? AviatorNil.NIL : new AviatorString((String) result);
+            }
+        },
+
+        OBJECT {
+            @Override
+            AviatorObject write(Object result) {
+                return FunctionUtils.wrapReturn(result);
+            }
+        };
+
+        abstract AviatorObject write(Object result);
+
+        static ResultWriter of(Class<?> type) {
+            if (type == double.class || type == Double.class || type == float.class || type == Float.class) {
+                return DOUBLE;
+            }
+            if (type == long.class || type == Long.class || type == int.class || type == Integer.class
+                || type == short.class || type == Short.class || type == byte.class || type == Byte.class) {
+                return LONG;
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            }
+            if (type == String.class) {
+                return STRING;
+            }
+            return OBJECT;
+        }
+    }
+
+    interface DoubleInvoker1 {
+        double invoke(double a);
+    }
+
+    interface DoubleInvoker2 {
+        double invoke(double a, double b);
+    }
+
+    interface DoubleInvoker3 {
+        double invoke(double a, double b, double c);
+    }
+
+    interface Invoker0 {
+        Object invoke();
+    }
+
+    interface Invoker1 {
+        Object invoke(Object a);
+    }
+
+    interface Invoker2 {
+        Object invoke(Object a, Object b);
+    }
+
+    interface Invoker3 {
+        Object invoke(Object a, Object b, Object c);
+    }
+
+    interface Invoker4 {
+        Object invoke(Object a, Object b, Object c, Object d);
+    }
+
+    private abstract static class MethodFunction extends AbstractFunction {
+
+        private final String name;
+
+        MethodFunction(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final class DoubleFunction1 extends MethodFunction {
+
+        private final DoubleInvoker1 invoker;
+
+        DoubleFunction1(String name, DoubleInvoker1 invoker) {
+            super(name);
+            this.invoker = invoker;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a) {
+            return AviatorDouble.valueOf(invoker.invoke(doubleArg(a, env)));
+        }
+    }
+
+    private static final class DoubleFunction2 extends MethodFunction {
+
+        private final DoubleInvoker2 invoker;
+
+        DoubleFunction2(String name, DoubleInvoker2 invoker) {
+            super(name);
+            this.invoker = invoker;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a, AviatorObject b) {
+            return AviatorDouble.valueOf(invoker.invoke(doubleArg(a, env), doubleArg(b, env)));
+        }
+    }
+
+    private static final class DoubleFunction3 extends MethodFunction {
+
+        private final DoubleInvoker3 invoker;
+
+        DoubleFunction3(String name, DoubleInvoker3 invoker) {
+            super(name);
+            this.invoker = invoker;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a, AviatorObject b, AviatorObject c) {
+            return AviatorDouble.valueOf(invoker.invoke(doubleArg(a, env), doubleArg(b, env), doubleArg(c, env)));
+        }
+    }
+
+    private static final class Function0 extends MethodFunction {
+
+        private final Invoker0 invoker;
+
+        private final ResultWriter writer;
+
+        Function0(String name, Invoker0 invoker, ResultWriter writer) {
+            super(name);
+            this.invoker = invoker;
+            this.writer = writer;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env) {
+            return writer.write(invoker.invoke());
+        }
+    }
+
+    private static final class Function1 extends MethodFunction {
+
+        private final Invoker1 invoker;
+
+        private final ArgReader r0;
+
+        private final ResultWriter writer;
+
+        Function1(String name, Invoker1 invoker, ArgReader[] readers, ResultWriter writer) {
+            super(name);
+            this.invoker = invoker;
+            this.r0 = readers[0];
+            this.writer = writer;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a) {
+            return writer.write(invoker.invoke(r0.read(a, env)));
+        }
+    }
+
+    private static final class Function2 extends MethodFunction {
+
+        private final Invoker2 invoker;
+
+        private final ArgReader r0;
+
+        private final ArgReader r1;
+
+        private final ResultWriter writer;
+
+        Function2(String name, Invoker2 invoker, ArgReader[] readers, ResultWriter writer) {
+            super(name);
+            this.invoker = invoker;
+            this.r0 = readers[0];
+            this.r1 = readers[1];
+            this.writer = writer;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a, AviatorObject b) {
+            return writer.write(invoker.invoke(r0.read(a, env), r1.read(b, env)));
+        }
+    }
+
+    private static final class Function3 extends MethodFunction {
+
+        private final Invoker3 invoker;
+
+        private final ArgReader r0;
+
+        private final ArgReader r1;
+
+        private final ArgReader r2;
+
+        private final ResultWriter writer;
+
+        Function3(String name, Invoker3 invoker, ArgReader[] readers, ResultWriter writer) {
+            super(name);
+            this.invoker = invoker;
+            this.r0 = readers[0];
+            this.r1 = readers[1];
+            this.r2 = readers[2];
+            this.writer = writer;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a, AviatorObject b, AviatorObject c) {
+            return writer.write(invoker.invoke(r0.read(a, env), r1.read(b, env), r2.read(c, env)));
+        }
+    }
+
+    private static final class Function4 extends MethodFunction {
+
+        private final Invoker4 invoker;
+
+        private final ArgReader r0;
+
+        private final ArgReader r1;
+
+        private final ArgReader r2;
+
+        private final ArgReader r3;
+
+        private final ResultWriter writer;
+
+        Function4(String name, Invoker4 invoker, ArgReader[] readers, ResultWriter writer) {
+            super(name);
+            this.invoker = invoker;
+            this.r0 = readers[0];
+            this.r1 = readers[1];
+            this.r2 = readers[2];
+            this.r3 = readers[3];
+            this.writer = writer;
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject a, AviatorObject b, AviatorObject c,
+                                  AviatorObject d) {
+            return writer.write(invoker.invoke(r0.read(a, env), r1.read(b, env), r2.read(c, env), r3.read(d, env)));
+        }
+    }
+}
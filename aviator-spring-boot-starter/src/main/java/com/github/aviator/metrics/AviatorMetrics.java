@@ -0,0 +1,70 @@
+package com.github.aviator.metrics;
+
+import com.github.aviator.service.AviatorService;
+import com.github.aviator.service.EvaluationLimitExceededException;
+
+/**
+ * Aviator 引擎指标记录接口
+ * <p>
+ * 与具体的指标库解耦，未引入 Micrometer 时使用 {@link #NOOP}。
+ *
+ * @author Aviator Starter
+ */
+public interface AviatorMetrics {
+
+    /**
+     * 不记录任何指标的空实现
+     */
+    AviatorMetrics NOOP = new AviatorMetrics() {
+        @Override
+        public void bindEngine(AviatorService engine) {
+        }
+
+        @Override
+        public void recordCompile(String engineName, String expression, long durationNanos, Throwable error) {
+        }
+
+        @Override
+        public void recordExecute(String engineName, String expression, long durationNanos, Throwable error) {
+        }
+
+        @Override
+        public void recordLimitExceeded(String engineName, EvaluationLimitExceededException.Kind kind) {
+        }
+    };
+
+    /**
+     * 注册引擎级别的指标（如缓存大小、命中率）
+     *
+     * @param engine 引擎服务
+     */
+    void bindEngine(AviatorService engine);
+
+    /**
+     * 记录一次表达式编译
+     *
+     * @param engineName 引擎名称
+     * @param expression 表达式源码
+     * @param durationNanos 耗时（纳秒）
+     * @param error 编译失败时的异常，成功为 null
+     */
+    void recordCompile(String engineName, String expression, long durationNanos, Throwable error);
+
+    /**
+     * 记录一次表达式求值
+     *
+     * @param engineName 引擎名称
+     * @param expression 表达式源码
+     * @param durationNanos 耗时（纳秒）
+     * @param error 求值失败时的异常，成功为 null
+     */
+    void recordExecute(String engineName, String expression, long durationNanos, Throwable error);
+
+    /**
+     * 记录一次求值超限（超时或超过操作数预算）
+     *
+     * @param engineName 引擎名称
+     * @param kind 超限类型
+     */
+    void recordLimitExceeded(String engineName, EvaluationLimitExceededException.Kind kind);
+}
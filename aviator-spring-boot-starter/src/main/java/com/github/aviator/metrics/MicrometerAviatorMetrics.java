@@ -0,0 +1,170 @@
+package com.github.aviator.metrics;
+
+import com.github.aviator.cache.ExpressionCache;
+import com.github.aviator.service.AviatorService;
+import com.github.aviator.service.EvaluationLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Micrometer 的指标实现
+ * <p>
+ * 表达式维度的标签是有界的：前 maxExpressionTags 个不同的表达式使用截断后的源码作为标签值，
+ * 之后出现的表达式统一记为 {@value #OTHER_EXPRESSION}，避免临时表达式造成标签基数爆炸。
+ *
+ * @author Aviator Starter
+ */
+public class MicrometerAviatorMetrics implements AviatorMetrics {
+
+    public static final String COMPILE_TIMER = "aviator.compile";
+
+    public static final String EXECUTE_TIMER = "aviator.execute";
+
+    public static final String ERROR_COUNTER = "aviator.errors";
+
+    public static final String LIMIT_EXCEEDED_COUNTER = "aviator.limits.exceeded";
+
+    public static final String CACHE_SIZE_GAUGE = "aviator.cache.size";
+
+    public static final String CACHE_HIT_RATIO_GAUGE = "aviator.cache.hit.ratio";
+
+    public static final String CACHE_EVICTION_COUNTER = "aviator.cache.evictions";
+
+    static final String OTHER_EXPRESSION = "other";
+
+    private final MeterRegistry registry;
+
+    private final int maxExpressionTags;
+
+    private final int expressionTagLength;
+
+    private final Map<String, String> expressionTags = new ConcurrentHashMap<>();
+
+    /**
+     * 引擎名称 -> 表达式标签 -> Timer，避免每次记录都重新查找注册表
+     */
+    private final Map<String, Map<String, Timer>> compileTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Timer>> executeTimers = new ConcurrentHashMap<>();
+
+    /**
+     * 引擎名称 -> 异常类型 -> Counter，失败路径同样不查找注册表
+     */
+    private final Map<String, Map<Class<?>, Counter>> compileErrors = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<Class<?>, Counter>> executeErrors = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<EvaluationLimitExceededException.Kind, Counter>> limitCounters =
+        new ConcurrentHashMap<>();
+
+    public MicrometerAviatorMetrics(MeterRegistry registry, int maxExpressionTags, int expressionTagLength) {
+        this.registry = registry;
+        this.maxExpressionTags = maxExpressionTags;
+        this.expressionTagLength = expressionTagLength;
+    }
+
+    @Override
+    public void bindEngine(AviatorService engine) {
+        ExpressionCache cache = engine.getExpressionCache();
+        if (cache == null) {
+            return;
+        }
+        Gauge.builder(CACHE_SIZE_GAUGE, cache, ExpressionCache::size)
+            .description("Number of compiled expressions in the cache")
+            .tag("engine", engine.getName())
+            .register(registry);
+        Gauge.builder(CACHE_HIT_RATIO_GAUGE, cache, c -> c.stats().getHitRate())
+            .description("Expression cache hit ratio")
+            .tag("engine", engine.getName())
+            .register(registry);
+        FunctionCounter.builder(CACHE_EVICTION_COUNTER, cache, c -> c.stats().getEvictionCount())
+            .description("Number of compiled expressions evicted from the cache")
+            .tag("engine", engine.getName())
+            .register(registry);
+    }
+
+    @Override
+    public void recordCompile(String engineName, String expression, long durationNanos, Throwable error) {
+        if (error != null) {
+            errorCounter(compileErrors, engineName, "compile", error).increment();
+            return;
+        }
+        timer(COMPILE_TIMER, compileTimers, engineName, expression).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordExecute(String engineName, String expression, long durationNanos, Throwable error) {
+        if (error != null) {
+            errorCounter(executeErrors, engineName, "execute", error).increment();
+            return;
+        }
+        timer(EXECUTE_TIMER, executeTimers, engineName, expression).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLimitExceeded(String engineName, EvaluationLimitExceededException.Kind kind) {
+        Map<EvaluationLimitExceededException.Kind, Counter> engineCounters =
+            limitCounters.computeIfAbsent(engineName, k -> new ConcurrentHashMap<>());
+        Counter counter = engineCounters.get(kind);
+        if (counter == null) {
+            counter = engineCounters.computeIfAbsent(kind, k -> Counter.builder(LIMIT_EXCEEDED_COUNTER)
+                .description("Number of evaluations aborted by timeout or operation budget")
+                .tag("engine", engineName)
+                .tag("kind", kind.name())
+                .register(registry));
+        }
+        counter.increment();
+    }
+
+    private Counter errorCounter(Map<String, Map<Class<?>, Counter>> counters, String engineName, String phase,
+                                 Throwable error) {
+        Map<Class<?>, Counter> engineCounters = counters.computeIfAbsent(engineName, k -> new ConcurrentHashMap<>());
+        Counter counter = engineCounters.get(error.getClass());
+        if (counter == null) {
+            counter = engineCounters.computeIfAbsent(error.getClass(), type -> Counter.builder(ERROR_COUNTER)
+                .description("Number of failed expression compilations and evaluations")
+                .tag("engine", engineName)
+                .tag("phase", phase)
+                .tag("exception", type.getSimpleName())
+                .register(registry));
+        }
+        return counter;
+    }
+
+    private Timer timer(String name, Map<String, Map<String, Timer>> timers, String engineName, String expression) {
+        String tag = expressionTag(expression);
+        Map<String, Timer> engineTimers = timers.computeIfAbsent(engineName, k -> new ConcurrentHashMap<>());
+        Timer timer = engineTimers.get(tag);
+        if (timer == null) {
+            timer = engineTimers.computeIfAbsent(tag, k -> Timer.builder(name)
+                .tag("engine", engineName)
+                .tag("expression", tag)
+                .register(registry));
+        }
+        return timer;
+    }
+
+    /**
+     * 将表达式映射为有界的标签值
+     */
+    String expressionTag(String expression) {
+        String tag = expressionTags.get(expression);
+        if (tag != null) {
+            return tag;
+        }
+        if (expressionTags.size() >= maxExpressionTags) {
+            return OTHER_EXPRESSION;
+        }
+        String abbreviated = expression.length() <= expressionTagLength
+            ? expression : expression.substring(0, expressionTagLength) + "...";
+        String existing = expressionTags.putIfAbsent(expression, abbreviated);
+        return existing != null ? existing : abbreviated;
+    }
+}
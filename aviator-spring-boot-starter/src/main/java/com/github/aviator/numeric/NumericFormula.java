@@ -0,0 +1,146 @@
+package com.github.aviator.numeric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 纯数值公式的基本类型求值器
+ * <p>
+ * 对只包含数字、已声明变量、算术 / 比较 / 逻辑运算、三元运算和内置 math 函数的表达式，
+ * 按 Aviator 的类型提升规则直接在 double / long 上求值，参数和结果都不装箱，
+ * 也不会创建 AviatorDouble 等中间对象。其他表达式 {@link #tryCompile} 返回 null，由调用方回退到 Aviator。
+ * <p>
+ * 实例不可变，可以在线程间共享。
+ *
+ * @author Aviator Starter
+ */
+public final class NumericFormula {
+
+    private final String expression;
+
+    private final List<String> variables;
+
+    private final NumericNode doubleRoot;
+
+    private final NumericNode longRoot;
+
+    private NumericFormula(String expression, List<String> variables, NumericNode doubleRoot, NumericNode longRoot) {
+        this.expression = expression;
+        this.variables = variables;
+        this.doubleRoot = doubleRoot;
+        this.longRoot = longRoot;
+    }
+
+    /**
+     * 尝试把表达式编译为基本类型求值器
+     *
+     * @param expression 表达式
+     * @param variables 变量名，顺序即求值时参数数组的顺序
+     * @param builtinFunction 判断函数名是否仍为 Aviator 内置实现（未被引擎覆盖）
+     * @return 表达式不是静态数值表达式时返回 null
+     */
+    public static NumericFormula tryCompile(String expression, List<String> variables,
+                                            Predicate<String> builtinFunction) {
+        try {
+            NumericNode doubleRoot = new NumericParser(expression, variables, false, builtinFunction).parse();
+            NumericNode longRoot;
+            try {
+                longRoot = new NumericParser(expression, variables, true, builtinFunction).parse();
+            } catch (NumericParser.Unsupported e) {
+                // 例如 qty <= 10 ? qty : qty * 0.9，变量为 long 时两个分支类型不同
+                longRoot = null;
+            }
+            return new NumericFormula(expression, Collections.unmodifiableList(new ArrayList<>(variables)),
+                doubleRoot, longRoot);
+        } catch (NumericParser.Unsupported e) {
+            return null;
+        }
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * 结果是否为布尔值（参数按 double 传入时）
+     *
+     * @return 布尔表达式返回 true
+     */
+    public boolean isBoolean() {
+        return doubleRoot.type == NumericNode.Type.BOOLEAN;
+    }
+
+    /**
+     * 以 double 参数求值，结果转换为 double
+     *
+     * @param args 与变量顺序一致的参数
+     * @return 求值结果
+     * @throws IllegalStateException 表达式结果为布尔值时抛出
+     */
+    public double evalDouble(double[] args) {
+        checkArity(args.length);
+        if (isBoolean()) {
+            throw new IllegalStateException("Expression result is not a number: " + expression);
+        }
+        return doubleRoot.evalDouble(args, null);
+    }
+
+    /**
+     * 变量按 long 传入时是否仍是静态数值表达式
+     *
+     * @return 支持 {@link #evalLong(long[])} 时返回 true
+     */
+    public boolean supportsLong() {
+        return longRoot != null;
+    }
+
+    /**
+     * 以 long 参数求值，结果转换为 long（double 结果截断，与 Number.longValue 一致）
+     *
+     * @param args 与变量顺序一致的参数
+     * @return 求值结果
+     * @throws IllegalStateException 表达式结果为布尔值或不支持 long 参数时抛出
+     */
+    public long evalLong(long[] args) {
+        checkArity(args.length);
+        if (longRoot == null) {
+            throw new IllegalStateException("Expression is not statically numeric for long arguments: " + expression);
+        }
+        switch (longRoot.type) {
+            case LONG:
+                return longRoot.evalLong(null, args);
+            case DOUBLE:
+                return (long) longRoot.evalDouble(null, args);
+            default:
+                throw new IllegalStateException("Expression result is not a number: " + expression);
+        }
+    }
+
+    /**
+     * 以 double 参数求值布尔表达式
+     *
+     * @param args 与变量顺序一致的参数
+     * @return 求值结果
+     * @throws IllegalStateException 表达式结果不是布尔值时抛出
+     */
+    public boolean evalBoolean(double[] args) {
+        checkArity(args.length);
+        if (!isBoolean()) {
+            throw new IllegalStateException("Expression result is not a boolean: " + expression);
+        }
+        return doubleRoot.evalBoolean(args, null);
+    }
+
+    private void checkArity(int length) {
+        if (length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " arguments " + variables
+                + " but got " + length + ": " + expression);
+        }
+    }
+}
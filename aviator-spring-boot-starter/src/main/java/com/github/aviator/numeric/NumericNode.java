@@ -0,0 +1,425 @@
+package com.github.aviator.numeric;
+
+/**
+ * 静态类型的数值表达式节点
+ * <p>
+ * 节点在编译期确定结果类型（LONG / DOUBLE / BOOLEAN），求值时直接读写基本类型，不产生装箱对象。
+ * 类型提升规则与 Aviator 一致：long 与 double 运算时提升为 double，long 之间的除法为整除。
+ *
+ * @author Aviator Starter
+ */
+abstract class NumericNode {
+
+    enum Type {
+        LONG, DOUBLE, BOOLEAN
+    }
+
+    final Type type;
+
+    NumericNode(Type type) {
+        this.type = type;
+    }
+
+    double evalDouble(double[] d, long[] l) {
+        return evalLong(d, l);
+    }
+
+    long evalLong(double[] d, long[] l) {
+        throw new IllegalStateException("Not a long node: " + type);
+    }
+
+    boolean evalBoolean(double[] d, long[] l) {
+        throw new IllegalStateException("Not a boolean node: " + type);
+    }
+
+    boolean isNumeric() {
+        return type != Type.BOOLEAN;
+    }
+
+    static final class LongConst extends NumericNode {
+
+        private final long value;
+
+        LongConst(long value) {
+            super(Type.LONG);
+            this.value = value;
+        }
+
+        @Override
+        long evalLong(double[] d, long[] l) {
+            return value;
+        }
+    }
+
+    static final class DoubleConst extends NumericNode {
+
+        private final double value;
+
+        DoubleConst(double value) {
+            super(Type.DOUBLE);
+            this.value = value;
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            return value;
+        }
+    }
+
+    static final class BooleanConst extends NumericNode {
+
+        private final boolean value;
+
+        BooleanConst(boolean value) {
+            super(Type.BOOLEAN);
+            this.value = value;
+        }
+
+        @Override
+        boolean evalBoolean(double[] d, long[] l) {
+            return value;
+        }
+    }
+
+    static final class DoubleVar extends NumericNode {
+
+        private final int index;
+
+        DoubleVar(int index) {
+            super(Type.DOUBLE);
+            this.index = index;
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            return d[index];
+        }
+    }
+
+    static final class LongVar extends NumericNode {
+
+        private final int index;
+
+        LongVar(int index) {
+            super(Type.LONG);
+            this.index = index;
+        }
+
+        @Override
+        long evalLong(double[] d, long[] l) {
+            return l[index];
+        }
+    }
+
+    /**
+     * 算术运算：+ - * / %
+     */
+    static final class Arithmetic extends NumericNode {
+
+        private final char op;
+
+        private final NumericNode left;
+
+        private final NumericNode right;
+
+        Arithmetic(char op, NumericNode left, NumericNode right) {
+            super(left.type == Type.LONG && right.type == Type.LONG ? Type.LONG : Type.DOUBLE);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        long evalLong(double[] d, long[] l) {
+            long a = left.evalLong(d, l);
+            long b = right.evalLong(d, l);
+            switch (op) {
+                case '+':
+                    return a + b;
+                case '-':
+                    return a - b;
+                case '*':
+                    return a * b;
+                case '/':
+                    return a / b;
+                default:
+                    return a % b;
+            }
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            if (type == Type.LONG) {
+                return evalLong(d, l);
+            }
+            double a = left.evalDouble(d, l);
+            double b = right.evalDouble(d, l);
+            switch (op) {
+                case '+':
+                    return a + b;
+                case '-':
+                    return a - b;
+                case '*':
+                    return a * b;
+                case '/':
+                    return a / b;
+                default:
+                    return a % b;
+            }
+        }
+    }
+
+    static final class Negate extends NumericNode {
+
+        private final NumericNode operand;
+
+        Negate(NumericNode operand) {
+            super(operand.type);
+            this.operand = operand;
+        }
+
+        @Override
+        long evalLong(double[] d, long[] l) {
+            return -operand.evalLong(d, l);
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            return type == Type.LONG ? -operand.evalLong(d, l) : -operand.evalDouble(d, l);
+        }
+    }
+
+    /**
+     * 比较运算：< <= > >= == !=，两侧都是 long 时按 long 比较
+     */
+    static final class Compare extends NumericNode {
+
+        static final int LT = 0;
+
+        static final int LE = 1;
+
+        static final int GT = 2;
+
+        static final int GE = 3;
+
+        static final int EQ = 4;
+
+        static final int NE = 5;
+
+        private final int op;
+
+        private final NumericNode left;
+
+        private final NumericNode right;
+
+        private final boolean longCompare;
+
+        Compare(int op, NumericNode left, NumericNode right) {
+            super(Type.BOOLEAN);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+            this.longCompare = left.type == Type.LONG && right.type == Type.LONG;
+        }
+
+        @Override
+        boolean evalBoolean(double[] d, long[] l) {
+            int cmp;
+            if (longCompare) {
+                cmp = Long.compare(left.evalLong(d, l), right.evalLong(d, l));
+            } else {
+                cmp = Double.compare(left.evalDouble(d, l), right.evalDouble(d, l));
+            }
+            switch (op) {
+                case LT:
+                    return cmp < 0;
+                case LE:
+                    return cmp <= 0;
+                case GT:
+                    return cmp > 0;
+                case GE:
+                    return cmp >= 0;
+                case EQ:
+                    return cmp == 0;
+                default:
+                    return cmp != 0;
+            }
+        }
+    }
+
+    /**
+     * 布尔值相等比较：== !=
+     */
+    static final class BooleanEquals extends NumericNode {
+
+        private final boolean negate;
+
+        private final NumericNode left;
+
+        private final NumericNode right;
+
+        BooleanEquals(boolean negate, NumericNode left, NumericNode right) {
+            super(Type.BOOLEAN);
+            this.negate = negate;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evalBoolean(double[] d, long[] l) {
+            return (left.evalBoolean(d, l) == right.evalBoolean(d, l)) != negate;
+        }
+    }
+
+    /**
+     * 短路逻辑运算：&& ||
+     */
+    static final class Logical extends NumericNode {
+
+        private final boolean and;
+
+        private final NumericNode left;
+
+        private final NumericNode right;
+
+        Logical(boolean and, NumericNode left, NumericNode right) {
+            super(Type.BOOLEAN);
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evalBoolean(double[] d, long[] l) {
+            return and
+                ? left.evalBoolean(d, l) && right.evalBoolean(d, l)
+                : left.evalBoolean(d, l) || right.evalBoolean(d, l);
+        }
+    }
+
+    static final class Not extends NumericNode {
+
+        private final NumericNode operand;
+
+        Not(NumericNode operand) {
+            super(Type.BOOLEAN);
+            this.operand = operand;
+        }
+
+        @Override
+        boolean evalBoolean(double[] d, long[] l) {
+            return !operand.evalBoolean(d, l);
+        }
+    }
+
+    /**
+     * 三元运算，两个分支的类型必须相同
+     */
+    static final class Ternary extends NumericNode {
+
+        private final NumericNode condition;
+
+        private final NumericNode whenTrue;
+
+        private final NumericNode whenFalse;
+
+        Ternary(NumericNode condition, NumericNode whenTrue, NumericNode whenFalse) {
+            super(whenTrue.type);
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        long evalLong(double[] d, long[] l) {
+            return condition.evalBoolean(d, l) ? whenTrue.evalLong(d, l) : whenFalse.evalLong(d, l);
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            return condition.evalBoolean(d, l) ? whenTrue.evalDouble(d, l) : whenFalse.evalDouble(d, l);
+        }
+
+        @Override
+        boolean evalBoolean(double[] d, long[] l) {
+            return condition.evalBoolean(d, l) ? whenTrue.evalBoolean(d, l) : whenFalse.evalBoolean(d, l);
+        }
+    }
+
+    /**
+     * math.abs，保持参数类型
+     */
+    static final class Abs extends NumericNode {
+
+        private final NumericNode operand;
+
+        Abs(NumericNode operand) {
+            super(operand.type);
+            this.operand = operand;
+        }
+
+        @Override
+        long evalLong(double[] d, long[] l) {
+            return Math.abs(operand.evalLong(d, l));
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            return type == Type.LONG ? Math.abs(operand.evalLong(d, l)) : Math.abs(operand.evalDouble(d, l));
+        }
+    }
+
+    /**
+     * 结果为 double 的数学函数
+     */
+    static final class MathFunction extends NumericNode {
+
+        static final int SQRT = 0;
+
+        static final int POW = 1;
+
+        static final int LOG = 2;
+
+        static final int LOG10 = 3;
+
+        static final int SIN = 4;
+
+        static final int COS = 5;
+
+        static final int TAN = 6;
+
+        private final int function;
+
+        private final NumericNode first;
+
+        private final NumericNode second;
+
+        MathFunction(int function, NumericNode first, NumericNode second) {
+            super(Type.DOUBLE);
+            this.function = function;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        double evalDouble(double[] d, long[] l) {
+            double x = first.evalDouble(d, l);
+            switch (function) {
+                case SQRT:
+                    return Math.sqrt(x);
+                case POW:
+                    return Math.pow(x, second.evalDouble(d, l));
+                case LOG:
+                    return Math.log(x);
+                case LOG10:
+                    return Math.log10(x);
+                case SIN:
+                    return Math.sin(x);
+                case COS:
+                    return Math.cos(x);
+                default:
+                    return Math.tan(x);
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.github.aviator.numeric;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 纯数值表达式的递归下降解析器
+ * <p>
+ * 只接受 Aviator 语法的一个子集：数字字面量、true / false、已声明的变量、算术 / 比较 / 逻辑运算、
+ * 三元运算和少量内置 math 函数。遇到其他语法时抛出 {@link Unsupported}，由调用方回退到 Aviator 求值。
+ *
+ * @author Aviator Starter
+ */
+final class NumericParser {
+
+    /**
+     * 表达式不在支持的子集内
+     */
+    static final class Unsupported extends RuntimeException {
+
+        static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super("Expression is not statically numeric", null, false, false);
+        }
+    }
+
+    private static final Map<String, Integer> MATH_FUNCTIONS = new HashMap<>();
+
+    static {
+        MATH_FUNCTIONS.put("math.sqrt", NumericNode.MathFunction.SQRT);
+        MATH_FUNCTIONS.put("math.pow", NumericNode.MathFunction.POW);
+        MATH_FUNCTIONS.put("math.log", NumericNode.MathFunction.LOG);
+        MATH_FUNCTIONS.put("math.log10", NumericNode.MathFunction.LOG10);
+        MATH_FUNCTIONS.put("math.sin", NumericNode.MathFunction.SIN);
+        MATH_FUNCTIONS.put("math.cos", NumericNode.MathFunction.COS);
+        MATH_FUNCTIONS.put("math.tan", NumericNode.MathFunction.TAN);
+    }
+
+    private final String source;
+
+    private final Map<String, Integer> variables = new HashMap<>();
+
+    private final boolean longVariables;
+
+    private final Predicate<String> builtinFunction;
+
+    private int pos;
+
+    NumericParser(String source, List<String> variables, boolean longVariables, Predicate<String> builtinFunction) {
+        this.source = source;
+        for (int i = 0; i < variables.size(); i++) {
+            this.variables.put(variables.get(i), i);
+        }
+        this.longVariables = longVariables;
+        this.builtinFunction = builtinFunction;
+    }
+
+    NumericNode parse() {
+        NumericNode node = ternary();
+        skipWhitespace();
+        if (pos != source.length()) {
+            throw Unsupported.INSTANCE;
+        }
+        return node;
+    }
+
+    private NumericNode ternary() {
+        NumericNode condition = or();
+        if (!accept("?")) {
+            return condition;
+        }
+        NumericNode whenTrue = ternary();
+        expect(":");
+        NumericNode whenFalse = ternary();
+        // 分支类型不同时 Aviator 的结果类型取决于运行时走哪个分支，无法静态确定
+        if (condition.type != NumericNode.Type.BOOLEAN || whenTrue.type != whenFalse.type) {
+            throw Unsupported.INSTANCE;
+        }
+        return new NumericNode.Ternary(condition, whenTrue, whenFalse);
+    }
+
+    private NumericNode or() {
+        NumericNode left = and();
+        while (accept("||")) {
+            left = new NumericNode.Logical(false, requireBoolean(left), requireBoolean(and()));
+        }
+        return left;
+    }
+
+    private NumericNode and() {
+        NumericNode left = equality();
+        while (accept("&&")) {
+            left = new NumericNode.Logical(true, requireBoolean(left), requireBoolean(equality()));
+        }
+        return left;
+    }
+
+    private NumericNode equality() {
+        NumericNode left = relational();
+        while (true) {
+            boolean negate;
+            if (accept("==")) {
+                negate = false;
+            } else if (accept("!=")) {
+                negate = true;
+            } else {
+                return left;
+            }
+            NumericNode right = relational();
+            if (left.isNumeric() && right.isNumeric()) {
+                left = new NumericNode.Compare(negate ? NumericNode.Compare.NE : NumericNode.Compare.EQ, left, right);
+            } else if (!left.isNumeric() && !right.isNumeric()) {
+                left = new NumericNode.BooleanEquals(negate, left, right);
+            } else {
+                throw Unsupported.INSTANCE;
+            }
+        }
+    }
+
+    private NumericNode relational() {
+        NumericNode left = additive();
+        while (true) {
+            int op;
+            if (accept("<=")) {
+                op = NumericNode.Compare.LE;
+            } else if (accept(">=")) {
+                op = NumericNode.Compare.GE;
+            } else if (accept("<")) {
+                op = NumericNode.Compare.LT;
+            } else if (accept(">")) {
+                op = NumericNode.Compare.GT;
+            } else {
+                return left;
+            }
+            left = new NumericNode.Compare(op, requireNumeric(left), requireNumeric(additive()));
+        }
+    }
+
+    private NumericNode additive() {
+        NumericNode left = multiplicative();
+        while (true) {
+            char op;
+            if (accept("+")) {
+                op = '+';
+            } else if (accept("-")) {
+                op = '-';
+            } else {
+                return left;
+            }
+            left = new NumericNode.Arithmetic(op, requireNumeric(left), requireNumeric(multiplicative()));
+        }
+    }
+
+    private NumericNode multiplicative() {
+        NumericNode left = unary();
+        while (true) {
+            char op;
+            if (peek("**")) {
+                throw Unsupported.INSTANCE;
+            } else if (accept("*")) {
+                op = '*';
+            } else if (accept("/")) {
+                op = '/';
+            } else if (accept("%")) {
+                op = '%';
+            } else {
+                return left;
+            }
+            left = new NumericNode.Arithmetic(op, requireNumeric(left), requireNumeric(unary()));
+        }
+    }
+
+    private NumericNode unary() {
+        if (accept("-")) {
+            return new NumericNode.Negate(requireNumeric(unary()));
+        }
+        if (peek("!=")) {
+            throw Unsupported.INSTANCE;
+        }
+        if (accept("!")) {
+            return new NumericNode.Not(requireBoolean(unary()));
+        }
+        return primary();
+    }
+
+    private NumericNode primary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw Unsupported.INSTANCE;
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            NumericNode node = ternary();
+            expect(")");
+            return node;
+        }
+        if (Character.isDigit(c)) {
+            return number();
+        }
+        if (Character.isLetter(c) || c == '_' || c == '$') {
+            return identifier();
+        }
+        throw Unsupported.INSTANCE;
+    }
+
+    private NumericNode number() {
+        int start = pos;
+        boolean floating = false;
+        while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos < source.length() && source.charAt(pos) == '.') {
+            floating = true;
+            pos++;
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+        }
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            floating = true;
+            pos++;
+            if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+        }
+        // 0x 十六进制、M（BigDecimal）、N（BigInteger）等后缀不在支持范围内
+        if (pos < source.length() && Character.isLetterOrDigit(source.charAt(pos))) {
+            throw Unsupported.INSTANCE;
+        }
+        String literal = source.substring(start, pos);
+        try {
+            return floating
+                ? new NumericNode.DoubleConst(Double.parseDouble(literal))
+                : new NumericNode.LongConst(Long.parseLong(literal));
+        } catch (NumberFormatException e) {
+            throw Unsupported.INSTANCE;
+        }
+    }
+
+    private NumericNode identifier() {
+        int start = pos;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        String name = source.substring(start, pos);
+        if (peek("(")) {
+            return function(name);
+        }
+        if ("true".equals(name) || "false".equals(name)) {
+            return new NumericNode.BooleanConst(Boolean.parseBoolean(name));
+        }
+        // a.b 在 Aviator 中是嵌套属性访问，不按普通变量处理
+        Integer index = name.indexOf('.') < 0 ? variables.get(name) : null;
+        if (index == null) {
+            throw Unsupported.INSTANCE;
+        }
+        return longVariables ? new NumericNode.LongVar(index) : new NumericNode.DoubleVar(index);
+    }
+
+    private NumericNode function(String name) {
+        if (!builtinFunction.test(name)) {
+            throw Unsupported.INSTANCE;
+        }
+        expect("(");
+        NumericNode first = requireNumeric(ternary());
+        NumericNode second = null;
+        if (accept(",")) {
+            second = requireNumeric(ternary());
+        }
+        expect(")");
+
+        if ("math.abs".equals(name) && second == null) {
+            return new NumericNode.Abs(first);
+        }
+        Integer function = MATH_FUNCTIONS.get(name);
+        boolean binary = function != null && function == NumericNode.MathFunction.POW;
+        if (function == null || binary != (second != null)) {
+            throw Unsupported.INSTANCE;
+        }
+        return new NumericNode.MathFunction(function, first, second);
+    }
+
+    private static NumericNode requireNumeric(NumericNode node) {
+        if (!node.isNumeric()) {
+            throw Unsupported.INSTANCE;
+        }
+        return node;
+    }
+
+    private static NumericNode requireBoolean(NumericNode node) {
+        if (node.isNumeric()) {
+            throw Unsupported.INSTANCE;
+        }
+        return node;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean peek(String token) {
+        skipWhitespace();
+        return source.startsWith(token, pos);
+    }
+
+    private boolean accept(String token) {
+        if (!peek(token)) {
+            return false;
+        }
+        // 单字符运算符不能是更长运算符的前缀，例如 "=" 之于 "=="、"&" 之于 "&&"
+        int end = pos + token.length();
+        if (end < source.length() && token.length() == 1) {
+            char next = source.charAt(end);
+            if ((token.equals("<") || token.equals(">") || token.equals("!")) && next == '=') {
+                return false;
+            }
+            if (token.equals("*") && next == '*') {
+                return false;
+            }
+        }
+        pos = end;
+        return true;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw Unsupported.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.github.aviator.ruleset;
+
+import com.googlecode.aviator.lexer.token.OperatorType;
+import com.googlecode.aviator.runtime.op.OperationRuntime;
+import com.googlecode.aviator.runtime.type.AviatorBoolean;
+import com.googlecode.aviator.runtime.type.AviatorFunction;
+import com.googlecode.aviator.runtime.type.AviatorJavaType;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+
+import java.util.Map;
+
+/**
+ * 规则集执行计划中的节点
+ * <p>
+ * 相同结构的子表达式在所有规则之间共享同一个节点，每次求值时结果按节点编号缓存在 memo 数组中，
+ * 共享的比较、算术和纯函数调用在一次求值中只计算一次。运算直接委托给 Aviator 的运行时类型，
+ * 类型提升、nil 比较和运算符重载的语义与 Aviator 一致。
+ *
+ * @author Aviator Starter
+ */
+abstract class RuleNode {
+
+    /**
+     * 节点编号，即 memo 数组下标
+     */
+    final int id;
+
+    RuleNode(int id) {
+        this.id = id;
+    }
+
+    final AviatorObject eval(Map<String, Object> env, AviatorObject[] memo) {
+        AviatorObject value = memo[id];
+        if (value == null) {
+            value = compute(env, memo);
+            memo[id] = value;
+        }
+        return value;
+    }
+
+    abstract AviatorObject compute(Map<String, Object> env, AviatorObject[] memo);
+
+    static final class Constant extends RuleNode {
+
+        private final AviatorObject value;
+
+        Constant(int id, AviatorObject value) {
+            super(id);
+            this.value = value;
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            return value;
+        }
+    }
+
+    /**
+     * 变量引用，与 Aviator 一样在使用时才从环境中取值，函数参数保留原始 Java 类型
+     */
+    static final class Variable extends RuleNode {
+
+        private final AviatorJavaType variable;
+
+        Variable(int id, String name) {
+            super(id);
+            this.variable = new AviatorJavaType(name);
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            return variable;
+        }
+    }
+
+    /**
+     * 算术运算和一元运算（+ - * / % 取负 取反）
+     */
+    static final class Operation extends RuleNode {
+
+        private final OperatorType op;
+
+        private final RuleNode left;
+
+        private final RuleNode right;
+
+        Operation(int id, OperatorType op, RuleNode left, RuleNode right) {
+            super(id);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            if (right == null) {
+                return OperationRuntime.eval(left.eval(env, memo), env, op);
+            }
+            return OperationRuntime.eval(left.eval(env, memo), right.eval(env, memo), env, op);
+        }
+    }
+
+    static final class Comparison extends RuleNode {
+
+        private final OperatorType op;
+
+        private final RuleNode left;
+
+        private final RuleNode right;
+
+        Comparison(int id, OperatorType op, RuleNode left, RuleNode right) {
+            super(id);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            AviatorObject a = left.eval(env, memo);
+            AviatorObject b = right.eval(env, memo);
+            switch (op) {
+                case EQ:
+                    return AviatorBoolean.valueOf(a.compareEq(b, env) == 0);
+                case NEQ:
+                    return AviatorBoolean.valueOf(a.compareEq(b, env) != 0);
+                case LT:
+                    return AviatorBoolean.valueOf(a.compare(b, env) < 0);
+                case LE:
+                    return AviatorBoolean.valueOf(a.compare(b, env) <= 0);
+                case GT:
+                    return AviatorBoolean.valueOf(a.compare(b, env) > 0);
+                default:
+                    return AviatorBoolean.valueOf(a.compare(b, env) >= 0);
+            }
+        }
+    }
+
+    /**
+     * 短路逻辑运算，右侧只在需要时求值
+     */
+    static final class Logical extends RuleNode {
+
+        private final boolean and;
+
+        private final RuleNode left;
+
+        private final RuleNode right;
+
+        Logical(int id, boolean and, RuleNode left, RuleNode right) {
+            super(id);
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            boolean first = left.eval(env, memo).booleanValue(env);
+            if (and ? !first : first) {
+                return AviatorBoolean.valueOf(first);
+            }
+            return AviatorBoolean.valueOf(right.eval(env, memo).booleanValue(env));
+        }
+    }
+
+    static final class Ternary extends RuleNode {
+
+        private final RuleNode condition;
+
+        private final RuleNode whenTrue;
+
+        private final RuleNode whenFalse;
+
+        Ternary(int id, RuleNode condition, RuleNode whenTrue, RuleNode whenFalse) {
+            super(id);
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            return condition.eval(env, memo).booleanValue(env)
+                ? whenTrue.eval(env, memo)
+                : whenFalse.eval(env, memo);
+        }
+    }
+
+    static final class Call extends RuleNode {
+
+        private final AviatorFunction function;
+
+        private final RuleNode[] args;
+
+        Call(int id, AviatorFunction function, RuleNode[] args) {
+            super(id);
+            this.function = function;
+            this.args = args;
+        }
+
+        @Override
+        AviatorObject compute(Map<String, Object> env, AviatorObject[] memo) {
+            switch (args.length) {
+                case 0:
+                    return function.call(env);
+                case 1:
+                    return function.call(env, args[0].eval(env, memo));
+                case 2:
+                    return function.call(env, args[0].eval(env, memo), args[1].eval(env, memo));
+                case 3:
+                    return function.call(env, args[0].eval(env, memo), args[1].eval(env, memo),
+                        args[2].eval(env, memo));
+                default:
+                    return function.call(env, args[0].eval(env, memo), args[1].eval(env, memo),
+                        args[2].eval(env, memo), args[3].eval(env, memo));
+            }
+        }
+    }
+}
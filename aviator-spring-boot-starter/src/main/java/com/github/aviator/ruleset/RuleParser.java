@@ -0,0 +1,426 @@
+package com.github.aviator.ruleset;
+
+import com.github.aviator.decision.DecisionTableFunction;
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.Options;
+import com.googlecode.aviator.lexer.token.OperatorType;
+import com.googlecode.aviator.runtime.type.AviatorBoolean;
+import com.googlecode.aviator.runtime.type.AviatorDecimal;
+import com.googlecode.aviator.runtime.type.AviatorDouble;
+import com.googlecode.aviator.runtime.type.AviatorFunction;
+import com.googlecode.aviator.runtime.type.AviatorLong;
+import com.googlecode.aviator.runtime.type.AviatorNil;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.runtime.type.AviatorString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把多条规则解析为共享子表达式的执行计划
+ * <p>
+ * 解析器只接受表达式语法的一个子集：字面量、变量、算术 / 比较 / 逻辑 / 三元运算和最多 4 个参数的函数调用。
+ * 节点按结构去重（hash-consing），不同规则中相同的子表达式得到同一个节点。
+ * 函数调用只有在函数是纯函数（内置 math.* / string.* 函数和决策表）时才共享。
+ * 遇到子集之外的语法时抛出 {@link Unsupported}，该规则回退为 Aviator 单独求值。
+ *
+ * @author Aviator Starter
+ */
+final class RuleParser {
+
+    /**
+     * 规则不在支持的语法子集内
+     */
+    static final class Unsupported extends RuntimeException {
+
+        static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super("Rule is outside the supported syntax subset", null, false, false);
+        }
+    }
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+        "if", "else", "elsif", "for", "in", "while", "break", "continue", "return", "let", "fn", "lambda",
+        "end", "new", "try", "catch", "finally", "throw", "use", "nil", "true", "false"));
+
+    private static final String[] OPERATORS = {
+        "&&", "||", "==", "!=", "<=", ">=", "=~", "**", "<<", ">>",
+        "+", "-", "*", "/", "%", "<", ">", "!", "?", ":", "(", ")", ","
+    };
+
+    private final AviatorEvaluatorInstance evaluator;
+
+    /**
+     * 结构键到节点的映射，在所有规则之间共享
+     */
+    private final Map<String, RuleNode> nodes = new HashMap<>();
+
+    private int nextId;
+
+    /**
+     * 不共享的节点数（不纯的函数调用），也占用 memo 下标
+     */
+    private int totalNodes;
+
+    private String source;
+
+    private List<String> tokens;
+
+    private int pos;
+
+    RuleParser(AviatorEvaluatorInstance evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * 已分配的节点数，即 memo 数组长度
+     */
+    int nodeCount() {
+        return nextId;
+    }
+
+    /**
+     * 不去重时的节点总数，用于衡量共享效果
+     */
+    int totalNodeCount() {
+        return totalNodes;
+    }
+
+    /**
+     * 解析一条规则；失败时已经创建的共享节点保留在计划中，不影响正确性
+     */
+    RuleNode parse(String rule) {
+        this.source = rule;
+        this.tokens = tokenize(rule);
+        this.pos = 0;
+        int nodesBefore = totalNodes;
+        try {
+            RuleNode root = ternary();
+            if (pos != tokens.size()) {
+                throw Unsupported.INSTANCE;
+            }
+            return root;
+        } catch (Unsupported e) {
+            totalNodes = nodesBefore;
+            throw e;
+        }
+    }
+
+    private RuleNode ternary() {
+        RuleNode condition = or();
+        if (!accept("?")) {
+            return condition;
+        }
+        RuleNode whenTrue = ternary();
+        expect(":");
+        RuleNode whenFalse = ternary();
+        return node("?(" + condition.id + "," + whenTrue.id + "," + whenFalse.id + ")",
+            id -> new RuleNode.Ternary(id, condition, whenTrue, whenFalse));
+    }
+
+    private RuleNode or() {
+        RuleNode left = and();
+        while (accept("||")) {
+            RuleNode l = left;
+            RuleNode r = and();
+            left = node("||(" + l.id + "," + r.id + ")", id -> new RuleNode.Logical(id, false, l, r));
+        }
+        return left;
+    }
+
+    private RuleNode and() {
+        RuleNode left = equality();
+        while (accept("&&")) {
+            RuleNode l = left;
+            RuleNode r = equality();
+            left = node("&&(" + l.id + "," + r.id + ")", id -> new RuleNode.Logical(id, true, l, r));
+        }
+        return left;
+    }
+
+    private RuleNode equality() {
+        RuleNode left = relational();
+        while (true) {
+            OperatorType op;
+            if (accept("==")) {
+                op = OperatorType.EQ;
+            } else if (accept("!=")) {
+                op = OperatorType.NEQ;
+            } else {
+                return left;
+            }
+            left = comparison(op, left, relational());
+        }
+    }
+
+    private RuleNode relational() {
+        RuleNode left = additive();
+        while (true) {
+            OperatorType op;
+            if (accept("<")) {
+                op = OperatorType.LT;
+            } else if (accept("<=")) {
+                op = OperatorType.LE;
+            } else if (accept(">")) {
+                op = OperatorType.GT;
+            } else if (accept(">=")) {
+                op = OperatorType.GE;
+            } else {
+                return left;
+            }
+            left = comparison(op, left, additive());
+        }
+    }
+
+    private RuleNode comparison(OperatorType op, RuleNode l, RuleNode r) {
+        return node(op.name() + "(" + l.id + "," + r.id + ")", id -> new RuleNode.Comparison(id, op, l, r));
+    }
+
+    private RuleNode additive() {
+        RuleNode left = multiplicative();
+        while (true) {
+            OperatorType op;
+            if (accept("+")) {
+                op = OperatorType.ADD;
+            } else if (accept("-")) {
+                op = OperatorType.SUB;
+            } else {
+                return left;
+            }
+            left = operation(op, left, multiplicative());
+        }
+    }
+
+    private RuleNode multiplicative() {
+        RuleNode left = unary();
+        while (true) {
+            OperatorType op;
+            if (accept("*")) {
+                op = OperatorType.MULT;
+            } else if (accept("/")) {
+                op = OperatorType.DIV;
+            } else if (accept("%")) {
+                op = OperatorType.MOD;
+            } else {
+                return left;
+            }
+            left = operation(op, left, unary());
+        }
+    }
+
+    private RuleNode unary() {
+        if (accept("-")) {
+            return operation(OperatorType.NEG, unary(), null);
+        }
+        if (accept("!")) {
+            return operation(OperatorType.NOT, unary(), null);
+        }
+        return primary();
+    }
+
+    private RuleNode operation(OperatorType op, RuleNode l, RuleNode r) {
+        String key = op.name() + "(" + l.id + (r != null ? "," + r.id : "") + ")";
+        return node(key, id -> new RuleNode.Operation(id, op, l, r));
+    }
+
+    private RuleNode primary() {
+        String token = next();
+        if ("(".equals(token)) {
+            RuleNode node = ternary();
+            expect(")");
+            return node;
+        }
+        char c = token.charAt(0);
+        if (c == '\'' || c == '"') {
+            String value = token.substring(1, token.length() - 1);
+            return node("S:" + value, id -> new RuleNode.Constant(id, new AviatorString(value)));
+        }
+        if (Character.isDigit(c)) {
+            return number(token);
+        }
+        if (Character.isLetter(c) || c == '_' || c == '$') {
+            return identifier(token);
+        }
+        throw Unsupported.INSTANCE;
+    }
+
+    private RuleNode number(String token) {
+        try {
+            if (token.indexOf('.') >= 0 || token.indexOf('e') >= 0 || token.indexOf('E') >= 0) {
+                double value = Double.parseDouble(token);
+                boolean decimal = evaluator.getOptionValue(Options.ALWAYS_PARSE_FLOATING_POINT_NUMBER_INTO_DECIMAL).bool;
+                return node("D:" + token, id -> new RuleNode.Constant(id,
+                    decimal ? AviatorDecimal.valueOf(evaluator, token) : new AviatorDouble(value)));
+            }
+            long value = Long.parseLong(token);
+            boolean decimal = evaluator.getOptionValue(Options.ALWAYS_PARSE_INTEGRAL_NUMBER_INTO_DECIMAL).bool;
+            return node("L:" + token, id -> new RuleNode.Constant(id,
+                decimal ? AviatorDecimal.valueOf(evaluator, token) : AviatorLong.valueOf(value)));
+        } catch (NumberFormatException e) {
+            throw Unsupported.INSTANCE;
+        }
+    }
+
+    private RuleNode identifier(String name) {
+        if (accept("(")) {
+            return call(name);
+        }
+        switch (name) {
+            case "true":
+                return node("B:true", id -> new RuleNode.Constant(id, AviatorBoolean.TRUE));
+            case "false":
+                return node("B:false", id -> new RuleNode.Constant(id, AviatorBoolean.FALSE));
+            case "nil":
+                return node("NIL", id -> new RuleNode.Constant(id, AviatorNil.NIL));
+            default:
+                break;
+        }
+        // a.b 嵌套属性访问、__env__ 等特殊变量和关键字交给 Aviator 处理
+        if (KEYWORDS.contains(name) || name.indexOf('.') >= 0 || name.startsWith("__")) {
+            throw Unsupported.INSTANCE;
+        }
+        return node("V:" + name, id -> new RuleNode.Variable(id, name));
+    }
+
+    private RuleNode call(String name) {
+        if (KEYWORDS.contains(name) || !evaluator.containsFunction(name)) {
+            throw Unsupported.INSTANCE;
+        }
+        AviatorFunction function = evaluator.getFunction(name);
+        List<RuleNode> args = new ArrayList<>();
+        if (!accept(")")) {
+            do {
+                args.add(ternary());
+            } while (accept(","));
+            expect(")");
+        }
+        if (args.size() > 4) {
+            throw Unsupported.INSTANCE;
+        }
+        RuleNode[] argNodes = args.toArray(new RuleNode[0]);
+        if (!isPure(function)) {
+            totalNodes++;
+            return new RuleNode.Call(nextId++, function, argNodes);
+        }
+        StringBuilder key = new StringBuilder("F:").append(name).append('(');
+        for (RuleNode arg : argNodes) {
+            key.append(arg.id).append(',');
+        }
+        return node(key.append(')').toString(), id -> new RuleNode.Call(id, function, argNodes));
+    }
+
+    private static boolean isPure(AviatorFunction function) {
+        String className = function.getClass().getName();
+        return function instanceof DecisionTableFunction
+            || className.startsWith("com.googlecode.aviator.runtime.function.math.")
+            || className.startsWith("com.googlecode.aviator.runtime.function.string.");
+    }
+
+    private interface NodeFactory {
+        RuleNode create(int id);
+    }
+
+    private RuleNode node(String key, NodeFactory factory) {
+        totalNodes++;
+        RuleNode node = nodes.get(key);
+        if (node == null) {
+            node = factory.create(nextId++);
+            nodes.put(key, node);
+        }
+        return node;
+    }
+
+    private String next() {
+        if (pos >= tokens.size()) {
+            throw Unsupported.INSTANCE;
+        }
+        return tokens.get(pos++);
+    }
+
+    private boolean accept(String token) {
+        if (pos < tokens.size() && tokens.get(pos).equals(token)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw Unsupported.INSTANCE;
+        }
+    }
+
+    /**
+     * 词法分析；遇到子集之外的符号（赋值、正则、位运算、集合字面量、注释等）直接判定为不支持
+     */
+    private List<String> tokenize(String rule) {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        int length = rule.length();
+        while (i < length) {
+            char c = rule.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < length && (Character.isDigit(rule.charAt(i)) || rule.charAt(i) == '.')) {
+                    i++;
+                }
+                if (i < length && (rule.charAt(i) == 'e' || rule.charAt(i) == 'E')) {
+                    i++;
+                    if (i < length && (rule.charAt(i) == '+' || rule.charAt(i) == '-')) {
+                        i++;
+                    }
+                    while (i < length && Character.isDigit(rule.charAt(i))) {
+                        i++;
+                    }
+                }
+                // 0x 十六进制、M / N 后缀等交给 Aviator
+                if (i < length && Character.isLetterOrDigit(rule.charAt(i))) {
+                    throw Unsupported.INSTANCE;
+                }
+                result.add(rule.substring(start, i));
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(rule.charAt(i)) || rule.charAt(i) == '_'
+                    || rule.charAt(i) == '$' || rule.charAt(i) == '.')) {
+                    i++;
+                }
+                result.add(rule.substring(start, i));
+            } else if (c == '\'' || c == '"') {
+                int end = rule.indexOf(c, i + 1);
+                String literal = end > 0 ? rule.substring(i, end + 1) : null;
+                // 转义和字符串插值交给 Aviator
+                if (literal == null || literal.indexOf('\\') >= 0 || literal.contains("#{")) {
+                    throw Unsupported.INSTANCE;
+                }
+                result.add(literal);
+                i = end + 1;
+            } else {
+                String operator = matchOperator(rule, i);
+                result.add(operator);
+                i += operator.length();
+            }
+        }
+        return result;
+    }
+
+    private static String matchOperator(String rule, int index) {
+        for (String operator : OPERATORS) {
+            if (rule.startsWith(operator, index)) {
+                if ("=~".equals(operator) || "**".equals(operator) || "<<".equals(operator) || ">>".equals(operator)) {
+                    throw Unsupported.INSTANCE;
+                }
+                return operator;
+            }
+        }
+        throw Unsupported.INSTANCE;
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.aviator.ruleset;
+
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.utils.Env;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 规则集：把多条命名规则编译为一个共享子表达式的执行计划，一次求值得到所有规则的结果
+ * <p>
+ * 规则之间相同的子表达式（如多条规则都判断的 {@code age >= 18}）只计算一次。
+ * 超出支持语法子集的规则会回退为单独执行 Aviator 编译结果，结果与逐条 {@code execute} 一致。
+ * <p>
+ * 实例不可变，可以在多个线程之间共享；每次求值使用独立的中间结果数组。
+ *
+ * @author Aviator Starter
+ */
+public final class RuleSet {
+
+    private final AviatorEvaluatorInstance evaluator;
+
+    private final List<String> names;
+
+    private final Map<String, Integer> indexes;
+
+    private final String[] expressions;
+
+    /**
+     * 每条规则的计划根节点，回退执行的规则为 null
+     */
+    private final RuleNode[] roots;
+
+    /**
+     * 每条规则的 Aviator 编译结果，仅回退执行的规则非 null
+     */
+    private final Expression[] fallbacks;
+
+    private final int nodeCount;
+
+    private final int totalNodeCount;
+
+    private RuleSet(AviatorEvaluatorInstance evaluator, List<String> names, String[] expressions, RuleNode[] roots, Expression[] fallbacks,
+                    int nodeCount, int totalNodeCount) {
+        this.evaluator = evaluator;
+        this.names = Collections.unmodifiableList(names);
+        Map<String, Integer> indexMap = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) {
+            indexMap.put(names.get(i), i);
+        }
+        this.indexes = indexMap;
+        this.expressions = expressions;
+        this.roots = roots;
+        this.fallbacks = fallbacks;
+        this.nodeCount = nodeCount;
+        this.totalNodeCount = totalNodeCount;
+    }
+
+    /**
+     * 编译规则集
+     * <p>
+     * 每条规则都会先经过 Aviator 编译，语法错误与单独编译时一样以异常抛出。
+     * 引擎重载了运算符时所有规则都回退为单独执行。
+     *
+     * @param rules 规则名称到表达式的映射，求值结果按该映射的迭代顺序排列
+     * @param evaluator 规则使用的 Aviator 实例，函数和数值选项从中读取
+     * @param compiler Aviator 编译函数，通常为带缓存的 {@code AviatorService#getCompiledExpression}
+     * @return 规则集
+     */
+    public static RuleSet compile(Map<String, String> rules, AviatorEvaluatorInstance evaluator,
+                                  Function<String, Expression> compiler) {
+        int size = rules.size();
+        List<String> names = new ArrayList<>(size);
+        String[] expressions = new String[size];
+        RuleNode[] roots = new RuleNode[size];
+        Expression[] fallbacks = new Expression[size];
+        RuleParser parser = new RuleParser(evaluator);
+        boolean shared = evaluator.getOpsMap().isEmpty();
+        int i = 0;
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            names.add(rule.getKey());
+            expressions[i] = rule.getValue();
+            Expression compiled = compiler.apply(rule.getValue());
+            roots[i] = shared ? tryParse(parser, rule.getValue()) : null;
+            if (roots[i] == null) {
+                fallbacks[i] = compiled;
+            }
+            i++;
+        }
+        return new RuleSet(evaluator, names, expressions, roots, fallbacks, parser.nodeCount(), parser.totalNodeCount());
+    }
+
+    private static RuleNode tryParse(RuleParser parser, String expression) {
+        try {
+            return parser.parse(expression);
+        } catch (RuleParser.Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * 使用同一个环境一次求值所有规则
+     *
+     * @param env 变量环境
+     * @return 所有规则的结果
+     * @throws RuntimeException 任一规则求值失败时抛出，消息中包含规则名称和表达式
+     */
+    public RuleSetResult evaluate(Map<String, Object> env) {
+        AviatorObject[] memo = new AviatorObject[nodeCount];
+        // 运行时函数通过 Env 找到所属引擎的选项（如 decimal 精度），与 Aviator 执行时一致
+        Env scope = new Env(env);
+        scope.setInstance(evaluator);
+        Object[] values = new Object[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            try {
+                values[i] = roots[i] != null
+                    ? roots[i].eval(scope, memo).getValue(scope)
+                    : fallbacks[i].execute(env);
+            } catch (RuntimeException e) {
+                throw new RuntimeException(
+                    "Failed to evaluate rule [" + names.get(i) + "]: " + expressions[i], e);
+            }
+        }
+        return new RuleSetResult(names, indexes, values);
+    }
+
+    /**
+     * 规则名称（按定义顺序）
+     *
+     * @return 只读的规则名称列表
+     */
+    public List<String> getRuleNames() {
+        return names;
+    }
+
+    /**
+     * 共享执行计划中的节点数
+     *
+     * @return 去重后的节点数
+     */
+    public int getDistinctNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 各规则单独计算时的节点总数，与 {@link #getDistinctNodeCount()} 的差值即共享省下的计算
+     *
+     * @return 不去重的节点总数
+     */
+    public int getTotalNodeCount() {
+        return totalNodeCount;
+    }
+
+    /**
+     * 回退为单独执行 Aviator 表达式的规则
+     *
+     * @return 规则名称列表
+     */
+    public List<String> getFallbackRuleNames() {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < fallbacks.length; i++) {
+            if (fallbacks[i] != null) {
+                result.add(names.get(i));
+            }
+        }
+        return result;
+    }
+}
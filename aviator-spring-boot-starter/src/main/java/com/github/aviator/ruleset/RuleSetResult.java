@@ -0,0 +1,78 @@
+package com.github.aviator.ruleset;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规则集一次求值的结果，按规则名称或定义顺序访问
+ *
+ * @author Aviator Starter
+ */
+public final class RuleSetResult {
+
+    private final List<String> names;
+
+    private final Map<String, Integer> indexes;
+
+    private final Object[] values;
+
+    RuleSetResult(List<String> names, Map<String, Integer> indexes, Object[] values) {
+        this.names = names;
+        this.indexes = indexes;
+        this.values = values;
+    }
+
+    /**
+     * 获取指定规则的结果
+     *
+     * @param name 规则名称
+     * @return 规则结果
+     * @throws IllegalArgumentException 规则不存在时抛出
+     */
+    public Object get(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Rule not found: " + name);
+        }
+        return values[index];
+    }
+
+    /**
+     * 按定义顺序获取规则结果
+     *
+     * @param index 规则下标
+     * @return 规则结果
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * 规则数量
+     *
+     * @return 规则数量
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 转换为规则名称到结果的映射
+     *
+     * @return 按定义顺序排列的只读映射
+     */
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            map.put(names.get(i), values[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
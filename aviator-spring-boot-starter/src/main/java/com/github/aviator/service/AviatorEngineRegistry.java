@@ -0,0 +1,115 @@
+package com.github.aviator.service;
+
+import com.github.aviator.autoconfigure.AviatorEngineProperties;
+import com.github.aviator.cache.CaffeineExpressionCacheFactory;
+import com.github.aviator.cache.ExpressionCacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aviator 引擎注册表，按名称管理相互隔离的 {@link AviatorService}
+ * <p>
+ * 默认引擎以 {@link AviatorService#DEFAULT_ENGINE} 注册，命名引擎来自 {@code aviator.engines.<name>.*}。
+ *
+ * @author Aviator Starter
+ */
+public class AviatorEngineRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AviatorEngineRegistry.class);
+
+    private final Map<String, AviatorService> engines = new LinkedHashMap<>();
+
+    /**
+     * 创建注册表，并按配置初始化所有命名引擎
+     *
+     * @param defaultEngine 默认引擎（已由容器初始化）
+     * @param engineProperties 命名引擎配置，key 为引擎名称
+     */
+    public AviatorEngineRegistry(AviatorService defaultEngine, Map<String, AviatorEngineProperties> engineProperties) {
+        this(defaultEngine, engineProperties, new CaffeineExpressionCacheFactory(),
+            Collections.<AviatorServiceCustomizer>emptyList());
+    }
+
+    /**
+     * 创建注册表，并使用指定的缓存工厂和定制器初始化所有命名引擎
+     *
+     * @param defaultEngine 默认引擎（已由容器初始化）
+     * @param engineProperties 命名引擎配置，key 为引擎名称
+     * @param cacheFactory 表达式缓存工厂
+     * @param customizers 在命名引擎初始化之前应用的定制器
+     */
+    public AviatorEngineRegistry(AviatorService defaultEngine, Map<String, AviatorEngineProperties> engineProperties,
+                                 ExpressionCacheFactory cacheFactory, List<AviatorServiceCustomizer> customizers) {
+        engines.put(defaultEngine.getName(), defaultEngine);
+        for (Map.Entry<String, AviatorEngineProperties> entry : engineProperties.entrySet()) {
+            if (engines.containsKey(entry.getKey())) {
+                throw new IllegalStateException("Duplicate Aviator engine name: " + entry.getKey());
+            }
+            AviatorService engine = new AviatorService(entry.getKey(), entry.getValue(), cacheFactory);
+            for (AviatorServiceCustomizer customizer : customizers) {
+                customizer.customize(engine);
+            }
+            engine.init();
+            engines.put(entry.getKey(), engine);
+        }
+        logger.info("Aviator engines registered: {}", engines.keySet());
+    }
+
+    /**
+     * 获取指定名称的引擎
+     *
+     * @param name 引擎名称
+     * @return 引擎服务
+     * @throws IllegalArgumentException 引擎不存在时抛出
+     */
+    public AviatorService getEngine(String name) {
+        AviatorService engine = engines.get(name);
+        if (engine == null) {
+            throw new IllegalArgumentException("Aviator engine not found: " + name);
+        }
+        return engine;
+    }
+
+    /**
+     * 获取默认引擎
+     *
+     * @return 默认引擎服务
+     */
+    public AviatorService getDefaultEngine() {
+        return getEngine(AviatorService.DEFAULT_ENGINE);
+    }
+
+    /**
+     * 判断是否存在指定名称的引擎
+     *
+     * @param name 引擎名称
+     * @return 是否存在
+     */
+    public boolean containsEngine(String name) {
+        return engines.containsKey(name);
+    }
+
+    /**
+     * 获取所有引擎名称
+     *
+     * @return 引擎名称集合（按注册顺序）
+     */
+    public Set<String> getEngineNames() {
+        return Collections.unmodifiableSet(engines.keySet());
+    }
+
+    /**
+     * 获取所有引擎
+     *
+     * @return 引擎名称到服务的只读映射
+     */
+    public Map<String, AviatorService> getEngines() {
+        return Collections.unmodifiableMap(engines);
+    }
+}
@@ -1,17 +1,45 @@
 package com.github.aviator.service;
 
 import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.AviatorEvaluatorInstance;
 import com.googlecode.aviator.Expression;
 import com.googlecode.aviator.Options;
-import com.github.aviator.autoconfigure.AviatorProperties;
+import com.github.aviator.autoconfigure.AviatorEngineProperties;
+import com.github.aviator.cache.CaffeineExpressionCacheFactory;
+import com.github.aviator.cache.CompileFailureCache;
+import com.github.aviator.cache.ExpressionCache;
+import com.github.aviator.cache.ExpressionCacheFactory;
+import com.github.aviator.cache.ExpressionCacheStats;
+import com.github.aviator.decision.DecisionTable;
+import com.github.aviator.decision.DecisionTableFunction;
+import com.github.aviator.env.BeanEnvAdapter;
+import com.github.aviator.function.MethodFunctions;
+import com.github.aviator.metrics.AviatorMetrics;
+import com.github.aviator.numeric.NumericFormula;
+import com.github.aviator.ruleset.RuleSet;
+import com.googlecode.aviator.runtime.type.AviatorFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aviator 服务类，提供动态公式计算功能
+ * <p>
+ * 每个服务实例持有独立的 {@link AviatorEvaluatorInstance}，表达式缓存、选项和函数表互不影响。
+ * 编译结果缓存在 {@link ExpressionCache} 中，而不是 Aviator 内置的 LRU 缓存。
  * 
  * @author Aviator Starter
  */
@@ -19,26 +47,174 @@ public class AviatorService {
 
     private static final Logger logger = LoggerFactory.getLogger(AviatorService.class);
 
-    private final AviatorProperties properties;
+    /**
+     * 默认引擎名称
+     */
+    public static final String DEFAULT_ENGINE = "default";
+
+    /**
+     * 失败日志的限流窗口：每个窗口内最多输出一条带堆栈的错误日志
+     */
+    private static final long FAILURE_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+
+    private final AviatorEngineProperties properties;
+
+    private final AviatorEvaluatorInstance evaluator;
 
-    public AviatorService(AviatorProperties properties) {
+    /**
+     * 编译缓存，未开启缓存时为 null
+     */
+    private final ExpressionCache expressionCache;
+
+    /**
+     * 编译失败的负缓存，failure-cache-size 为 0 时为 null
+     */
+    private final CompileFailureCache compileFailures;
+
+    private final LogRateLimiter failureLogLimiter = new LogRateLimiter(FAILURE_LOG_INTERVAL_NANOS);
+
+    /**
+     * 引擎级别的默认求值限制
+     */
+    private final EvaluationLimits defaultLimits;
+
+    private AviatorMetrics metrics = AviatorMetrics.NOOP;
+
+    /**
+     * 批量执行使用的线程池，默认为公共 ForkJoinPool
+     */
+    private ForkJoinPool batchPool = ForkJoinPool.commonPool();
+
+    /**
+     * 批量执行时每个子任务处理的最大记录数，批次不超过该值时直接在调用线程执行
+     */
+    private int batchChunkSize = 256;
+
+    /**
+     * 异步执行使用的线程池，默认为公共 ForkJoinPool，Spring 环境下为专用的有界线程池
+     */
+    private Executor asyncExecutor = ForkJoinPool.commonPool();
+
+    public AviatorService(AviatorEngineProperties properties) {
+        this(DEFAULT_ENGINE, properties);
+    }
+
+    public AviatorService(String name, AviatorEngineProperties properties) {
+        this(name, properties, new CaffeineExpressionCacheFactory());
+    }
+
+    public AviatorService(String name, AviatorEngineProperties properties, ExpressionCacheFactory cacheFactory) {
+        this.name = name;
         this.properties = properties;
+        this.evaluator = AviatorEvaluator.newInstance();
+        LimitedSequenceFunction.install(evaluator);
+        this.expressionCache = properties.isCacheEnabled() ? cacheFactory.create(name, properties) : null;
+        this.compileFailures = properties.getCache().getFailureCacheSize() > 0
+            ? new CompileFailureCache(properties.getCache().getFailureCacheSize(),
+                properties.getCache().getFailureExpireAfterWrite())
+            : null;
+        this.defaultLimits = EvaluationLimits.of(properties.getLimits().getTimeout(),
+            properties.getLimits().getMaxOperations());
     }
 
     @PostConstruct
     public void init() {
         // 配置 Aviator 引擎
-        if (properties.isCacheEnabled()) {
-            AviatorEvaluator.getInstance().useLRUExpressionCache(properties.getCacheSize());
-            logger.info("Aviator expression cache enabled, cache size: {}", properties.getCacheSize());
+        if (expressionCache != null) {
+            logger.info("Aviator engine [{}] expression cache enabled, cache size: {}, weigher: {}, expire after access: {}",
+                name, properties.getCacheSize(), properties.getCache().getWeigher(),
+                properties.getCache().getExpireAfterAccess());
         }
 
-        AviatorEvaluator.setOption(Options.OPTIMIZE_LEVEL, 
+        evaluator.setOption(Options.OPTIMIZE_LEVEL, 
             properties.isOptimizeEnabled() ? AviatorEvaluator.EVAL : AviatorEvaluator.COMPILE);
         
-        AviatorEvaluator.setOption(Options.TRACE_EVAL, properties.isTraceEnabled());
+        evaluator.setOption(Options.TRACE_EVAL, properties.isTraceEnabled());
+
+        if (properties.getLimits().getMaxLoopCount() > 0) {
+            evaluator.setOption(Options.MAX_LOOP_COUNT, properties.getLimits().getMaxLoopCount());
+        }
+        if (!defaultLimits.isUnlimited()) {
+            logger.info("Aviator engine [{}] evaluation limits: {}", name, defaultLimits);
+        }
+
+        metrics.bindEngine(this);
+
+        logger.info("Aviator engine [{}] initialized successfully", name);
+    }
+
+    /**
+     * 获取引擎名称
+     * 
+     * @return 引擎名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取底层的 Aviator 引擎实例
+     * 
+     * @return 当前服务独占的引擎实例
+     */
+    public AviatorEvaluatorInstance getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * 设置指标记录器，需要在 {@link #init()} 之前调用
+     * 
+     * @param metrics 指标记录器
+     */
+    public void setMetrics(AviatorMetrics metrics) {
+        this.metrics = metrics != null ? metrics : AviatorMetrics.NOOP;
+    }
+
+    /**
+     * 设置批量执行使用的线程池
+     * 
+     * @param batchPool ForkJoinPool
+     */
+    public void setBatchPool(ForkJoinPool batchPool) {
+        this.batchPool = batchPool;
+    }
+
+    /**
+     * 设置批量执行时每个子任务处理的最大记录数
+     * 
+     * @param batchChunkSize 子任务记录数
+     */
+    public void setBatchChunkSize(int batchChunkSize) {
+        this.batchChunkSize = Math.max(1, batchChunkSize);
+    }
+
+    /**
+     * 设置异步执行使用的线程池
+     * 
+     * @param asyncExecutor 线程池
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * 获取表达式编译缓存
+     * 
+     * @return 编译缓存，未开启缓存时返回 null
+     */
+    public ExpressionCache getExpressionCache() {
+        return expressionCache;
+    }
 
-        logger.info("Aviator service initialized successfully");
+    /**
+     * 获取表达式编译缓存统计
+     * 
+     * @return 统计快照，未开启缓存时返回空统计
+     */
+    public ExpressionCacheStats getCacheStats() {
+        return expressionCache != null ? expressionCache.stats() : ExpressionCacheStats.empty();
     }
 
     /**
@@ -53,61 +229,405 @@ public class AviatorService {
 
     /**
      * 执行表达式，使用给定的环境变量
+     * <p>
+     * 引擎配置了 aviator.limits.* 时使用引擎级别的求值限制。
      * 
      * @param expression 表达式字符串
      * @param env 环境变量 Map
      * @return 执行结果
      */
     public Object execute(String expression, Map<String, Object> env) {
+        return execute(expression, env, defaultLimits);
+    }
+
+    /**
+     * 以 Bean 的属性为变量执行表达式
+     * <p>
+     * 属性通过按类型缓存的 {@link BeanEnvAdapter} 读取，不复制到 Map，也不经过反射；
+     * 变量名默认为属性名，可以通过 {@link com.github.aviator.annotation.AviatorVariable} 修改。
+     * 
+     * @param expression 表达式字符串
+     * @param bean 提供变量的 Bean
+     * @return 执行结果
+     */
+    public Object executeBean(String expression, Object bean) {
+        return execute(expression, BeanEnvAdapter.envOf(bean));
+    }
+
+    /**
+     * 在给定的资源限制下执行表达式，适用于执行不受信任的表达式
+     * 
+     * @param expression 表达式字符串
+     * @param env 环境变量 Map
+     * @param limits 本次调用的求值限制，覆盖引擎级别的配置
+     * @return 执行结果
+     * @throws EvaluationLimitExceededException 超过截止时间或操作数预算时抛出
+     */
+    public Object execute(String expression, Map<String, Object> env, EvaluationLimits limits) {
+        return executeCompiled(expression, getCompiledExpression(expression), env, limits);
+    }
+
+    /**
+     * 执行表达式并把数值结果转换为 double
+     * 
+     * @param expression 表达式字符串
+     * @param env 环境变量 Map
+     * @return double 结果
+     * @throws IllegalStateException 结果不是数值时抛出
+     */
+    public double executeDouble(String expression, Map<String, Object> env) {
+        return TypedResults.toDouble(expression, execute(expression, env));
+    }
+
+    /**
+     * 执行表达式并把数值结果转换为 long
+     * 
+     * @param expression 表达式字符串
+     * @param env 环境变量 Map
+     * @return long 结果
+     * @throws IllegalStateException 结果不是数值时抛出
+     */
+    public long executeLong(String expression, Map<String, Object> env) {
+        return TypedResults.toLong(expression, execute(expression, env));
+    }
+
+    /**
+     * 执行布尔表达式
+     * 
+     * @param expression 表达式字符串
+     * @param env 环境变量 Map
+     * @return 布尔结果
+     * @throws IllegalStateException 结果不是布尔值时抛出
+     */
+    public boolean executeBoolean(String expression, Map<String, Object> env) {
+        return TypedResults.toBoolean(expression, execute(expression, env));
+    }
+
+    /**
+     * 编译公式并返回支持基本类型参数的句柄
+     * <p>
+     * 静态数值表达式（只包含数字、变量、算术 / 比较 / 逻辑 / 三元运算和内置 math 函数）在句柄上
+     * 以基本类型求值，不装箱也不创建 AviatorDouble；引擎开启了 decimal 解析选项、重载了运算符
+     * 或覆盖了内置 math 函数时始终由 Aviator 求值。
+     * 
+     * @param expression 表达式字符串
+     * @param variables 变量名，决定基本类型参数数组的顺序；不传时使用表达式中变量出现的顺序
+     * @return 公式句柄
+     * @throws ExpressionCompileException 编译失败时抛出
+     */
+    public CompiledFormula compileFormula(String expression, String... variables) {
+        Expression compiled = getCompiledExpression(expression);
+        List<String> names = variables.length > 0
+            ? Collections.unmodifiableList(Arrays.asList(variables.clone()))
+            : Collections.unmodifiableList(compiled.getVariableNames());
+        NumericFormula numeric = isPrimitiveEvaluationSupported()
+            ? NumericFormula.tryCompile(expression, names, this::isBuiltinFunction)
+            : null;
+        return new CompiledFormula(this, expression, compiled, names, numeric);
+    }
+
+    /**
+     * 把多条规则编译为规则集，相同的子表达式在一次求值中只计算一次
+     * <p>
+     * 每条规则都会经过引擎的编译缓存；超出共享计划支持语法的规则在规则集中单独执行。
+     * 
+     * @param rules 规则名称到表达式的映射，结果按该映射的迭代顺序排列
+     * @return 规则集
+     * @throws ExpressionCompileException 任一规则编译失败时抛出
+     */
+    public RuleSet compileRuleSet(Map<String, String> rules) {
+        RuleSet ruleSet = RuleSet.compile(rules, evaluator, this::getCompiledExpression);
+        logger.debug("Aviator engine [{}] compiled rule set: {} rules, {} of {} nodes shared, fallback rules: {}",
+            name, rules.size(), ruleSet.getDistinctNodeCount(), ruleSet.getTotalNodeCount(),
+            ruleSet.getFallbackRuleNames());
+        return ruleSet;
+    }
+
+    /**
+     * 以引擎默认限制执行已编译的表达式，供 {@link CompiledFormula} 使用
+     */
+    Object executeCompiled(String expression, Expression compiled, Map<String, Object> env) {
+        return executeCompiled(expression, compiled, env, defaultLimits);
+    }
+
+    private Object executeCompiled(String expression, Expression compiled, Map<String, Object> env,
+                                   EvaluationLimits limits) {
         try {
-            if (env == null || env.isEmpty()) {
-                return AviatorEvaluator.execute(expression);
-            } else {
-                return AviatorEvaluator.execute(expression, env);
+            return evaluate(expression, compiled, env, limits);
+        } catch (EvaluationLimitExceededException e) {
+            long suppressed = failureLogLimiter.tryAcquire();
+            if (suppressed >= 0) {
+                logger.warn("Aviator engine [{}] aborted expression: {} ({} similar failures suppressed)",
+                    name, e.getMessage(), suppressed);
             }
+            throw e;
         } catch (Exception e) {
-            logger.error("Error executing expression: {}", expression, e);
+            logFailure("Error executing expression: " + expression, e);
             throw new RuntimeException("Failed to execute expression: " + expression, e);
         }
     }
 
+    /**
+     * 在异步线程池中执行表达式
+     * <p>
+     * 失败时返回的 CompletableFuture 以与 {@link #execute(String, Map)} 相同的异常完成；
+     * 线程池饱和且拒绝策略为 ABORT 时以 {@link RejectedExecutionException} 完成。
+     * 
+     * @param expression 表达式字符串
+     * @param env 环境变量 Map
+     * @return 执行结果的 CompletableFuture
+     */
+    public CompletableFuture<Object> executeAsync(String expression, Map<String, Object> env) {
+        try {
+            return CompletableFuture.supplyAsync(() -> execute(expression, env), asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Aviator engine [{}] async executor rejected expression: {}", name, expression);
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * 在异步线程池中执行表达式，使用默认环境
+     * 
+     * @param expression 表达式字符串
+     * @return 执行结果的 CompletableFuture
+     */
+    public CompletableFuture<Object> executeAsync(String expression) {
+        return executeAsync(expression, null);
+    }
+
+    /**
+     * 使用同一个表达式批量执行多条记录
+     * <p>
+     * 表达式只编译（或从缓存获取）一次，记录按 batchChunkSize 切分后在批量线程池中并行求值，
+     * 结果与输入顺序一致。单条记录失败只影响对应位置的结果，不会中断整个批次。
+     * 
+     * @param expression 表达式字符串
+     * @param envs 每条记录的环境变量
+     * @return 与输入顺序一致的执行结果
+     * @throws ExpressionCompileException 表达式编译失败时抛出
+     */
+    public List<BatchResult> executeBatch(String expression, List<Map<String, Object>> envs) {
+        Expression compiled = getCompiledExpression(expression);
+
+        List<Map<String, Object>> records = envs instanceof RandomAccess ? envs : new ArrayList<>(envs);
+        BatchResult[] results = new BatchResult[records.size()];
+        BatchTask task = new BatchTask(expression, compiled, records, results, 0, results.length);
+        if (results.length <= batchChunkSize) {
+            task.compute();
+        } else {
+            batchPool.invoke(task);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 按区间二分的批量求值任务
+     */
+    private class BatchTask extends RecursiveAction {
+
+        private final String expression;
+
+        private final Expression compiled;
+
+        private final List<Map<String, Object>> envs;
+
+        private final BatchResult[] results;
+
+        private final int from;
+
+        private final int to;
+
+        BatchTask(String expression, Expression compiled, List<Map<String, Object>> envs,
+                  BatchResult[] results, int from, int to) {
+            this.expression = expression;
+            this.compiled = compiled;
+            this.envs = envs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchChunkSize) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        results[i] = BatchResult.success(evaluate(expression, compiled, envs.get(i), defaultLimits));
+                    } catch (RuntimeException e) {
+                        results[i] = BatchResult.failure(e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(expression, compiled, envs, results, from, middle),
+                new BatchTask(expression, compiled, envs, results, middle, to));
+        }
+    }
+
     /**
      * 编译表达式
      * 
      * @param expression 表达式字符串
      * @return 编译后的表达式对象
+     * @throws ExpressionCompileException 编译失败时抛出
      */
     public Expression compile(String expression) {
-        try {
-            return AviatorEvaluator.compile(expression);
-        } catch (Exception e) {
-            logger.error("Error compiling expression: {}", expression, e);
-            throw new RuntimeException("Failed to compile expression: " + expression, e);
-        }
+        return doCompile(expression);
     }
 
     /**
      * 编译并缓存表达式
+     * <p>
+     * 未开启缓存时 cached 参数不生效，每次都会重新编译。
      * 
      * @param expression 表达式字符串
      * @param cached 是否缓存
      * @return 编译后的表达式对象
+     * @throws ExpressionCompileException 编译失败时抛出
      */
     public Expression compile(String expression, boolean cached) {
+        return cached ? getCompiledExpression(expression) : doCompile(expression);
+    }
+
+    /**
+     * 从编译缓存获取表达式，未命中时编译并放入缓存
+     */
+    private Expression getCompiledExpression(String expression) {
+        if (expressionCache == null) {
+            return doCompile(expression);
+        }
+        return expressionCache.get(expression, this::doCompile);
+    }
+
+    /**
+     * 编译表达式（不经过缓存）并记录编译耗时
+     * <p>
+     * 先查编译失败的负缓存，已知的错误表达式直接抛出不带堆栈的异常，不再重复解析。
+     */
+    private Expression doCompile(String expression) {
+        RuntimeException previousFailure = compileFailures != null ? compileFailures.getIfPresent(expression) : null;
+        if (previousFailure != null) {
+            logger.debug("Aviator engine [{}] rejected known invalid expression: {}", name, expression);
+            throw new ExpressionCompileException(expression, previousFailure, true);
+        }
+
+        long start = System.nanoTime();
         try {
-            return AviatorEvaluator.compile(expression, cached);
-        } catch (Exception e) {
-            logger.error("Error compiling expression: {}", expression, e);
-            throw new RuntimeException("Failed to compile expression: " + expression, e);
+            Expression compiled = evaluator.compile(expression, false);
+            metrics.recordCompile(name, expression, System.nanoTime() - start, null);
+            return compiled;
+        } catch (RuntimeException e) {
+            metrics.recordCompile(name, expression, System.nanoTime() - start, e);
+            if (compileFailures != null) {
+                compileFailures.put(expression, e);
+            }
+            logFailure("Error compiling expression: " + expression, e);
+            throw new ExpressionCompileException(expression, e, false);
+        }
+    }
+
+    /**
+     * 限流输出失败日志，窗口内的其余失败只在 DEBUG 级别输出
+     */
+    private void logFailure(String message, Throwable error) {
+        long suppressed = failureLogLimiter.tryAcquire();
+        if (suppressed > 0) {
+            logger.error("{} ({} similar failures suppressed on engine [{}])", message, suppressed, name, error);
+        } else if (suppressed == 0) {
+            logger.error(message, error);
+        } else {
+            logger.debug("{}: {}", message, error.toString());
+        }
+    }
+
+    /**
+     * 执行已编译的表达式并记录求值耗时
+     */
+    private Object evaluate(String expression, Expression compiled, Map<String, Object> env, EvaluationLimits limits) {
+        long start = System.nanoTime();
+        try {
+            Object result;
+            if (!limits.isUnlimited()) {
+                LimitedEnv limitedEnv = new LimitedEnv(env, expression, limits);
+                LimitedEnv previous = limitedEnv.enter();
+                try {
+                    result = compiled.execute(limitedEnv);
+                    limitedEnv.checkExceeded();
+                } finally {
+                    LimitedEnv.exit(previous);
+                }
+            } else if (env == null || env.isEmpty()) {
+                result = compiled.execute();
+            } else {
+                result = compiled.execute(env);
+            }
+            metrics.recordExecute(name, expression, System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            EvaluationLimitExceededException limitExceeded = findLimitExceeded(e);
+            metrics.recordExecute(name, expression, System.nanoTime() - start, limitExceeded != null ? limitExceeded : e);
+            if (limitExceeded != null) {
+                metrics.recordLimitExceeded(name, limitExceeded.getKind());
+                throw limitExceeded;
+            }
+            throw e;
         }
     }
 
+    /**
+     * 记录基本类型求值的耗时，供 {@link CompiledFormula} 使用
+     */
+    void recordExecute(String expression, long durationNanos, Throwable error) {
+        metrics.recordExecute(name, expression, durationNanos, error);
+    }
+
+    /**
+     * 数字字面量按 decimal 解析或重载了运算符时，基本类型求值的语义与 Aviator 不一致
+     */
+    private boolean isPrimitiveEvaluationSupported() {
+        return !evaluator.getOptionValue(Options.ALWAYS_PARSE_FLOATING_POINT_NUMBER_INTO_DECIMAL).bool
+            && !evaluator.getOptionValue(Options.ALWAYS_PARSE_INTEGRAL_NUMBER_INTO_DECIMAL).bool
+            && evaluator.getOpsMap().isEmpty();
+    }
+
+    /**
+     * 判断函数是否仍为 Aviator 内置的 math 实现（未被自定义函数覆盖）
+     */
+    private boolean isBuiltinFunction(String functionName) {
+        if (!evaluator.containsFunction(functionName)) {
+            return false;
+        }
+        AviatorFunction function = evaluator.getFunction(functionName);
+        return function != null
+            && function.getClass().getName().startsWith("com.googlecode.aviator.runtime.function.math.");
+    }
+
+    /**
+     * Aviator 可能把函数内部抛出的异常包装一层，这里沿着 cause 链查找超限异常
+     */
+    private static EvaluationLimitExceededException findLimitExceeded(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof EvaluationLimitExceededException) {
+                return (EvaluationLimitExceededException) current;
+            }
+        }
+        return null;
+    }
+
     /**
      * 清除表达式缓存
      */
     public void clearExpressionCache() {
-        AviatorEvaluator.clearExpressionCache();
-        logger.info("Aviator expression cache cleared");
+        if (expressionCache != null) {
+            expressionCache.invalidateAll();
+        }
+        clearCompileFailures();
+        evaluator.clearExpressionCache();
+        logger.info("Aviator engine [{}] expression cache cleared", name);
     }
 
     /**
@@ -116,8 +636,42 @@ public class AviatorService {
      * @param function Aviator 自定义函数
      */
     public void addFunction(com.googlecode.aviator.runtime.function.AbstractFunction function) {
-        AviatorEvaluator.addFunction(function);
-        logger.info("Added custom function: {}", function.getName());
+        evaluator.addFunction(function);
+        invalidateCompiled();
+        logger.info("Added custom function to engine [{}]: {}", name, function.getName());
+    }
+
+    /**
+     * 注册类上标注了 {@link com.github.aviator.annotation.AviatorFunction} 的静态方法，注解中的 engine 属性被忽略
+     * 
+     * @param type 函数所在的类
+     */
+    public void addFunctions(Class<?> type) {
+        for (com.googlecode.aviator.runtime.function.AbstractFunction function : MethodFunctions.forClass(type)) {
+            addFunction(function);
+        }
+    }
+
+    /**
+     * 注册对象上标注了 {@link com.github.aviator.annotation.AviatorFunction} 的实例方法和静态方法，
+     * 注解中的 engine 属性被忽略
+     * 
+     * @param bean 函数所在的对象
+     */
+    public void addFunctions(Object bean) {
+        for (com.googlecode.aviator.runtime.function.AbstractFunction function : MethodFunctions.forBean(bean)) {
+            addFunction(function);
+        }
+    }
+
+    /**
+     * 把决策表注册为单参数函数，表达式中以 {@code name(x)} 调用，按阈值二分查找档位结果
+     * 
+     * @param name 函数名称
+     * @param table 决策表
+     */
+    public void addDecisionTable(String name, DecisionTable table) {
+        addFunction(new DecisionTableFunction(name, table));
     }
 
     /**
@@ -126,8 +680,9 @@ public class AviatorService {
      * @param functionName 函数名称
      */
     public void removeFunction(String functionName) {
-        AviatorEvaluator.removeFunction(functionName);
-        logger.info("Removed custom function: {}", functionName);
+        evaluator.removeFunction(functionName);
+        invalidateCompiled();
+        logger.info("Removed custom function from engine [{}]: {}", name, functionName);
     }
 
     /**
@@ -137,8 +692,27 @@ public class AviatorService {
      * @param value 值
      */
     public void setOption(Options option, Object value) {
-        AviatorEvaluator.setOption(option, value);
-        logger.debug("Set Aviator option: {} = {}", option, value);
+        evaluator.setOption(option, value);
+        // 切换 FEATURE_SET 时引擎会重新加载内置函数
+        LimitedSequenceFunction.install(evaluator);
+        invalidateCompiled();
+        logger.debug("Set Aviator option on engine [{}]: {} = {}", name, option, value);
     }
-}
 
+    /**
+     * 函数表或选项变化后，已编译的表达式可能沿用旧的函数和选项，之前编译失败的表达式可能已经合法，
+     * 编译缓存和负缓存一并清空
+     */
+    private void invalidateCompiled() {
+        if (expressionCache != null) {
+            expressionCache.invalidateAll();
+        }
+        clearCompileFailures();
+    }
+
+    private void clearCompileFailures() {
+        if (compileFailures != null) {
+            compileFailures.invalidateAll();
+        }
+    }
+}
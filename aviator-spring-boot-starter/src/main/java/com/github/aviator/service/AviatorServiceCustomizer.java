@@ -0,0 +1,19 @@
+package com.github.aviator.service;
+
+/**
+ * AviatorService 定制回调
+ * <p>
+ * 容器中的所有定制器会在默认引擎和命名引擎初始化之前依次应用。
+ *
+ * @author Aviator Starter
+ */
+@FunctionalInterface
+public interface AviatorServiceCustomizer {
+
+    /**
+     * 定制引擎
+     *
+     * @param service 尚未初始化的引擎服务
+     */
+    void customize(AviatorService service);
+}
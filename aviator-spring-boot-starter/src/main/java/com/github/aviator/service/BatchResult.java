@@ -0,0 +1,51 @@
+package com.github.aviator.service;
+
+/**
+ * 批量执行中单条记录的结果
+ * <p>
+ * 单条记录求值失败不会中断整个批次，失败原因记录在 {@link #getError()} 中。
+ *
+ * @author Aviator Starter
+ */
+public final class BatchResult {
+
+    private final Object value;
+
+    private final RuntimeException error;
+
+    private BatchResult(Object value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static BatchResult success(Object value) {
+        return new BatchResult(value, null);
+    }
+
+    public static BatchResult failure(RuntimeException error) {
+        return new BatchResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * 求值结果，失败时为 null
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * 求值失败的异常，成功时为 null
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "BatchResult{value=" + value + '}' : "BatchResult{error=" + error + '}';
+    }
+}
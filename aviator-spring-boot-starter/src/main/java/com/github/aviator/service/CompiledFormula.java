@@ -0,0 +1,206 @@
+package com.github.aviator.service;
+
+import com.github.aviator.numeric.NumericFormula;
+import com.googlecode.aviator.Expression;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已编译公式的句柄，提供基本类型的求值入口
+ * <p>
+ * 参数按 {@link #getVariableNames()} 的顺序以基本类型数组传入。表达式是静态数值表达式时
+ * （见 {@link NumericFormula}）直接在 double / long 上求值，不创建 Map、装箱对象和 AviatorDouble；
+ * 否则回退为构造环境 Map 并由 Aviator 求值，结果与 {@link AviatorService#execute(String, Map)} 一致。
+ * <p>
+ * 非数值表达式可以通过 {@link #newEnv()} / {@link #localEnv()} 获取按槽位存储变量的 {@link SlotEnv}，
+ * 按位置填充后调用 {@link #execute(Map)}，避免每次调用创建 HashMap。
+ * <p>
+ * 通过 {@link AviatorService#compileFormula(String, String...)} 创建，实例可以在线程间共享。
+ *
+ * @author Aviator Starter
+ */
+public final class CompiledFormula {
+
+    private final AviatorService service;
+
+    private final String expression;
+
+    private final Expression compiled;
+
+    private final List<String> variableNames;
+
+    /**
+     * 变量槽位，与 variableNames 顺序一致
+     */
+    private final String[] slots;
+
+    private final ThreadLocal<SlotEnv> localEnv = ThreadLocal.withInitial(this::newEnv);
+
+    /**
+     * 基本类型求值器，表达式不是静态数值表达式时为 null
+     */
+    private final NumericFormula numeric;
+
+    CompiledFormula(AviatorService service, String expression, Expression compiled,
+                    List<String> variableNames, NumericFormula numeric) {
+        this.service = service;
+        this.expression = expression;
+        this.compiled = compiled;
+        this.variableNames = variableNames;
+        this.slots = variableNames.toArray(new String[0]);
+        this.numeric = numeric;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 获取变量名，顺序即基本类型参数数组的顺序
+     *
+     * @return 变量名列表
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * 创建按本公式变量槽位存储的求值环境
+     *
+     * @return 新的空环境
+     */
+    public SlotEnv newEnv() {
+        return new SlotEnv(slots);
+    }
+
+    /**
+     * 获取当前线程复用的求值环境（已清空）
+     * <p>
+     * 同一线程内嵌套调用同一个公式时不能复用，应改用 {@link #newEnv()}。
+     *
+     * @return 当前线程的环境
+     */
+    public SlotEnv localEnv() {
+        return localEnv.get().reset();
+    }
+
+    /**
+     * 是否走基本类型求值（不经过 Aviator）
+     *
+     * @return 静态数值表达式返回 true
+     */
+    public boolean isPrimitive() {
+        return numeric != null;
+    }
+
+    /**
+     * 以 double 参数求值
+     *
+     * @param args 与变量顺序一致的参数
+     * @return double 结果
+     */
+    public double executeDouble(double... args) {
+        if (numeric == null) {
+            return TypedResults.toDouble(expression, execute(toEnv(args)));
+        }
+        long start = System.nanoTime();
+        try {
+            double result = numeric.evalDouble(args);
+            service.recordExecute(expression, System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            service.recordExecute(expression, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 以 long 参数求值，double 结果按 {@link Number#longValue()} 截断
+     *
+     * @param args 与变量顺序一致的参数
+     * @return long 结果
+     */
+    public long executeLong(long... args) {
+        if (numeric == null || !numeric.supportsLong()) {
+            return TypedResults.toLong(expression, execute(toEnv(args)));
+        }
+        long start = System.nanoTime();
+        try {
+            long result = numeric.evalLong(args);
+            service.recordExecute(expression, System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            service.recordExecute(expression, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 以 double 参数求值布尔表达式
+     *
+     * @param args 与变量顺序一致的参数
+     * @return 布尔结果
+     */
+    public boolean executeBoolean(double... args) {
+        if (numeric == null) {
+            return TypedResults.toBoolean(expression, execute(toEnv(args)));
+        }
+        long start = System.nanoTime();
+        try {
+            boolean result = numeric.evalBoolean(args);
+            service.recordExecute(expression, System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            service.recordExecute(expression, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 使用环境变量求值（始终由 Aviator 执行）
+     *
+     * @param env 环境变量 Map
+     * @return 执行结果
+     */
+    public Object execute(Map<String, Object> env) {
+        return service.executeCompiled(expression, compiled, env);
+    }
+
+    public double executeDouble(Map<String, Object> env) {
+        return TypedResults.toDouble(expression, execute(env));
+    }
+
+    public long executeLong(Map<String, Object> env) {
+        return TypedResults.toLong(expression, execute(env));
+    }
+
+    public boolean executeBoolean(Map<String, Object> env) {
+        return TypedResults.toBoolean(expression, execute(env));
+    }
+
+    private Map<String, Object> toEnv(double[] args) {
+        checkArity(args.length);
+        SlotEnv env = newEnv();
+        for (int i = 0; i < args.length; i++) {
+            env.set(i, args[i]);
+        }
+        return env;
+    }
+
+    private Map<String, Object> toEnv(long[] args) {
+        checkArity(args.length);
+        SlotEnv env = newEnv();
+        for (int i = 0; i < args.length; i++) {
+            env.set(i, args[i]);
+        }
+        return env;
+    }
+
+    private void checkArity(int length) {
+        if (length != variableNames.size()) {
+            throw new IllegalArgumentException("Expected " + variableNames.size() + " arguments " + variableNames
+                + " but got " + length + ": " + expression);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.aviator.service;
+
+/**
+ * 求值超过截止时间或操作数预算时抛出
+ * <p>
+ * 不会被包装成通用的执行异常，调用方可以直接捕获该类型做快速失败处理。
+ *
+ * @author Aviator Starter
+ */
+public class EvaluationLimitExceededException extends RuntimeException {
+
+    /**
+     * 超限类型
+     */
+    public enum Kind {
+
+        /**
+         * 超过求值截止时间
+         */
+        TIMEOUT,
+
+        /**
+         * 超过最大操作数
+         */
+        OPERATIONS
+    }
+
+    private final Kind kind;
+
+    private final String expression;
+
+    public EvaluationLimitExceededException(Kind kind, String expression, String message) {
+        // 不捕获堆栈：超限是预期内的失败，调用方只需要类型和原因
+        super(message, null, false, false);
+        this.kind = kind;
+        this.expression = expression;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+}
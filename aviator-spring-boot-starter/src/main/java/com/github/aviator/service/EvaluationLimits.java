@@ -0,0 +1,67 @@
+package com.github.aviator.service;
+
+import java.time.Duration;
+
+/**
+ * 单次求值的资源限制：求值截止时间和最大操作数
+ * <p>
+ * 操作数按求值过程中对环境变量的访问次数、序列函数（map、filter、include 等）的调用次数和遍历的元素个数累计，
+ * 循环、lambda 和序列函数每次访问外部变量都会计数。
+ *
+ * @author Aviator Starter
+ */
+public final class EvaluationLimits {
+
+    /**
+     * 不做任何限制
+     */
+    public static final EvaluationLimits NONE = new EvaluationLimits(null, 0);
+
+    private final Duration timeout;
+
+    private final long maxOperations;
+
+    private EvaluationLimits(Duration timeout, long maxOperations) {
+        this.timeout = timeout;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * 创建资源限制
+     *
+     * @param timeout 求值超时时间，null 表示不限制
+     * @param maxOperations 最大操作数，小于等于 0 表示不限制
+     * @return 资源限制
+     */
+    public static EvaluationLimits of(Duration timeout, long maxOperations) {
+        if ((timeout == null || timeout.isZero() || timeout.isNegative()) && maxOperations <= 0) {
+            return NONE;
+        }
+        return new EvaluationLimits(timeout, maxOperations);
+    }
+
+    public static EvaluationLimits timeout(Duration timeout) {
+        return of(timeout, 0);
+    }
+
+    public static EvaluationLimits maxOperations(long maxOperations) {
+        return of(null, maxOperations);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public long getMaxOperations() {
+        return maxOperations;
+    }
+
+    public boolean isUnlimited() {
+        return this == NONE;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationLimits{timeout=" + timeout + ", maxOperations=" + maxOperations + '}';
+    }
+}
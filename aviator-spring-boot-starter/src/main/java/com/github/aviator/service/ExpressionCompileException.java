@@ -0,0 +1,35 @@
+package com.github.aviator.service;
+
+/**
+ * 表达式编译失败时抛出
+ * <p>
+ * 不捕获堆栈，原始的解析错误（含堆栈）作为 cause 保留。表达式命中编译失败的负缓存时
+ * {@link #isCached()} 为 true，cause 为首次编译时的错误。
+ *
+ * @author Aviator Starter
+ */
+public class ExpressionCompileException extends RuntimeException {
+
+    private final String expression;
+
+    private final boolean cached;
+
+    public ExpressionCompileException(String expression, Throwable cause, boolean cached) {
+        super("Failed to compile expression: " + expression, cause, false, false);
+        this.expression = expression;
+        this.cached = cached;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 是否来自编译失败的负缓存
+     *
+     * @return 命中负缓存时为 true
+     */
+    public boolean isCached() {
+        return cached;
+    }
+}
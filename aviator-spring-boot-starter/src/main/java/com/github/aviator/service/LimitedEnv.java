@@ -0,0 +1,179 @@
+package com.github.aviator.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 带资源限制的求值环境
+ * <p>
+ * Aviator 每次读取变量都会访问用户环境，这里在每次访问时累加操作数并检查截止时间，
+ * 超限时抛出 {@link EvaluationLimitExceededException} 终止求值。
+ * <p>
+ * 序列函数在 Java 代码中遍历元素，不一定访问环境，因此求值期间当前限制同时绑定到线程上，
+ * 由 {@link LimitedSequenceFunction} 在每次函数调用和每个序列元素上计数。
+ *
+ * @author Aviator Starter
+ */
+final class LimitedEnv implements Map<String, Object> {
+
+    /**
+     * 每隔多少次操作检查一次截止时间
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    /**
+     * 当前线程正在执行的受限求值
+     */
+    private static final ThreadLocal<LimitedEnv> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Object> delegate;
+
+    private final String expression;
+
+    private final long deadlineNanos;
+
+    private final boolean hasDeadline;
+
+    private final long maxOperations;
+
+    private long operations;
+
+    /**
+     * 已经抛出的超限异常，之后的每次计数都直接抛出它
+     */
+    private EvaluationLimitExceededException exceeded;
+
+    LimitedEnv(Map<String, Object> delegate, String expression, EvaluationLimits limits) {
+        this.delegate = delegate != null ? delegate : new HashMap<>();
+        this.expression = expression;
+        this.hasDeadline = limits.getTimeout() != null;
+        this.deadlineNanos = hasDeadline ? System.nanoTime() + limits.getTimeout().toNanos() : 0L;
+        this.maxOperations = limits.getMaxOperations() > 0 ? limits.getMaxOperations() : Long.MAX_VALUE;
+    }
+
+    /**
+     * 当前线程正在执行的受限求值，没有时返回 null
+     */
+    static LimitedEnv current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 绑定到当前线程，返回之前绑定的环境，求值结束后交给 {@link #exit(LimitedEnv)} 恢复
+     */
+    LimitedEnv enter() {
+        LimitedEnv previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void exit(LimitedEnv previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * 累加一次操作，超过操作数或截止时间时抛出异常
+     */
+    void tick() {
+        if (exceeded != null) {
+            throw exceeded;
+        }
+        long current = ++operations;
+        if (current > maxOperations) {
+            throw exceed(EvaluationLimitExceededException.Kind.OPERATIONS,
+                "Expression exceeded max operations " + maxOperations + ": " + expression);
+        }
+        if (hasDeadline && (current & (DEADLINE_CHECK_INTERVAL - 1)) == 1 && System.nanoTime() > deadlineNanos) {
+            throw exceed(EvaluationLimitExceededException.Kind.TIMEOUT,
+                "Expression exceeded evaluation deadline: " + expression);
+        }
+    }
+
+    /**
+     * 部分内置函数（例如 include）会吞掉遍历中的异常，调用返回后重新抛出已经记录的超限异常
+     */
+    void checkExceeded() {
+        if (exceeded != null) {
+            throw exceeded;
+        }
+    }
+
+    private EvaluationLimitExceededException exceed(EvaluationLimitExceededException.Kind kind, String message) {
+        exceeded = new EvaluationLimitExceededException(kind, expression, message);
+        return exceeded;
+    }
+
+    long getOperations() {
+        return operations;
+    }
+
+    @Override
+    public Object get(Object key) {
+        tick();
+        return delegate.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        tick();
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return delegate.containsValue(value);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        tick();
+        return delegate.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return delegate.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        delegate.putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(delegate.keySet());
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return Collections.unmodifiableCollection(delegate.values());
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableSet(delegate.entrySet());
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.aviator.service;
+
+import com.googlecode.aviator.AviatorEvaluatorInstance;
+import com.googlecode.aviator.runtime.RuntimeUtils;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.type.AviatorFunction;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.runtime.type.AviatorRuntimeJavaType;
+import com.googlecode.aviator.runtime.type.Collector;
+import com.googlecode.aviator.runtime.type.Sequence;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 包装 Aviator 内置的序列函数，使 {@link EvaluationLimits} 在序列遍历中同样生效
+ * <p>
+ * {@code include(range(0, 200000000), -1)} 这样的表达式整个循环都在序列函数内部完成，
+ * 既不访问环境也不调用其他函数，只靠 {@link LimitedEnv} 无法中断。
+ * 包装后每次调用计一次操作，被遍历的序列参数替换为逐元素计数的序列；
+ * 原函数吞掉了遍历中抛出的超限异常时，在返回后重新抛出。
+ * 没有受限求值时直接调用原函数。
+ *
+ * @author Aviator Starter
+ */
+final class LimitedSequenceFunction extends AbstractFunction {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String BUILTIN_SEQ_PACKAGE = "com.googlecode.aviator.runtime.function.seq.";
+
+    /**
+     * 会遍历序列的函数及被遍历参数的位置（从 0 开始）
+     * <p>
+     * count 对集合和 range 直接取 size，sort、reverse 只接受 List 或数组，这些函数保持原样。
+     */
+    private static final Map<String, Integer> SEQUENCE_ARGUMENTS = new HashMap<>();
+
+    static {
+        SEQUENCE_ARGUMENTS.put("include", 0);
+        SEQUENCE_ARGUMENTS.put("map", 0);
+        SEQUENCE_ARGUMENTS.put("filter", 0);
+        SEQUENCE_ARGUMENTS.put("reduce", 0);
+        SEQUENCE_ARGUMENTS.put("seq.every", 0);
+        SEQUENCE_ARGUMENTS.put("seq.not_any", 0);
+        SEQUENCE_ARGUMENTS.put("seq.some", 0);
+        SEQUENCE_ARGUMENTS.put("seq.min", 0);
+        SEQUENCE_ARGUMENTS.put("seq.max", 0);
+        SEQUENCE_ARGUMENTS.put("into", 1);
+        SEQUENCE_ARGUMENTS.put("seq.add_all", 1);
+    }
+
+    private final AviatorFunction delegate;
+
+    private final int sequenceArgument;
+
+    private LimitedSequenceFunction(AviatorFunction delegate, int sequenceArgument) {
+        this.delegate = delegate;
+        this.sequenceArgument = sequenceArgument;
+    }
+
+    /**
+     * 把引擎中仍为内置实现的序列函数替换为包装后的版本，已经包装或被自定义函数覆盖的保持不变
+     * <p>
+     * 直接写入函数表，避免 {@link AviatorEvaluatorInstance#addFunction} 对同名函数输出告警。
+     *
+     * @param evaluator Aviator 引擎实例
+     */
+    static void install(AviatorEvaluatorInstance evaluator) {
+        Map<String, Object> functions = evaluator.getFuncMap();
+        for (Map.Entry<String, Integer> entry : SEQUENCE_ARGUMENTS.entrySet()) {
+            Object function = functions.get(entry.getKey());
+            if (function instanceof AviatorFunction
+                && function.getClass().getName().startsWith(BUILTIN_SEQ_PACKAGE)) {
+                functions.put(entry.getKey(),
+                    new LimitedSequenceFunction((AviatorFunction) function, entry.getValue()));
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+        LimitedEnv limits = LimitedEnv.current();
+        if (limits == null) {
+            return delegate.call(env, arg1);
+        }
+        limits.tick();
+        AviatorObject result = delegate.call(env, limit(0, arg1, env, limits));
+        limits.checkExceeded();
+        return result;
+    }
+
+    @Override
+    public AviatorObject call(Map<String, Object> env, AviatorObject arg1, AviatorObject arg2) {
+        LimitedEnv limits = LimitedEnv.current();
+        if (limits == null) {
+            return delegate.call(env, arg1, arg2);
+        }
+        limits.tick();
+        AviatorObject result = delegate.call(env, limit(0, arg1, env, limits), limit(1, arg2, env, limits));
+        limits.checkExceeded();
+        return result;
+    }
+
+    @Override
+    public AviatorObject call(Map<String, Object> env, AviatorObject arg1, AviatorObject arg2,
+                              AviatorObject arg3) {
+        LimitedEnv limits = LimitedEnv.current();
+        if (limits == null) {
+            return delegate.call(env, arg1, arg2, arg3);
+        }
+        limits.tick();
+        AviatorObject result = delegate.call(env, limit(0, arg1, env, limits), limit(1, arg2, env, limits),
+            limit(2, arg3, env, limits));
+        limits.checkExceeded();
+        return result;
+    }
+
+    /**
+     * 被遍历的参数替换为逐元素计数的序列；Set 保持原样，include 仍然走哈希查找
+     */
+    private AviatorObject limit(int index, AviatorObject arg, Map<String, Object> env, LimitedEnv limits) {
+        if (index != sequenceArgument) {
+            return arg;
+        }
+        Object value = arg.getValue(env);
+        if (value instanceof Sequence || value instanceof Collection && !(value instanceof Set)
+            || value instanceof Map || value != null && value.getClass().isArray()) {
+            return AviatorRuntimeJavaType.valueOf(new LimitedSequence(RuntimeUtils.seq(value, env), limits));
+        }
+        return arg;
+    }
+
+    /**
+     * 每取一个元素计一次操作的序列，收集结果时沿用原序列的容器类型
+     */
+    private static final class LimitedSequence implements Sequence<Object> {
+
+        private final Sequence<?> delegate;
+
+        private final LimitedEnv limits;
+
+        LimitedSequence(Sequence<?> delegate, LimitedEnv limits) {
+            this.delegate = delegate;
+            this.limits = limits;
+        }
+
+        @Override
+        public Collector newCollector(int size) {
+            return delegate.newCollector(size);
+        }
+
+        @Override
+        public int hintSize() {
+            return delegate.hintSize();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            Iterator<?> iterator = delegate.iterator();
+            return new Iterator<Object>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    limits.tick();
+                    return iterator.next();
+                }
+            };
+        }
+    }
+}
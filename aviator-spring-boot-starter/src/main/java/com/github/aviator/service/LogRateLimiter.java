@@ -0,0 +1,39 @@
+package com.github.aviator.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志限流器，每个时间窗口内只放行一条日志，并统计被抑制的条数
+ * <p>
+ * 错误请求风暴下避免把 CPU 花在构造异常日志和日志 I/O 上。
+ *
+ * @author Aviator Starter
+ */
+final class LogRateLimiter {
+
+    private final long intervalNanos;
+
+    private final AtomicLong nextPermitNanos;
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    LogRateLimiter(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.nextPermitNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 尝试获取本窗口的日志许可
+     *
+     * @return 获取成功时返回上个窗口以来被抑制的条数，否则返回 -1
+     */
+    long tryAcquire() {
+        long now = System.nanoTime();
+        long next = nextPermitNanos.get();
+        if (now - next >= 0 && nextPermitNanos.compareAndSet(next, now + intervalNanos)) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+}
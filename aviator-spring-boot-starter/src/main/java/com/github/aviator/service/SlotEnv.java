@@ -0,0 +1,178 @@
+package com.github.aviator.service;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按槽位存储变量的求值环境
+ * <p>
+ * 槽位由 {@link CompiledFormula#getVariableNames()} 决定，调用方按位置填充变量，
+ * 不需要每次调用都创建 HashMap 并逐个 put。变量名查找先按引用比较再按 equals 比较，
+ * 对公式常见的少量变量比哈希查找更快。
+ * <p>
+ * 实例不是线程安全的，可以通过 {@link CompiledFormula#localEnv()} 在线程内复用，或由调用方自行池化。
+ *
+ * @author Aviator Starter
+ */
+public final class SlotEnv extends AbstractMap<String, Object> {
+
+    private final String[] names;
+
+    private final Object[] values;
+
+    private final boolean[] assigned;
+
+    /**
+     * 不在槽位中的变量，首次写入时创建
+     */
+    private Map<String, Object> extra;
+
+    SlotEnv(String[] names) {
+        this.names = names;
+        this.values = new Object[names.length];
+        this.assigned = new boolean[names.length];
+    }
+
+    /**
+     * 获取变量对应的槽位
+     *
+     * @param name 变量名
+     * @return 槽位下标，不存在时返回 -1
+     */
+    public int slotOf(String name) {
+        return indexOf(name);
+    }
+
+    /**
+     * 按槽位设置变量
+     *
+     * @param slot 槽位下标
+     * @param value 变量值
+     * @return 当前环境，便于链式调用
+     */
+    public SlotEnv set(int slot, Object value) {
+        values[slot] = value;
+        assigned[slot] = true;
+        return this;
+    }
+
+    /**
+     * 按槽位读取变量
+     *
+     * @param slot 槽位下标
+     * @return 变量值
+     */
+    public Object getSlot(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * 清空所有变量以便复用
+     *
+     * @return 当前环境
+     */
+    public SlotEnv reset() {
+        Arrays.fill(values, null);
+        Arrays.fill(assigned, false);
+        if (extra != null) {
+            extra.clear();
+        }
+        return this;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            return values[slot];
+        }
+        return extra != null ? extra.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            return assigned[slot];
+        }
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            Object previous = values[slot];
+            set(slot, value);
+            return previous;
+        }
+        if (extra == null) {
+            extra = new HashMap<>();
+        }
+        return extra.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            Object previous = values[slot];
+            values[slot] = null;
+            assigned[slot] = false;
+            return previous;
+        }
+        return extra != null ? extra.remove(key) : null;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    @Override
+    public int size() {
+        int size = extra != null ? extra.size() : 0;
+        for (boolean present : assigned) {
+            if (present) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 返回当前变量的只读快照，只用于遍历，热路径不会调用
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Set<Entry<String, Object>> entries = new LinkedHashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            if (assigned[i]) {
+                entries.add(new SimpleImmutableEntry<>(names[i], values[i]));
+            }
+        }
+        if (extra != null) {
+            entries.addAll(extra.entrySet());
+        }
+        return Collections.unmodifiableSet(entries);
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.aviator.service;
+
+/**
+ * 表达式结果到基本类型的转换
+ *
+ * @author Aviator Starter
+ */
+final class TypedResults {
+
+    private TypedResults() {
+    }
+
+    static double toDouble(String expression, Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).doubleValue();
+        }
+        throw new IllegalStateException("Expression result is not a number: " + expression + " -> " + result);
+    }
+
+    static long toLong(String expression, Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        throw new IllegalStateException("Expression result is not a number: " + expression + " -> " + result);
+    }
+
+    static boolean toBoolean(String expression, Object result) {
+        if (result instanceof Boolean) {
+            return (Boolean) result;
+        }
+        throw new IllegalStateException("Expression result is not a boolean: " + expression + " -> " + result);
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.aviator.time;
+
+import com.github.aviator.service.AviatorService;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.type.AviatorBoolean;
+import com.googlecode.aviator.runtime.type.AviatorLong;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import com.googlecode.aviator.runtime.type.AviatorString;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 java.time 的日期函数库，函数名以 {@code date.} 开头
+ * <p>
+ * 时间参数可以是毫秒时间戳（数值）、{@link Date}、{@link Instant}、{@link LocalDate}、{@link LocalDateTime}、
+ * {@link ZonedDateTime} 或 {@link OffsetDateTime}；返回时间的函数统一返回毫秒时间戳。
+ * 没有时区的值按配置的时区解释，格式化器按 pattern 缓存，当前时间从 {@link Clock} 读取，测试中可以固定。
+ *
+ * <pre>
+ * date.now()                          当前毫秒时间戳
+ * date.format(t, 'yyyy-MM-dd')        格式化
+ * date.formatNow('yyyyMMdd')          格式化当前时间
+ * date.parse('2024-01-31', 'yyyy-MM-dd')  解析为毫秒时间戳（只有日期时为当天零点）
+ * date.daysBetween(a, b)              两个时间之间的自然日数，b 早于 a 时为负数
+ * date.plusDays(t, n)                 加减天数
+ * date.year(t) / date.month(t) / date.dayOfMonth(t) / date.dayOfWeek(t)   dayOfWeek 周一为 1
+ * date.isBusinessDay(t)               周一至周五且不在节假日列表中
+ * </pre>
+ *
+ * @author Aviator Starter
+ */
+public final class DateTimeFunctions {
+
+    private final Clock clock;
+
+    private final ZoneId zone;
+
+    private final Set<LocalDate> holidays;
+
+    private final FormatterCache formatters;
+
+    /**
+     * @param clock 当前时间来源
+     * @param holidays 节假日，{@code date.isBusinessDay} 对这些日期返回 false
+     * @param formatterCacheSize 最多缓存的 pattern 数
+     */
+    public DateTimeFunctions(Clock clock, Collection<LocalDate> holidays, int formatterCacheSize) {
+        this.clock = clock;
+        this.zone = clock.getZone();
+        this.holidays = Collections.unmodifiableSet(new HashSet<>(holidays));
+        this.formatters = new FormatterCache(formatterCacheSize);
+    }
+
+    /**
+     * 把所有日期函数注册到引擎
+     *
+     * @param service 引擎
+     */
+    public void register(AviatorService service) {
+        for (AbstractFunction function : getFunctions()) {
+            service.addFunction(function);
+        }
+    }
+
+    /**
+     * 所有日期函数
+     *
+     * @return 函数列表
+     */
+    public List<AbstractFunction> getFunctions() {
+        return Arrays.asList(new Now(), new Format(), new FormatNow(), new Parse(), new DaysBetween(),
+            new PlusDays(), new Year(), new Month(), new DayOfMonth(), new DayOfWeekFunction(),
+            new IsBusinessDay());
+    }
+
+    public FormatterCache getFormatterCache() {
+        return formatters;
+    }
+
+    /**
+     * 转换为时间点，数值按毫秒时间戳处理
+     */
+    Instant toInstant(Object value) {
+        if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        if (value instanceof Instant) {
+            return (Instant) value;
+        }
+        if (value instanceof Date) {
+            return Instant.ofEpochMilli(((Date) value).getTime());
+        }
+        if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant();
+        }
+        if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(zone).toInstant();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay(zone).toInstant();
+        }
+        throw new IllegalArgumentException("Unsupported date value: " + value
+            + (value != null ? " (" + value.getClass().getName() + ")" : ""));
+    }
+
+    /**
+     * 转换为配置时区下的日期
+     */
+    LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        }
+        return toInstant(value).atZone(zone).toLocalDate();
+    }
+
+    private ZonedDateTime toZoned(Object value) {
+        return toInstant(value).atZone(zone);
+    }
+
+    private static AviatorObject millis(Instant instant) {
+        return AviatorLong.valueOf(instant.toEpochMilli());
+    }
+
+    private static String string(AviatorObject arg, Map<String, Object> env) {
+        Object value = arg.getValue(env);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Expected a string but was: " + value);
+        }
+        return (String) value;
+    }
+
+    private final class Now extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.now";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env) {
+            return AviatorLong.valueOf(clock.millis());
+        }
+    }
+
+    private final class Format extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.format";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time, AviatorObject pattern) {
+            return new AviatorString(formatters.get(string(pattern, env)).format(toZoned(time.getValue(env))));
+        }
+    }
+
+    private final class FormatNow extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.formatNow";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject pattern) {
+            return new AviatorString(formatters.get(string(pattern, env)).format(ZonedDateTime.now(clock)));
+        }
+    }
+
+    private final class Parse extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.parse";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject text, AviatorObject pattern) {
+            DateTimeFormatter formatter = formatters.get(string(pattern, env));
+            TemporalAccessor parsed = formatter.parse(string(text, env));
+            LocalDate date = parsed.query(TemporalQueries.localDate());
+            if (date == null) {
+                throw new IllegalArgumentException("Pattern has no date fields: " + string(pattern, env));
+            }
+            LocalTime time = parsed.query(TemporalQueries.localTime());
+            ZoneId parsedZone = parsed.query(TemporalQueries.zone());
+            LocalDateTime dateTime = time != null ? date.atTime(time) : date.atStartOfDay();
+            return millis(dateTime.atZone(parsedZone != null ? parsedZone : zone).toInstant());
+        }
+    }
+
+    private final class DaysBetween extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.daysBetween";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject from, AviatorObject to) {
+            return AviatorLong.valueOf(ChronoUnit.DAYS.between(toLocalDate(from.getValue(env)),
+                toLocalDate(to.getValue(env))));
+        }
+    }
+
+    private final class PlusDays extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.plusDays";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time, AviatorObject days) {
+            Object amount = days.getValue(env);
+            if (!(amount instanceof Number)) {
+                throw new IllegalArgumentException("Expected a number of days but was: " + amount);
+            }
+            return millis(toZoned(time.getValue(env)).plusDays(((Number) amount).longValue()).toInstant());
+        }
+    }
+
+    private final class Year extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.year";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time) {
+            return AviatorLong.valueOf(toLocalDate(time.getValue(env)).getYear());
+        }
+    }
+
+    private final class Month extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.month";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time) {
+            return AviatorLong.valueOf(toLocalDate(time.getValue(env)).getMonthValue());
+        }
+    }
+
+    private final class DayOfMonth extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.dayOfMonth";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time) {
+            return AviatorLong.valueOf(toLocalDate(time.getValue(env)).getDayOfMonth());
+        }
+    }
+
+    private final class DayOfWeekFunction extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.dayOfWeek";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time) {
+            return AviatorLong.valueOf(toLocalDate(time.getValue(env)).getDayOfWeek().getValue());
+        }
+    }
+
+    private final class IsBusinessDay extends AbstractFunction {
+
+        @Override
+        public String getName() {
+            return "date.isBusinessDay";
+        }
+
+        @Override
+        public AviatorObject call(Map<String, Object> env, AviatorObject time) {
+            LocalDate date = toLocalDate(time.getValue(env));
+            DayOfWeek day = date.getDayOfWeek();
+            return AviatorBoolean.valueOf(day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY
+                && !holidays.contains(date));
+        }
+    }
+}
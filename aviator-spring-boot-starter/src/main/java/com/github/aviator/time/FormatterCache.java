@@ -0,0 +1,56 @@
+package com.github.aviator.time;
+
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按 pattern 缓存 {@link DateTimeFormatter}
+ * <p>
+ * DateTimeFormatter 不可变且线程安全，同一个 pattern 只解析一次。表达式中的 pattern 通常是常量，
+ * 条数达到上限后新的 pattern 不再缓存，避免动态拼接的 pattern 撑大缓存。
+ *
+ * @author Aviator Starter
+ */
+public final class FormatterCache {
+
+    private final ConcurrentMap<String, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    /**
+     * @param maxSize 最多缓存的 pattern 数
+     */
+    public FormatterCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取 pattern 对应的格式化器
+     *
+     * @param pattern {@link DateTimeFormatter#ofPattern(String)} 格式
+     * @return 格式化器
+     * @throws IllegalArgumentException pattern 不合法时抛出
+     */
+    public DateTimeFormatter get(String pattern) {
+        DateTimeFormatter formatter = formatters.get(pattern);
+        if (formatter != null) {
+            return formatter;
+        }
+        formatter = DateTimeFormatter.ofPattern(pattern);
+        if (formatters.size() < maxSize) {
+            DateTimeFormatter previous = formatters.putIfAbsent(pattern, formatter);
+            return previous != null ? previous : formatter;
+        }
+        return formatter;
+    }
+
+    /**
+     * 已缓存的 pattern 数
+     *
+     * @return 缓存条数
+     */
+    public int size() {
+        return formatters.size();
+    }
+}
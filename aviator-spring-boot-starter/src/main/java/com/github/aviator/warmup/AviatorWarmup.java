@@ -0,0 +1,217 @@
+package com.github.aviator.warmup;
+
+import com.github.aviator.autoconfigure.AviatorProperties;
+import com.github.aviator.service.AviatorEngineRegistry;
+import com.github.aviator.service.AviatorService;
+import com.googlecode.aviator.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.ReadinessState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动阶段的表达式预编译和 JIT 预热
+ * <p>
+ * 作为 {@link ApplicationRunner} 执行，Spring Boot 会在所有 Runner 完成后才发布
+ * {@link ReadinessState#ACCEPTING_TRAFFIC}，因此预热期间就绪探针返回未就绪，流量只会进入已预热的实例，
+ * 不需要另外发布就绪状态。
+ * <p>
+ * 提供了样例环境的表达式会反复执行以触发 JIT 编译；没有样例环境的表达式默认只预编译，
+ * 开启 {@code aviator.warmup.evaluate-without-samples} 后才用合成环境执行，
+ * 以免带副作用的自定义函数在启动阶段被调用上千次。
+ * <p>
+ * 预热的表达式来自三处：{@code aviator.warmup.expressions.<engine>}、容器中的
+ * {@link WarmupExpressionProvider}，以及启动时已经进入各引擎编译缓存的表达式。
+ *
+ * @author Aviator Starter
+ */
+public class AviatorWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AviatorWarmup.class);
+
+    /**
+     * 预热状态
+     */
+    public enum Status {
+        PENDING, RUNNING, COMPLETED
+    }
+
+    private final AviatorEngineRegistry engineRegistry;
+
+    private final AviatorProperties.Warmup config;
+
+    private final List<WarmupExpressionProvider> providers;
+
+    private final AtomicInteger compiledCount = new AtomicInteger();
+
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile long durationMillis;
+
+    public AviatorWarmup(AviatorEngineRegistry engineRegistry, AviatorProperties.Warmup config,
+                         List<WarmupExpressionProvider> providers) {
+        this.engineRegistry = engineRegistry;
+        this.config = config;
+        this.providers = providers;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * 执行预热，阻塞直到全部完成或超时
+     */
+    public void warmUp() {
+        List<WarmupExpression> expressions = collectExpressions();
+        if (expressions.isEmpty()) {
+            status = Status.COMPLETED;
+            return;
+        }
+
+        status = Status.RUNNING;
+        int parallelism = Math.min(Math.max(1, config.getParallelism()), expressions.size());
+        logger.info("Aviator warm-up started: {} expressions, {} iterations each, parallelism {}",
+            expressions.size(), config.getIterations(), parallelism);
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new WarmupThreadFactory());
+        try {
+            for (WarmupExpression expression : expressions) {
+                executor.execute(() -> warmUp(expression));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Aviator warm-up did not finish within {}, remaining work is cancelled", config.getTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            durationMillis = System.currentTimeMillis() - start;
+            status = Status.COMPLETED;
+        }
+        logger.info("Aviator warm-up completed in {} ms: compiled={}, failed={}",
+            durationMillis, compiledCount.get(), failedCount.get());
+    }
+
+    private void warmUp(WarmupExpression warmupExpression) {
+        AviatorService engine = engineRegistry.getEngine(warmupExpression.getEngineName());
+        Expression compiled;
+        try {
+            compiled = engine.compile(warmupExpression.getExpression(), true);
+            compiledCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            logger.warn("Aviator warm-up failed to compile expression on engine [{}]: {}",
+                warmupExpression.getEngineName(), warmupExpression.getExpression());
+            return;
+        }
+
+        List<Map<String, Object>> envs = warmupExpression.getSampleEnvs();
+        if (envs.isEmpty()) {
+            if (!config.isEvaluateWithoutSamples()) {
+                return;
+            }
+            envs = Collections.singletonList(syntheticEnv(compiled));
+        }
+        try {
+            for (int i = 0; i < config.getIterations() && !Thread.currentThread().isInterrupted(); i++) {
+                compiled.execute(envs.get(i % envs.size()));
+            }
+        } catch (RuntimeException e) {
+            // 样例环境不满足表达式要求时只做预编译
+            logger.debug("Aviator warm-up stopped evaluating expression: {}, error: {}",
+                warmupExpression.getExpression(), e.getMessage());
+        }
+    }
+
+    private Map<String, Object> syntheticEnv(Expression compiled) {
+        Map<String, Object> env = new HashMap<>();
+        for (String variable : compiled.getVariableNames()) {
+            env.put(variable, 1L);
+        }
+        return env;
+    }
+
+    private List<WarmupExpression> collectExpressions() {
+        Map<String, WarmupExpression> expressions = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : config.getExpressions().entrySet()) {
+            for (String expression : entry.getValue()) {
+                add(expressions, new WarmupExpression(entry.getKey(), expression,
+                    Collections.<Map<String, Object>>emptyList()));
+            }
+        }
+        for (WarmupExpressionProvider provider : providers) {
+            for (WarmupExpression expression : provider.getWarmupExpressions()) {
+                add(expressions, expression);
+            }
+        }
+        for (AviatorService engine : engineRegistry.getEngines().values()) {
+            if (engine.getExpressionCache() == null) {
+                continue;
+            }
+            for (String expression : engine.getExpressionCache().keys()) {
+                add(expressions, new WarmupExpression(engine.getName(), expression,
+                    Collections.<Map<String, Object>>emptyList()));
+            }
+        }
+        return new ArrayList<>(expressions.values());
+    }
+
+    private void add(Map<String, WarmupExpression> expressions, WarmupExpression expression) {
+        String key = expression.getEngineName() + '\n' + expression.getExpression();
+        WarmupExpression existing = expressions.get(key);
+        if (existing == null || existing.getSampleEnvs().isEmpty()) {
+            expressions.put(key, expression);
+        }
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+
+    public int getCompiledCount() {
+        return compiledCount.get();
+    }
+
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    private static class WarmupThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "aviator-warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.aviator.warmup;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * 预热状态健康检查，预热完成前返回 OUT_OF_SERVICE
+ *
+ * @author Aviator Starter
+ */
+public class AviatorWarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final AviatorWarmup warmup;
+
+    public AviatorWarmupHealthIndicator(AviatorWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (warmup.isCompleted()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("status", warmup.getStatus())
+            .withDetail("compiled", warmup.getCompiledCount())
+            .withDetail("failed", warmup.getFailedCount())
+            .withDetail("durationMillis", warmup.getDurationMillis());
+    }
+}
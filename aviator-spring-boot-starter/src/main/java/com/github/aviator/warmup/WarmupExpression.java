@@ -0,0 +1,71 @@
+package com.github.aviator.warmup;
+
+import com.github.aviator.service.AviatorService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 需要在启动阶段预热的表达式
+ * <p>
+ * 未提供样例环境时，预热会根据表达式的变量名构造合成环境（所有变量取值为 1）。
+ *
+ * @author Aviator Starter
+ */
+public final class WarmupExpression {
+
+    private final String engineName;
+
+    private final String expression;
+
+    private final List<Map<String, Object>> sampleEnvs;
+
+    public WarmupExpression(String engineName, String expression, List<Map<String, Object>> sampleEnvs) {
+        this.engineName = engineName;
+        this.expression = expression;
+        this.sampleEnvs = Collections.unmodifiableList(new ArrayList<>(sampleEnvs));
+    }
+
+    /**
+     * 在默认引擎上预热的表达式，使用合成环境
+     *
+     * @param expression 表达式源码
+     * @return 预热表达式
+     */
+    public static WarmupExpression of(String expression) {
+        return new WarmupExpression(AviatorService.DEFAULT_ENGINE, expression,
+            Collections.<Map<String, Object>>emptyList());
+    }
+
+    /**
+     * 在指定引擎上预热的表达式，使用给定的样例环境
+     *
+     * @param engineName 引擎名称
+     * @param expression 表达式源码
+     * @param sampleEnvs 样例环境，预热时轮流使用
+     * @return 预热表达式
+     */
+    @SafeVarargs
+    public static WarmupExpression of(String engineName, String expression, Map<String, Object>... sampleEnvs) {
+        // 逐个复制，数组本身不传给其他方法
+        List<Map<String, Object>> envs = new ArrayList<>(sampleEnvs.length);
+        for (Map<String, Object> env : sampleEnvs) {
+            envs.add(env);
+        }
+        return new WarmupExpression(engineName, expression, envs);
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public List<Map<String, Object>> getSampleEnvs() {
+        return sampleEnvs;
+    }
+}
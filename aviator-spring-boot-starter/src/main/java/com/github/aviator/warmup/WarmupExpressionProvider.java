@@ -0,0 +1,21 @@
+package com.github.aviator.warmup;
+
+import java.util.Collection;
+
+/**
+ * 预热表达式提供者
+ * <p>
+ * 容器中所有该类型的 Bean 提供的表达式都会在启动阶段预编译并预热。
+ *
+ * @author Aviator Starter
+ */
+@FunctionalInterface
+public interface WarmupExpressionProvider {
+
+    /**
+     * 获取需要预热的表达式
+     *
+     * @return 预热表达式集合
+     */
+    Collection<WarmupExpression> getWarmupExpressions();
+}
@@ -1,12 +1,21 @@
 package com.github.aviator.autoconfigure;
 
+import com.github.aviator.annotation.AviatorExpression;
+import com.github.aviator.annotation.AviatorFunction;
+import com.github.aviator.service.AviatorEngineRegistry;
 import com.github.aviator.service.AviatorService;
+import com.github.aviator.service.CompiledFormula;
+import com.googlecode.aviator.Expression;
+import com.github.aviator.warmup.AviatorWarmup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -22,7 +31,12 @@ import static org.junit.Assert.*;
 @TestPropertySource(properties = {
     "aviator.enable=true",
     "aviator.cache-enabled=true",
-    "aviator.cache-size=500"
+    "aviator.cache-size=500",
+    "aviator.engines.pricing.cache-size=200",
+    "aviator.engines.rules.cache-enabled=false",
+    "aviator.warmup.iterations=10",
+    "aviator.warmup.expressions.pricing[0]=price * quantity",
+    "test.rules.min-credit=650"
 })
 public class AviatorAutoConfigurationTest {
 
@@ -56,8 +70,127 @@ public class AviatorAutoConfigurationTest {
         assertEquals(30L, result);
     }
 
+    @Test
+    public void testNamedEnginesRegistered() {
+        AviatorEngineRegistry registry = applicationContext.getBean(AviatorEngineRegistry.class);
+        assertTrue(registry.containsEngine(AviatorService.DEFAULT_ENGINE));
+        assertTrue(registry.containsEngine("pricing"));
+        assertTrue(registry.containsEngine("rules"));
+        assertSame(applicationContext.getBean(AviatorService.class), registry.getDefaultEngine());
+
+        AviatorService pricing = registry.getEngine("pricing");
+        assertEquals("pricing", pricing.getName());
+        assertNotSame(registry.getDefaultEngine().getEvaluator(), pricing.getEvaluator());
+        assertEquals(6L, pricing.execute("1 + 2 + 3"));
+    }
+
+    @Test
+    public void testMetricsRecorded() {
+        MeterRegistry meterRegistry = applicationContext.getBean(MeterRegistry.class);
+        AviatorService pricing = applicationContext.getBean(AviatorEngineRegistry.class).getEngine("pricing");
+        pricing.execute("100 * 3");
+        try {
+            pricing.execute("100 * ");
+        } catch (RuntimeException expected) {
+            // 记录一次编译失败
+        }
+
+        assertEquals(1, meterRegistry.get("aviator.execute")
+            .tag("engine", "pricing").tag("expression", "100 * 3").timer().count());
+        assertEquals(1, meterRegistry.get("aviator.compile")
+            .tag("engine", "pricing").tag("expression", "100 * 3").timer().count());
+        assertEquals(1.0, meterRegistry.get("aviator.errors")
+            .tag("engine", "pricing").tag("phase", "compile").counter().count(), 0.0);
+        assertNotNull(meterRegistry.get("aviator.cache.size").tag("engine", "pricing").gauge());
+        assertNotNull(meterRegistry.get("aviator.cache.hit.ratio").tag("engine", AviatorService.DEFAULT_ENGINE).gauge());
+    }
+
+    @Test
+    public void testWarmupPrecompilesConfiguredExpressions() {
+        AviatorWarmup warmup = applicationContext.getBean(AviatorWarmup.class);
+        assertTrue(warmup.isCompleted());
+        // 配置的 1 个表达式，加上 LoanRules 中 @AviatorExpression 编译进缓存的 2 个表达式
+        assertEquals(3, warmup.getCompiledCount());
+
+        AviatorService pricing = applicationContext.getBean(AviatorEngineRegistry.class).getEngine("pricing");
+        assertNotNull(pricing.getExpressionCache().getIfPresent("price * quantity"));
+    }
+
+    @Test
+    public void testAviatorExpressionInjected() {
+        LoanRules rules = applicationContext.getBean(LoanRules.class);
+        assertNotNull(rules.eligibility);
+        assertEquals(Boolean.TRUE, rules.eligibility.execute(rules.eligibility.newEnv("credit", 700, "income", 6000)));
+
+        assertTrue(rules.tieredPrice.isPrimitive());
+        assertEquals(90.0, rules.tieredPrice.executeDouble(20, 5.0), 1e-9);
+
+        AviatorService pricing = applicationContext.getBean(AviatorEngineRegistry.class).getEngine("pricing");
+        assertNotNull(pricing.getExpressionCache().getIfPresent(rules.tieredPrice.getExpression()));
+    }
+
+    @Test
+    public void testAviatorFunctionRegistered() {
+        AviatorService aviatorService = applicationContext.getBean(AviatorService.class);
+        assertEquals(8.0, aviatorService.execute("test.pow(2, 3)"));
+        assertEquals("VIP-7", aviatorService.execute("test.tag(7)"));
+
+        AviatorService pricing = applicationContext.getBean(AviatorEngineRegistry.class).getEngine("pricing");
+        assertEquals(45.0, pricing.execute("discount(50.0, true)"));
+        assertEquals(50.0, pricing.execute("discount(50.0, false)"));
+    }
+
+    static class PricingFunctions {
+
+        private final double vipRate = 0.9;
+
+        @AviatorFunction("test.pow")
+        static double pow(double base, double exponent) {
+            return Math.pow(base, exponent);
+        }
+
+        @AviatorFunction("test.tag")
+        String tag(long level) {
+            return "VIP-" + level;
+        }
+
+        @AviatorFunction(engine = "pricing")
+        double discount(double price, boolean vip) {
+            return vip ? price * vipRate : price;
+        }
+    }
+
+    static class LoanRules {
+
+        @AviatorExpression("credit >= ${test.rules.min-credit} && income >= 5000")
+        private Expression eligibility;
+
+        private CompiledFormula tieredPrice;
+
+        @AviatorExpression(value = "qty <= 10 ? qty * price : qty * price * 0.9", engine = "pricing",
+            variables = {"qty", "price"})
+        public void setTieredPrice(CompiledFormula tieredPrice) {
+            this.tieredPrice = tieredPrice;
+        }
+    }
+
     @SpringBootApplication
     static class TestApplication {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public PricingFunctions pricingFunctions() {
+            return new PricingFunctions();
+        }
+
+        @Bean
+        public LoanRules loanRules() {
+            return new LoanRules();
+        }
     }
 }
 
@@ -1,11 +1,50 @@
 package com.github.aviator.service;
 
+import com.github.aviator.annotation.AviatorFunction;
+import com.github.aviator.annotation.AviatorVariable;
+import com.github.aviator.autoconfigure.AviatorEngineProperties;
 import com.github.aviator.autoconfigure.AviatorProperties;
+import com.github.aviator.cache.ExpressionCacheStats;
+import com.github.aviator.decision.DecisionTable;
+import com.github.aviator.env.BeanEnvAdapter;
+import com.github.aviator.executor.AviatorExecutorFactory;
+import com.github.aviator.metrics.MicrometerAviatorMetrics;
+import com.github.aviator.ruleset.RuleSet;
+import com.github.aviator.ruleset.RuleSetResult;
+import com.github.aviator.time.DateTimeFunctions;
+import com.github.aviator.warmup.AviatorWarmup;
+import com.github.aviator.warmup.WarmupExpression;
+import com.github.aviator.warmup.WarmupExpressionProvider;
+import com.googlecode.aviator.Options;
+import com.googlecode.aviator.runtime.function.AbstractFunction;
+import com.googlecode.aviator.runtime.type.AviatorDouble;
+import com.googlecode.aviator.runtime.type.AviatorObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -134,5 +173,618 @@ public class AviatorServiceTest {
     public void testInvalidExpression() {
         aviatorService.execute("invalid expression @@#$");
     }
-}
 
+    @Test
+    public void testInvalidExpressionIsCachedAsFailure() {
+        String expression = "1 + (2 * ";
+        ExpressionCompileException first = null;
+        try {
+            aviatorService.compile(expression);
+            fail("expected compile failure");
+        } catch (ExpressionCompileException e) {
+            first = e;
+            assertFalse(e.isCached());
+            assertEquals(0, e.getStackTrace().length);
+        }
+        try {
+            aviatorService.execute(expression);
+            fail("expected compile failure");
+        } catch (ExpressionCompileException e) {
+            assertTrue(e.isCached());
+            assertSame(first.getCause(), e.getCause());
+        }
+
+        aviatorService.clearExpressionCache();
+        try {
+            aviatorService.compile(expression);
+            fail("expected compile failure");
+        } catch (ExpressionCompileException e) {
+            assertFalse(e.isCached());
+        }
+    }
+
+    @Test
+    public void testTypedExecute() {
+        Map<String, Object> env = new HashMap<>();
+        env.put("price", 100.0);
+        env.put("quantity", 3);
+
+        assertEquals(300.0, aviatorService.executeDouble("price * quantity", env), 0.0);
+        assertEquals(4L, aviatorService.executeLong("quantity + 1", env));
+        assertTrue(aviatorService.executeBoolean("price > 50", env));
+    }
+
+    @Test
+    public void testCompileFormulaMatchesAviator() {
+        String[] expressions = {
+            "(price * quantity * (1 - discount) + shipping) * (1 + tax)",
+            "price * (1 - discount) / 7 % 3",
+            "quantity <= 10 ? quantity * price : (quantity <= 50 ? quantity * price * 0.9 : quantity * price * 0.7)",
+            "math.pow(1 + discount, quantity) + math.sqrt(price) - math.abs(-shipping)",
+            "7 / 2 + price",
+            "-price + 1e2"
+        };
+        String[] variables = {"price", "quantity", "discount", "shipping", "tax"};
+        double[] args = {99.5, 12, 0.1, 8, 0.06};
+        Map<String, Object> env = new HashMap<>();
+        for (int i = 0; i < variables.length; i++) {
+            env.put(variables[i], args[i]);
+        }
+
+        for (String expression : expressions) {
+            CompiledFormula formula = aviatorService.compileFormula(expression, variables);
+            assertTrue(expression, formula.isPrimitive());
+            assertEquals(expression, ((Number) aviatorService.execute(expression, env)).doubleValue(),
+                formula.executeDouble(args), 1e-9);
+        }
+
+        CompiledFormula predicate = aviatorService.compileFormula("price >= 100 && !(quantity < 10)", variables);
+        assertTrue(predicate.isPrimitive());
+        assertFalse(predicate.executeBoolean(args));
+        assertTrue(predicate.executeBoolean(100, 10, 0, 0, 0));
+
+        CompiledFormula integral = aviatorService.compileFormula("a / b + a % b", "a", "b");
+        assertEquals(4L, integral.executeLong(7, 2));
+        assertEquals(4.5, integral.executeDouble(7, 2), 0.0);
+    }
+
+    @Test
+    public void testCompileFormulaFallsBackToAviator() {
+        CompiledFormula formula = aviatorService.compileFormula("string.length(name) * factor", "name", "factor");
+        assertFalse(formula.isPrimitive());
+        Map<String, Object> env = new HashMap<>();
+        env.put("name", "aviator");
+        env.put("factor", 2);
+        assertEquals(14L, formula.executeLong(env));
+
+        aviatorService.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "math.sqrt";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg) {
+                return AviatorDouble.valueOf(-1);
+            }
+        });
+        CompiledFormula overridden = aviatorService.compileFormula("math.sqrt(x)", "x");
+        assertFalse(overridden.isPrimitive());
+        assertEquals(-1.0, overridden.executeDouble(4), 0.0);
+    }
+
+    @Test
+    public void testSlotEnvReuse() {
+        CompiledFormula formula = aviatorService.compileFormula("name + ':' + price * qty", "name", "price", "qty");
+        assertFalse(formula.isPrimitive());
+
+        SlotEnv env = formula.localEnv();
+        assertEquals(1, env.slotOf("price"));
+        env.set(0, "apple").set(1, 2.5).set(2, 4);
+        assertEquals("apple:10.0", formula.execute(env));
+
+        SlotEnv reused = formula.localEnv();
+        assertSame(env, reused);
+        assertFalse(reused.containsKey("name"));
+        reused.set(0, "pear").set(1, 1.0).set(2, 3);
+        assertEquals("pear:3.0", formula.execute(reused));
+        assertEquals(3, reused.size());
+    }
+
+    @Test
+    public void testDecisionTable() {
+        // credit >= 750 ? 0.04 : (credit >= 700 ? 0.05 : (credit >= 650 ? 0.06 : 0.08))
+        DecisionTable loanRate = DecisionTable.builder(0.08)
+            .from(650, 0.06)
+            .from(750, 0.04)
+            .from(700, 0.05)
+            .build();
+        assertEquals(0.08, loanRate.lookupDouble(649.9), 0.0);
+        assertEquals(0.06, loanRate.lookupDouble(650), 0.0);
+        assertEquals(0.05, loanRate.lookupDouble(749), 0.0);
+        assertEquals(0.04, loanRate.lookupDouble(800), 0.0);
+
+        // qty <= 10 ? 'A' : (qty <= 50 ? 'B' : 'C')
+        DecisionTable tiers = DecisionTable.builder("A").above(10, "B").above(50, "C").build();
+        aviatorService.addDecisionTable("tier", tiers);
+        Map<String, Object> env = new HashMap<>();
+        for (int qty : new int[]{1, 10, 11, 50, 51}) {
+            env.put("qty", qty);
+            assertEquals(aviatorService.execute("qty <= 10 ? 'A' : (qty <= 50 ? 'B' : 'C')", env),
+                aviatorService.execute("tier(qty)", env));
+        }
+    }
+
+    @Test
+    public void testExecuteBean() {
+        Applicant applicant = new Applicant();
+        applicant.setAge(30);
+        applicant.setCreditScore(720);
+        applicant.setCollateral(true);
+
+        BeanEnvAdapter<Applicant> adapter = BeanEnvAdapter.forClass(Applicant.class);
+        assertSame(adapter, BeanEnvAdapter.forClass(Applicant.class));
+        assertTrue(adapter.getVariableNames().contains("credit"));
+        assertFalse(adapter.getVariableNames().contains("creditScore"));
+
+        String rule = "age >= 18 && credit >= 700 && collateral";
+        assertEquals(Boolean.TRUE, aviatorService.executeBean(rule, applicant));
+        applicant.setCreditScore(650);
+        assertEquals(Boolean.FALSE, aviatorService.executeBean(rule, applicant));
+
+        Map<String, Object> env = adapter.wrap(applicant);
+        assertEquals(650, env.get("credit"));
+        env.put("credit", 800);
+        assertEquals(800, env.get("credit"));
+        assertEquals(Integer.valueOf(650), applicant.getCreditScore());
+    }
+
+    @Test
+    public void testDateTimeFunctions() {
+        ZoneId zone = ZoneId.of("Asia/Shanghai");
+        Clock clock = Clock.fixed(ZonedDateTime.of(2024, 3, 1, 10, 15, 30, 0, zone).toInstant(), zone);
+        new DateTimeFunctions(clock, Collections.singletonList(LocalDate.of(2024, 3, 4)), 16).register(aviatorService);
+
+        assertEquals(clock.millis(), aviatorService.execute("date.now()"));
+        assertEquals("2024-03-01 10:15", aviatorService.execute("date.formatNow('yyyy-MM-dd HH:mm')"));
+        assertEquals(clock.millis(), aviatorService.execute("date.parse('2024-03-01 10:15:30', 'yyyy-MM-dd HH:mm:ss')"));
+        assertEquals(5L, aviatorService.execute("date.dayOfWeek(date.now())"));
+
+        Map<String, Object> env = new HashMap<>();
+        env.put("orderDate", LocalDate.of(2024, 2, 28));
+        env.put("signedAt", new Date(clock.millis()));
+        env.put("paidAt", Instant.ofEpochMilli(clock.millis()));
+        assertEquals(2L, aviatorService.execute("date.daysBetween(orderDate, signedAt)", env));
+        assertEquals("2024-03-03", aviatorService.execute("date.format(date.plusDays(paidAt, 2), 'yyyy-MM-dd')", env));
+        assertEquals(2024L, aviatorService.execute("date.year(orderDate)", env));
+        assertEquals(2L, aviatorService.execute("date.month(orderDate)", env));
+        assertEquals(29L, aviatorService.execute("date.dayOfMonth(date.plusDays(orderDate, 1))", env));
+
+        assertEquals(Boolean.TRUE, aviatorService.execute("date.isBusinessDay(date.now())"));
+        assertEquals(Boolean.FALSE, aviatorService.execute("date.isBusinessDay(date.plusDays(date.now(), 1))"));
+        assertEquals(Boolean.FALSE, aviatorService.execute("date.isBusinessDay(date.parse('20240304', 'yyyyMMdd'))"));
+    }
+
+    @Test
+    public void testAddAnnotatedFunctions() {
+        aviatorService.addFunctions(MathFunctions.class);
+        assertEquals(9.0, aviatorService.execute("math.hypot2(3, 0)"));
+        assertEquals(3.14, aviatorService.execute("math.round2(3.14159)"));
+        assertEquals(Boolean.TRUE, aviatorService.execute("inRange(5, 1, 10)"));
+        assertEquals(6L, aviatorService.execute("math.sum3(1, 2, 3)"));
+        assertEquals("ab", aviatorService.execute("str.concat('a', 'b')"));
+        assertEquals(42L, aviatorService.execute("answer()"));
+
+        Map<String, Object> env = new HashMap<>();
+        env.put("items", Arrays.asList(1, 2, 3));
+        assertEquals(3L, aviatorService.execute("sizeOf(items)", env));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAnnotatedFunctionsRejectsVoid() {
+        aviatorService.addFunctions(new Object() {
+            @AviatorFunction
+            public void log(String message) {
+            }
+        });
+    }
+
+    /**
+     * addFunctions 使用的静态函数
+     */
+    public static class MathFunctions {
+
+        @AviatorFunction("math.hypot2")
+        public static double hypot2(double x, double y) {
+            return x * x + y * y;
+        }
+
+        @AviatorFunction("math.round2")
+        public static double round2(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+
+        @AviatorFunction
+        public static boolean inRange(double value, double min, double max) {
+            return value >= min && value <= max;
+        }
+
+        @AviatorFunction("math.sum3")
+        public static long sum3(long a, int b, Long c) {
+            return a + b + c;
+        }
+
+        @AviatorFunction("str.concat")
+        public static String concat(String a, String b) {
+            return a + b;
+        }
+
+        @AviatorFunction
+        public static int answer() {
+            return 42;
+        }
+
+        @AviatorFunction
+        public static int sizeOf(List<?> items) {
+            return items.size();
+        }
+    }
+
+    /**
+     * executeBean 使用的 Bean，creditScore 在表达式中命名为 credit
+     */
+    public static class Applicant {
+
+        private int age;
+
+        @AviatorVariable("credit")
+        private Integer creditScore;
+
+        private boolean collateral;
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Integer getCreditScore() {
+            return creditScore;
+        }
+
+        public void setCreditScore(Integer creditScore) {
+            this.creditScore = creditScore;
+        }
+
+        public boolean isCollateral() {
+            return collateral;
+        }
+
+        public void setCollateral(boolean collateral) {
+            this.collateral = collateral;
+        }
+    }
+
+    @Test
+    public void testRuleSet() {
+        Map<String, String> rules = new LinkedHashMap<>();
+        rules.put("eligible", "age >= 18 && income > 3000");
+        rules.put("premium", "age >= 18 && income > 3000 && credit >= 700");
+        rules.put("limit", "age >= 18 && income > 3000 ? math.round(income * 0.3) : 0");
+        rules.put("level", "credit >= 700 ? 'A' : (credit >= 600 ? 'B' : 'C')");
+        rules.put("tags", "seq.list(age, credit)");
+        rules.put("bonus", "let base = income * 0.1; base > 500 ? 500 : base");
+        RuleSet ruleSet = aviatorService.compileRuleSet(rules);
+        assertTrue(ruleSet.getDistinctNodeCount() < ruleSet.getTotalNodeCount());
+        assertEquals(java.util.Collections.singletonList("bonus"), ruleSet.getFallbackRuleNames());
+
+        int[][] cases = {{25, 6000, 720}, {17, 6000, 720}, {30, 2000, 650}, {40, 8000, 500}};
+        for (int[] c : cases) {
+            Map<String, Object> env = new HashMap<>();
+            env.put("age", c[0]);
+            env.put("income", c[1]);
+            env.put("credit", c[2]);
+            RuleSetResult result = ruleSet.evaluate(env);
+            for (Map.Entry<String, String> rule : rules.entrySet()) {
+                assertEquals(rule.getKey(), aviatorService.execute(rule.getValue(), env), result.get(rule.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void testEnginesAreIsolated() {
+        AviatorService other = new AviatorService("other", new AviatorProperties());
+        other.init();
+
+        aviatorService.addFunction(new com.googlecode.aviator.runtime.function.AbstractFunction() {
+            @Override
+            public String getName() {
+                return "square";
+            }
+
+            @Override
+            public com.googlecode.aviator.runtime.type.AviatorObject call(
+                    Map<String, Object> env, com.googlecode.aviator.runtime.type.AviatorObject arg1) {
+                return arg1.mult(arg1, env);
+            }
+        });
+
+        assertEquals(9L, aviatorService.execute("square(3)"));
+        assertNotSame(aviatorService.getEvaluator(), other.getEvaluator());
+        assertFalse(other.getEvaluator().containsFunction("square"));
+    }
+
+    @Test
+    public void testExpressionCacheStats() {
+        aviatorService.clearExpressionCache();
+        Map<String, Object> env = new HashMap<>();
+        env.put("a", 1);
+
+        aviatorService.execute("a + 100", env);
+        aviatorService.execute("a + 100", env);
+        assertSame(aviatorService.compile("a + 100", true), aviatorService.compile("a + 100", true));
+
+        ExpressionCacheStats stats = aviatorService.getCacheStats();
+        assertEquals(1, stats.getMissCount());
+        assertEquals(3, stats.getHitCount());
+        assertTrue(aviatorService.getExpressionCache().keys().contains("a + 100"));
+    }
+
+    @Test
+    public void testSetOptionRecompilesCachedExpressions() {
+        assertEquals(Double.class, aviatorService.execute("0.1 + 0.2").getClass());
+        assertTrue(aviatorService.getExpressionCache().keys().contains("0.1 + 0.2"));
+
+        aviatorService.setOption(Options.ALWAYS_PARSE_FLOATING_POINT_NUMBER_INTO_DECIMAL, true);
+        assertTrue(aviatorService.getExpressionCache().keys().isEmpty());
+        assertEquals(new BigDecimal("0.3"), aviatorService.execute("0.1 + 0.2"));
+    }
+
+    @Test
+    public void testFunctionChangesInvalidateExpressionCache() {
+        aviatorService.execute("1 + 1");
+        aviatorService.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "one";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env) {
+                return AviatorDouble.valueOf(1);
+            }
+        });
+        assertTrue(aviatorService.getExpressionCache().keys().isEmpty());
+
+        assertEquals(2.0, aviatorService.execute("one() + one()"));
+        aviatorService.removeFunction("one");
+        assertTrue(aviatorService.getExpressionCache().keys().isEmpty());
+    }
+
+    @Test
+    public void testMicrometerFailureCountersAreReused() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerAviatorMetrics metrics = new MicrometerAviatorMetrics(registry, 10, 20);
+        for (int i = 0; i < 3; i++) {
+            metrics.recordCompile("default", "a +", 1, new IllegalStateException());
+            metrics.recordExecute("default", "a", 1, new IllegalStateException());
+            metrics.recordLimitExceeded("default", EvaluationLimitExceededException.Kind.TIMEOUT);
+        }
+        metrics.recordExecute("default", "a", 1, new ArithmeticException());
+
+        assertEquals(3, registry.get(MicrometerAviatorMetrics.ERROR_COUNTER).tag("phase", "compile")
+            .tag("exception", "IllegalStateException").counter().count(), 0);
+        assertEquals(3, registry.get(MicrometerAviatorMetrics.ERROR_COUNTER).tag("phase", "execute")
+            .tag("exception", "IllegalStateException").counter().count(), 0);
+        assertEquals(1, registry.get(MicrometerAviatorMetrics.ERROR_COUNTER).tag("phase", "execute")
+            .tag("exception", "ArithmeticException").counter().count(), 0);
+        assertEquals(3, registry.get(MicrometerAviatorMetrics.LIMIT_EXCEEDED_COUNTER).tag("kind", "TIMEOUT")
+            .counter().count(), 0);
+    }
+
+    @Test
+    public void testWarmupEvaluatesOnlyWithSampleEnvs() {
+        AtomicInteger calls = new AtomicInteger();
+        aviatorService.addFunction(new AbstractFunction() {
+            @Override
+            public String getName() {
+                return "sideEffect";
+            }
+
+            @Override
+            public AviatorObject call(Map<String, Object> env, AviatorObject arg1) {
+                calls.incrementAndGet();
+                return arg1;
+            }
+        });
+        AviatorEngineRegistry registry = new AviatorEngineRegistry(aviatorService,
+            Collections.<String, AviatorEngineProperties>emptyMap());
+        AviatorProperties.Warmup config = new AviatorProperties.Warmup();
+        config.setIterations(5);
+        // 并行度不合法时按 1 处理，不影响启动
+        config.setParallelism(0);
+        config.getExpressions().put(AviatorService.DEFAULT_ENGINE, Collections.singletonList("sideEffect(a)"));
+
+        AviatorWarmup warmup = new AviatorWarmup(registry, config, Collections.<WarmupExpressionProvider>emptyList());
+        warmup.warmUp();
+        assertTrue(warmup.isCompleted());
+        assertEquals(1, warmup.getCompiledCount());
+        assertEquals(0, calls.get());
+
+        Map<String, Object> sample = new HashMap<>();
+        sample.put("b", 2);
+        WarmupExpressionProvider provider = () -> Collections.singletonList(
+            WarmupExpression.of(AviatorService.DEFAULT_ENGINE, "sideEffect(b)", sample));
+        AviatorProperties.Warmup sampled = new AviatorProperties.Warmup();
+        sampled.setIterations(5);
+        new AviatorWarmup(registry, sampled, Collections.singletonList(provider)).warmUp();
+        assertEquals(5, calls.get());
+
+        config.setEvaluateWithoutSamples(true);
+        calls.set(0);
+        new AviatorWarmup(registry, config, Collections.<WarmupExpressionProvider>emptyList()).warmUp();
+        // 编译缓存中的 sideEffect(a) 与 sideEffect(b) 都没有样例环境，使用合成环境执行
+        assertEquals(10, calls.get());
+    }
+
+    @Test
+    public void testExecuteBatch() {
+        aviatorService.setBatchChunkSize(8);
+        List<Map<String, Object>> envs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> env = new HashMap<>();
+            env.put("x", i);
+            env.put("y", i == 42 ? "oops" : 2);
+            envs.add(env);
+        }
+
+        List<BatchResult> results = aviatorService.executeBatch("x * y", envs);
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            if (i == 42) {
+                assertFalse(results.get(i).isSuccess());
+                assertNotNull(results.get(i).getError());
+            } else {
+                assertTrue(results.get(i).isSuccess());
+                assertEquals((long) i * 2, results.get(i).getValue());
+            }
+        }
+        assertEquals(1, aviatorService.getCacheStats().getMissCount());
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        AviatorProperties.Executor config = new AviatorProperties.Executor();
+        config.setVirtualThreads(true);
+        ThreadPoolExecutor executor = AviatorExecutorFactory.create(config);
+        try {
+            aviatorService.setAsyncExecutor(executor);
+            Map<String, Object> env = new HashMap<>();
+            env.put("a", 20);
+
+            assertEquals(22L, aviatorService.executeAsync("a + 2", env).get());
+
+            CompletableFuture<Object> failed = aviatorService.executeAsync("a +", env);
+            try {
+                failed.get();
+                fail("expected compile failure");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RuntimeException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecuteAsyncRejected() throws Exception {
+        aviatorService.setAsyncExecutor(command -> {
+            throw new RejectedExecutionException("saturated");
+        });
+        try {
+            aviatorService.executeAsync("1 + 1").get();
+            fail("expected rejection");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testMaxOperationsExceeded() {
+        Map<String, Object> env = new HashMap<>();
+        env.put("a", 1);
+        String expression = "reduce(seq.list(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), lambda(acc, x) -> acc + x * a end, 0)";
+
+        assertEquals(55L, aviatorService.execute(expression, env, EvaluationLimits.maxOperations(1000)));
+        try {
+            aviatorService.execute(expression, env, EvaluationLimits.maxOperations(5));
+            fail("expected operation budget to be exceeded");
+        } catch (EvaluationLimitExceededException e) {
+            assertEquals(EvaluationLimitExceededException.Kind.OPERATIONS, e.getKind());
+            assertEquals(expression, e.getExpression());
+        }
+    }
+
+    @Test
+    public void testTimeoutExceeded() {
+        Map<String, Object> env = new HashMap<>();
+        env.put("a", 1);
+        String expression = "reduce(range(0, 1000000), lambda(acc, x) -> acc + a end, 0)";
+        try {
+            aviatorService.execute(expression, env, EvaluationLimits.timeout(Duration.ofNanos(1)));
+            fail("expected deadline to be exceeded");
+        } catch (EvaluationLimitExceededException e) {
+            assertEquals(EvaluationLimitExceededException.Kind.TIMEOUT, e.getKind());
+        }
+    }
+
+    @Test
+    public void testLimitsInsideSequenceFunctionWithoutEnvAccess() {
+        String expression = "include(range(0, 200000000), -1)";
+        long start = System.nanoTime();
+        try {
+            aviatorService.execute(expression, null, EvaluationLimits.timeout(Duration.ofMillis(50)));
+            fail("expected deadline to be exceeded");
+        } catch (EvaluationLimitExceededException e) {
+            assertEquals(EvaluationLimitExceededException.Kind.TIMEOUT, e.getKind());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+        try {
+            aviatorService.execute(expression, null, EvaluationLimits.of(Duration.ofMillis(50), 1000));
+            fail("expected operation budget to be exceeded");
+        } catch (EvaluationLimitExceededException e) {
+            assertEquals(EvaluationLimitExceededException.Kind.OPERATIONS, e.getKind());
+        }
+    }
+
+    @Test
+    public void testSequenceFunctionsUnderLimits() {
+        Map<String, Object> env = new HashMap<>();
+        env.put("list", Arrays.asList(3, 1, 2));
+        env.put("set", new HashSet<>(Arrays.asList(1, 2, 3)));
+        env.put("array", new int[] {3, 1, 2});
+        env.put("dict", Collections.singletonMap("k", 1));
+        EvaluationLimits limits = EvaluationLimits.maxOperations(1000);
+        String[] expressions = {
+            "map(list, lambda(x) -> x * 2 end)",
+            "count(filter(array, lambda(x) -> x > 1 end))",
+            "include(set, 2)",
+            "include(list, 4)",
+            "reduce(range(0, 5), lambda(acc, x) -> acc + x end, 0)",
+            "seq.every(list, seq.gt(0))",
+            "seq.max(array)",
+            "count(range(0, 100000))",
+            "into(seq.list(), dict)",
+            "seq.add_all(seq.set(), list)"
+        };
+        for (String expression : expressions) {
+            assertEquals(expression, String.valueOf(aviatorService.execute(expression, env)),
+                String.valueOf(aviatorService.execute(expression, env, limits)));
+        }
+    }
+
+    @Test
+    public void testEngineDefaultLimits() {
+        AviatorProperties properties = new AviatorProperties();
+        properties.getLimits().setMaxOperations(50);
+        AviatorService limited = new AviatorService("limited", properties);
+        limited.init();
+
+        Map<String, Object> env = new HashMap<>();
+        env.put("a", 1);
+        env.put("b", 2);
+        String loop = "reduce(range(0, 100), lambda(acc, x) -> acc + a * b end, 0)";
+        assertEquals(3L, limited.execute("a + b", env));
+        try {
+            limited.execute(loop, env);
+            fail("expected operation budget to be exceeded");
+        } catch (EvaluationLimitExceededException e) {
+            assertEquals(EvaluationLimitExceededException.Kind.OPERATIONS, e.getKind());
+        }
+        assertEquals(200L, limited.execute(loop, env, EvaluationLimits.NONE));
+    }
+}